@@ -0,0 +1,579 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.browser.opentype;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.browser.IndexTypeInfo;
+import org.eclipse.cdt.core.dom.ILinkage;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexBinding;
+import org.eclipse.cdt.core.index.IIndexChangeEvent;
+import org.eclipse.cdt.core.index.IIndexChangeListener;
+import org.eclipse.cdt.core.index.IIndexFile;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexMacro;
+import org.eclipse.cdt.core.index.IIndexManager;
+import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.index.IIndexerStateEvent;
+import org.eclipse.cdt.core.index.IIndexerStateListener;
+import org.eclipse.cdt.core.index.IndexFilter;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+
+import org.eclipse.cdt.internal.core.browser.IndexModelUtil;
+
+import org.eclipse.cdt.internal.ui.util.CamelCaseMatcher;
+
+/**
+ * The elements of the index that can be selected in the {@link ElementSelectionDialog},
+ * held in memory such that the dialog can filter them while typing without locking the
+ * index.
+ * <p>
+ * For each element the name, the enclosing names, the kind and the signature of
+ * functions are kept in arrays, strings and enclosing names are shared between the
+ * elements. The elements shown by the dialog are created for the matches of a query,
+ * they look up their bindings in the index when one of them is selected.
+ * <p>
+ * The elements are read per project in the background when the table is used for the
+ * first time. When files of a project are indexed, the elements declared in these files
+ * are added as soon as the indexer is idle. Elements that are no longer declared are
+ * kept until the project is read again.
+ */
+final class ElementNameTable implements IIndexChangeListener, IIndexerStateListener {
+	private static final ElementNameTable INSTANCE= new ElementNameTable();
+	private static final ISchedulingRule RULE= new ISchedulingRule() {
+		public boolean contains(ISchedulingRule rule) {
+			return rule == this;
+		}
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule == this;
+		}
+	};
+	/** The kinds of elements in the table, the index of a kind is its bit in the kind masks */
+	private static final int[] ELEMENT_TYPES= { ICElement.C_NAMESPACE, ICElement.C_CLASS, ICElement.C_STRUCT,
+			ICElement.C_UNION, ICElement.C_ENUMERATION, ICElement.C_ENUMERATOR, ICElement.C_TYPEDEF,
+			ICElement.C_FUNCTION, ICElement.C_METHOD, ICElement.C_VARIABLE, ICElement.C_FUNCTION_DECLARATION,
+			ICElement.C_METHOD_DECLARATION, ICElement.C_VARIABLE_DECLARATION, ICElement.C_MACRO };
+	/** The bindings of a project are read one linkage after the other */
+	private static final int[] LINKAGE_IDS= { ILinkage.C_LINKAGE_ID, ILinkage.CPP_LINKAGE_ID,
+			ILinkage.FORTRAN_LINKAGE_ID };
+	private static final int MACRO_MASK= getKindMask(ICElement.C_MACRO);
+	private static final IndexFilter FILTER= new KindFilter(~MACRO_MASK, -1);
+	private static final String[] NO_STRINGS= new String[0];
+	/** Number of indexed files after which a project is read again rather than updated */
+	private static final int MAX_CHANGED_FILES= 1000;
+
+	/**
+	 * Accepts declared bindings of the kinds of a mask, optionally of a single linkage.
+	 */
+	private static final class KindFilter extends IndexFilter {
+		private final int fMask;
+		private final int fLinkageID;
+
+		KindFilter(int mask, int linkageID) {
+			fMask= mask;
+			fLinkageID= linkageID;
+		}
+
+		@Override
+		public boolean acceptLinkage(ILinkage linkage) {
+			return fLinkageID < 0 || linkage.getLinkageID() == fLinkageID;
+		}
+
+		@Override
+		public boolean acceptBinding(IBinding binding) throws CoreException {
+			if ((getKindMask(IndexModelUtil.getElementType(binding)) & fMask) != 0) {
+				return IndexFilter.ALL_DECLARED.acceptBinding(binding);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * The elements of one project, sorted by their names ignoring case.
+	 */
+	private static final class ProjectTable {
+		static final ProjectTable EMPTY= new TableBuilder().create(0);
+
+		final String[] fNames;
+		/** The names enclosing the elements */
+		final String[][] fScopes;
+		/** The kinds of the elements as indices into {@link ElementNameTable#ELEMENT_TYPES} */
+		final byte[] fKinds;
+		/** The parameters of functions and macros, <code>null</code> for other elements */
+		final String[][] fParameters;
+		/** The return types of functions, <code>null</code> for other elements */
+		final String[] fReturnTypes;
+		/** Number of files indexed since the elements were read */
+		final int fChangedFiles;
+
+		ProjectTable(int size, int changedFiles) {
+			fNames= new String[size];
+			fScopes= new String[size][];
+			fKinds= new byte[size];
+			fParameters= new String[size][];
+			fReturnTypes= new String[size];
+			fChangedFiles= changedFiles;
+		}
+
+		void findElements(String prefix, CamelCaseMatcher camelCaseMatcher, int mask, IIndex index,
+				Collection<IndexTypeInfo> result) {
+			int start;
+			int length;
+			if (camelCaseMatcher == null) {
+				start= lowerBound(prefix);
+				length= prefix.length();
+			} else {
+				// camel case matches start with the first character of the prefix
+				start= lowerBound(prefix.substring(0, 1));
+				length= 1;
+			}
+			String lastName= null;
+			boolean matches= false;
+			for (int i= start; i < fNames.length && fNames[i].regionMatches(true, 0, prefix, 0, length); i++) {
+				final String name= fNames[i];
+				if (name != lastName) {
+					// elements with the same name share the string
+					lastName= name;
+					matches= length == prefix.length() || name.regionMatches(true, 0, prefix, 0, prefix.length())
+							|| camelCaseMatcher.match(name);
+				}
+				if (matches && ((1 << fKinds[i]) & mask) != 0) {
+					result.add(createElement(i, index));
+				}
+			}
+		}
+
+		@SuppressWarnings("deprecation")
+		private IndexTypeInfo createElement(int i, IIndex index) {
+			final String[] scope= fScopes[i];
+			String[] fqn= new String[scope.length + 1];
+			System.arraycopy(scope, 0, fqn, 0, scope.length);
+			fqn[scope.length]= fNames[i];
+			// the binding is looked up by the qualified name when the element is resolved
+			return new IndexTypeInfo(fqn, ELEMENT_TYPES[fKinds[i]], fParameters[i], fReturnTypes[i], index);
+		}
+
+		private int lowerBound(String key) {
+			int low= 0;
+			int high= fNames.length;
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+				if (String.CASE_INSENSITIVE_ORDER.compare(fNames[mid], key) < 0) {
+					low= mid + 1;
+				} else {
+					high= mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * Collects the elements for a {@link ProjectTable}, sharing equal strings and
+	 * enclosing names and dropping duplicate elements.
+	 */
+	private static final class TableBuilder {
+		private final ArrayList<String> fNames= new ArrayList<String>();
+		private final ArrayList<String[]> fScopes= new ArrayList<String[]>();
+		private final ArrayList<Byte> fKinds= new ArrayList<Byte>();
+		private final ArrayList<String[]> fParameters= new ArrayList<String[]>();
+		private final ArrayList<String> fReturnTypes= new ArrayList<String>();
+		private final HashMap<String, String> fStrings= new HashMap<String, String>();
+		private final HashMap<String, String[]> fSharedScopes= new HashMap<String, String[]>();
+		private final HashSet<String> fKeys= new HashSet<String>();
+
+		TableBuilder() {
+		}
+
+		TableBuilder(ProjectTable table) {
+			for (int i= 0; i < table.fNames.length; i++) {
+				add(table.fNames[i], table.fScopes[i], table.fKinds[i], table.fParameters[i], table.fReturnTypes[i]);
+			}
+		}
+
+		void add(IndexTypeInfo element) {
+			final int kind= getKindIndex(element.getCElementType());
+			final String[] fqn= element.getQualifiedTypeName().segments();
+			if (kind < 0 || fqn.length == 0)
+				return;
+			String[] scope= NO_STRINGS;
+			if (fqn.length > 1) {
+				scope= new String[fqn.length - 1];
+				System.arraycopy(fqn, 0, scope, 0, scope.length);
+			}
+			add(fqn[fqn.length - 1], scope, (byte) kind, element.getParameters(), element.getReturnType());
+		}
+
+		private void add(String name, String[] scope, byte kind, String[] parameters, String returnType) {
+			StringBuilder key= new StringBuilder();
+			for (String segment : scope) {
+				key.append(segment).append("::"); //$NON-NLS-1$
+			}
+			final String scopeKey= key.toString();
+			key.append(name).append('#').append(kind);
+			if (parameters != null) {
+				key.append('(');
+				for (String parameter : parameters) {
+					key.append(parameter).append(',');
+				}
+			}
+			if (!fKeys.add(key.toString()))
+				return;
+
+			String[] sharedScope= fSharedScopes.get(scopeKey);
+			if (sharedScope == null) {
+				sharedScope= share(scope);
+				fSharedScopes.put(scopeKey, sharedScope);
+			}
+			fNames.add(share(name));
+			fScopes.add(sharedScope);
+			fKinds.add(kind);
+			fParameters.add(parameters == null ? null : share(parameters));
+			fReturnTypes.add(returnType == null || returnType.length() == 0 ? null : share(returnType));
+		}
+
+		private String share(String string) {
+			String shared= fStrings.get(string);
+			if (shared == null) {
+				fStrings.put(string, string);
+				shared= string;
+			}
+			return shared;
+		}
+
+		private String[] share(String[] strings) {
+			if (strings.length == 0)
+				return NO_STRINGS;
+			String[] shared= new String[strings.length];
+			for (int i= 0; i < strings.length; i++) {
+				shared[i]= share(strings[i]);
+			}
+			return shared;
+		}
+
+		ProjectTable create(int changedFiles) {
+			Integer[] order= new Integer[fNames.size()];
+			for (int i= 0; i < order.length; i++) {
+				order[i]= i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					return String.CASE_INSENSITIVE_ORDER.compare(fNames.get(i1), fNames.get(i2));
+				}
+			});
+			ProjectTable table= new ProjectTable(order.length, changedFiles);
+			for (int i= 0; i < order.length; i++) {
+				final int j= order[i];
+				table.fNames[i]= fNames.get(j);
+				table.fScopes[i]= fScopes.get(j);
+				table.fKinds[i]= fKinds.get(j);
+				table.fParameters[i]= fParameters.get(j);
+				table.fReturnTypes[i]= fReturnTypes.get(j);
+			}
+			return table;
+		}
+	}
+
+	static ElementNameTable getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the kinds of elements held in the table, see {@link ICElement#getElementType()}.
+	 */
+	static int[] getElementTypes() {
+		return ELEMENT_TYPES.clone();
+	}
+
+	private static int getKindIndex(int elementType) {
+		for (int i= 0; i < ELEMENT_TYPES.length; i++) {
+			if (ELEMENT_TYPES[i] == elementType)
+				return i;
+		}
+		return -1;
+	}
+
+	private static int getKindMask(int elementType) {
+		final int kind= getKindIndex(elementType);
+		return kind < 0 ? 0 : 1 << kind;
+	}
+
+	private final HashMap<String, ProjectTable> fTables= new HashMap<String, ProjectTable>();
+	/** Names of the projects whose index has been rebuilt since their elements were read */
+	private final HashSet<String> fDirtyProjects= new HashSet<String>();
+	/** Files indexed since the elements were read, by the names of their projects */
+	private final HashMap<String, Set<IIndexFileLocation>> fChangedFiles= new HashMap<String, Set<IIndexFileLocation>>();
+	/** Names of the projects waiting for a job to read their elements */
+	private final HashSet<String> fPendingProjects= new HashSet<String>();
+	/** Names of the projects of the last query */
+	private HashSet<String> fProjects= new HashSet<String>();
+	private boolean fActive= false;
+
+	private ElementNameTable() {
+	}
+
+	/**
+	 * Returns the elements of the given kinds whose name starts with the given prefix
+	 * ignoring case, or matches the prefix as a camel case pattern. Returns
+	 * <code>null</code> if the elements of some projects have not been read, yet.
+	 * The index is not accessed.
+	 *
+	 * @param elementTypes the kinds of elements to find, see {@link #getElementTypes()}.
+	 */
+	IndexTypeInfo[] findElements(char[] prefix, int[] elementTypes, IProgressMonitor monitor) {
+		ICProject[] projects;
+		try {
+			projects= CoreModel.getDefault().getCModel().getCProjects();
+		} catch (CoreException e) {
+			return null;
+		}
+		final ProjectTable[] tables= getTables(projects);
+		if (tables == null)
+			return null;
+
+		int mask= 0;
+		for (int elementType : elementTypes) {
+			mask |= getKindMask(elementType);
+		}
+		final String pattern= new String(prefix);
+		final CamelCaseMatcher camelCaseMatcher= pattern.length() > 0 && CamelCaseMatcher.isCamelCasePattern(pattern) ?
+				new CamelCaseMatcher(pattern) : null;
+		// the elements lock the index when they are resolved
+		final IIndex index;
+		try {
+			index= CCorePlugin.getIndexManager().getIndex(projects);
+		} catch (CoreException e) {
+			return null;
+		}
+		HashSet<IndexTypeInfo> result= new HashSet<IndexTypeInfo>();
+		for (ProjectTable table : tables) {
+			if (monitor.isCanceled())
+				return null;
+			table.findElements(pattern, camelCaseMatcher, mask, index, result);
+		}
+		return result.toArray(new IndexTypeInfo[result.size()]);
+	}
+
+	private synchronized ProjectTable[] getTables(ICProject[] projects) {
+		if (!fActive) {
+			activate();
+		}
+		boolean complete= true;
+		HashSet<String> names= new HashSet<String>();
+		ProjectTable[] tables= new ProjectTable[projects.length];
+		for (int i= 0; i < projects.length; i++) {
+			final String name= projects[i].getElementName();
+			names.add(name);
+			tables[i]= fTables.get(name);
+			if (tables[i] == null) {
+				complete= false;
+				scheduleRead(projects[i]);
+			}
+		}
+		if (!names.equals(fProjects)) {
+			// projects no longer present are read again when they reappear
+			fTables.keySet().retainAll(names);
+			fChangedFiles.keySet().retainAll(names);
+			fProjects= names;
+		}
+		if ((!fDirtyProjects.isEmpty() || !fChangedFiles.isEmpty()) && CCorePlugin.getIndexManager().isIndexerIdle()) {
+			scheduleChangedProjects();
+		}
+		return complete ? tables : null;
+	}
+
+	private void activate() {
+		fActive= true;
+		final IIndexManager indexManager= CCorePlugin.getIndexManager();
+		indexManager.addIndexChangeListener(this);
+		indexManager.addIndexerStateListener(this);
+	}
+
+	public synchronized void indexChanged(IIndexChangeEvent e) {
+		ICProject project= e.getAffectedProject();
+		if (project != null && fActive) {
+			final String name= project.getElementName();
+			if (e.isReloaded() || e.isCleared()) {
+				fDirtyProjects.add(name);
+				fChangedFiles.remove(name);
+			} else if (!fDirtyProjects.contains(name) && !e.getFilesWritten().isEmpty()) {
+				Set<IIndexFileLocation> files= fChangedFiles.get(name);
+				if (files == null) {
+					files= new HashSet<IIndexFileLocation>();
+					fChangedFiles.put(name, files);
+				}
+				files.addAll(e.getFilesWritten());
+			}
+		}
+	}
+
+	public synchronized void indexChanged(IIndexerStateEvent event) {
+		if (event.indexerIsIdle()) {
+			scheduleChangedProjects();
+		}
+	}
+
+	private void scheduleChangedProjects() {
+		if (fDirtyProjects.isEmpty() && fChangedFiles.isEmpty())
+			return;
+		try {
+			for (ICProject project : CoreModel.getDefault().getCModel().getCProjects()) {
+				final String name= project.getElementName();
+				if (fDirtyProjects.contains(name) || fChangedFiles.containsKey(name)) {
+					scheduleRead(project);
+				}
+			}
+		} catch (CoreException e) {
+			// the elements are read on the next query
+		}
+	}
+
+	private void scheduleRead(final ICProject project) {
+		if (!fPendingProjects.add(project.getElementName())) {
+			// a job that has not started, yet, will read the elements
+			return;
+		}
+		Job job= new Job(OpenTypeMessages.ElementNameTable_jobName) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				final String name= project.getElementName();
+				ProjectTable table;
+				Set<IIndexFileLocation> changedFiles;
+				synchronized (ElementNameTable.this) {
+					fPendingProjects.remove(name);
+					table= fTables.get(name);
+					changedFiles= fChangedFiles.remove(name);
+					if (fDirtyProjects.remove(name) || table == null
+							|| (changedFiles != null && table.fChangedFiles + changedFiles.size() > MAX_CHANGED_FILES)) {
+						table= null;
+					}
+				}
+				try {
+					if (table == null) {
+						table= readElements(project, monitor);
+					} else if (changedFiles != null) {
+						table= readElements(project, table, changedFiles, monitor);
+					}
+					if (table != null) {
+						synchronized (ElementNameTable.this) {
+							fTables.put(name, table);
+						}
+					} else if (changedFiles != null) {
+						// canceled, the files are read later on
+						synchronized (ElementNameTable.this) {
+							fDirtyProjects.add(name);
+						}
+					}
+				} catch (CoreException e) {
+					return e.getStatus();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return Status.CANCEL_STATUS;
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.LONG);
+		job.setRule(RULE);
+		job.schedule();
+	}
+
+	/**
+	 * Reads all elements of the project, one linkage after the other.
+	 */
+	private static ProjectTable readElements(ICProject project, IProgressMonitor monitor) throws CoreException, InterruptedException {
+		if (!project.getProject().isOpen())
+			return ProjectTable.EMPTY;
+		final IIndex index= CCorePlugin.getIndexManager().getIndex(project);
+		final char[] emptyPrefix= new char[0];
+		TableBuilder builder= new TableBuilder();
+		index.acquireReadLock();
+		try {
+			for (int linkageID : LINKAGE_IDS) {
+				final KindFilter filter= new KindFilter(-1, linkageID);
+				IIndexBinding[] bindings= index.findBindingsForPrefix(emptyPrefix, false, filter, monitor);
+				for (int i= 0; i < bindings.length; i++) {
+					if (i % 0x1000 == 0 && monitor.isCanceled()) {
+						return null;
+					}
+					builder.add(IndexTypeInfo.create(index, bindings[i]));
+					bindings[i]= null;
+				}
+				bindings= null;
+				IIndexMacro[] macros= index.findMacrosForPrefix(emptyPrefix, filter, monitor);
+				for (int i= 0; i < macros.length; i++) {
+					if (i % 0x1000 == 0 && monitor.isCanceled()) {
+						return null;
+					}
+					builder.add(IndexTypeInfo.create(index, macros[i]));
+					macros[i]= null;
+				}
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+		return builder.create(0);
+	}
+
+	/**
+	 * Adds the elements declared in the given files to the table.
+	 */
+	private static ProjectTable readElements(ICProject project, ProjectTable table, Collection<IIndexFileLocation> files,
+			IProgressMonitor monitor) throws CoreException, InterruptedException {
+		if (!project.getProject().isOpen())
+			return ProjectTable.EMPTY;
+		final IIndex index= CCorePlugin.getIndexManager().getIndex(project);
+		TableBuilder builder= new TableBuilder(table);
+		index.acquireReadLock();
+		try {
+			for (IIndexFileLocation location : files) {
+				if (monitor.isCanceled()) {
+					return null;
+				}
+				for (IIndexFile file : index.getFiles(location)) {
+					for (IIndexName name : file.findNames(0, Integer.MAX_VALUE)) {
+						if (name.isDeclaration()) {
+							IIndexBinding binding= index.findBinding(name);
+							if (binding != null && FILTER.acceptBinding(binding)) {
+								builder.add(IndexTypeInfo.create(index, binding));
+							}
+						}
+					}
+					for (IIndexMacro macro : file.getMacros()) {
+						builder.add(IndexTypeInfo.create(index, macro));
+					}
+				}
+			}
+		} finally {
+			index.releaseReadLock();
+		}
+		return builder.create(table.fChangedFiles + files.size());
+	}
+}
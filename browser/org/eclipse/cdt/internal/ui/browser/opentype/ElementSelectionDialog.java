@@ -12,6 +12,7 @@
 
 package org.eclipse.cdt.internal.ui.browser.opentype;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 
@@ -290,6 +291,26 @@ public class ElementSelectionDialog extends TypeSelectionDialog {
 			return null;
 		}
 		HashSet<IndexTypeInfo> types = new HashSet<IndexTypeInfo>();
+		if (prefix != null) {
+			// filter the elements held in memory, the index is queried until they are available
+			ArrayList<Integer> visibleTypes= new ArrayList<Integer>();
+			for (int elementType : ElementNameTable.getElementTypes()) {
+				if (isVisibleType(elementType)) {
+					visibleTypes.add(elementType);
+				}
+			}
+			int[] elementTypes= new int[visibleTypes.size()];
+			for (int i= 0; i < elementTypes.length; i++) {
+				elementTypes[i]= visibleTypes.get(i);
+			}
+			IndexTypeInfo[] elements= ElementNameTable.getInstance().findElements(prefix, elementTypes, monitor);
+			if (elements != null) {
+				return elements;
+			}
+			if (monitor.isCanceled()) {
+				return null;
+			}
+		}
 		if(prefix != null) {
 			final IndexFilter filter= new IndexFilter() {
 				@Override
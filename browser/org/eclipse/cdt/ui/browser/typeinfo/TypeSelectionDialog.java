@@ -46,6 +46,7 @@ import org.eclipse.cdt.core.browser.QualifiedTypeName;
 import org.eclipse.cdt.core.model.ICElement;
 import org.eclipse.cdt.ui.CUIPlugin;
 
+import org.eclipse.cdt.internal.ui.util.CamelCaseMatcher;
 import org.eclipse.cdt.internal.ui.util.StringMatcher;
 
 
@@ -62,6 +63,7 @@ public class TypeSelectionDialog extends TwoPaneElementSelector {
 		private static final char ANY_STRING = '*';
 		
 		private StringMatcher fNameMatcher = null;
+		private CamelCaseMatcher fCamelCaseMatcher = null;
 		private StringMatcher[] fSegmentMatchers = null;
 		private boolean fMatchGlobalNamespace = false;
 		private Collection<Integer> fVisibleTypes = new HashSet<Integer>();
@@ -76,6 +78,11 @@ public class TypeSelectionDialog extends TwoPaneElementSelector {
 			String[] segments = qualifiedName.segments();
 			int length = segments.length;
 
+			fCamelCaseMatcher = null;
+			if (!ignoreWildCards && CamelCaseMatcher.isCamelCasePattern(segments[length-1])) {
+				fCamelCaseMatcher = new CamelCaseMatcher(segments[length-1]);
+			}
+
 			// append wildcard to innermost segment
 			segments[length-1] = adjustPattern(segments[length-1]);
 			
@@ -137,8 +144,10 @@ public class TypeSelectionDialog extends TwoPaneElementSelector {
 			if (!fShowLowLevelTypes && qualifiedName.isLowLevel())
 				return false;
 			
-			if (fSegmentMatchers.length == 1 && !fMatchGlobalNamespace)
-				return fNameMatcher.match(qualifiedName.getName());
+			if (fSegmentMatchers.length == 1 && !fMatchGlobalNamespace) {
+				final String name = qualifiedName.getName();
+				return fNameMatcher.match(name) || (fCamelCaseMatcher != null && fCamelCaseMatcher.match(name));
+			}
 			
 			return matchQualifiedName(info);
 		}
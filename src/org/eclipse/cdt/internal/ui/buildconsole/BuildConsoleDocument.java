@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2006 QNX Software Systems and others.
+ * Copyright (c) 2002, 2010 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,14 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.buildconsole;
 
-import org.eclipse.jface.text.DefaultLineTracker;
 import org.eclipse.jface.text.Document;
 
 public class BuildConsoleDocument extends Document {
 
 	public BuildConsoleDocument() {
-		setTextStore(new ConsoleOutputTextStore(2500));	
-		setLineTracker(new DefaultLineTracker());
+		ConsoleOutputTextStore store = new ConsoleOutputTextStore(2500);
+		setTextStore(store);
+		setLineTracker(new ConsoleLineTracker(store));
 		completeInitialization();
 	}
 }
@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.cdt.core.ProblemMarkerInfo;
+import org.eclipse.cdt.core.resources.ResourcesUtil;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * Writes the build log in the background so that a slow file system does not
+ * hold up the user-interface thread.
+ * <p>
+ * Requests to open, write and close the log are queued and processed in order
+ * by a system job. Raw build output is copied into pooled buffers and written as
+ * it is, text is encoded by the job. Output is buffered and flushed when the buffer is full, when
+ * it has been buffered for {@link #FLUSH_INTERVAL} milliseconds and when the log
+ * is closed. The workspace is refreshed once, after the log has been closed.
+ * The amount of queued text is bounded, writers are held up only when the file
+ * system can't keep up with the output for longer than the queue absorbs.
+ * <p>
+ * Problems written to the log are recorded with their position in the log in a
+ * separate file, see {@link BuildLogIndex#getProblemsFile(URI)}.
+ */
+class BuildConsoleLogWriter {
+
+	/** Maximum number of characters queued for writing */
+	private static final int QUEUE_CAPACITY = 4 * 1024 * 1024;
+	/** Size of the output buffer in bytes */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** Time in milliseconds after which buffered output is flushed */
+	private static final long FLUSH_INTERVAL = 500;
+	/** Size of the pooled buffers holding queued bytes */
+	private static final int POOLED_BUFFER_SIZE = 8 * 1024;
+	/** Maximum number of pooled buffers kept for reuse */
+	private static final int MAX_POOLED_BUFFERS = 64;
+
+	private static final int OPEN = 0;
+	private static final int OPEN_APPEND = 1;
+	private static final int WRITE = 2;
+	private static final int WRITE_BYTES = 3;
+	private static final int CLOSE = 4;
+
+	private static class Request {
+		final int fKind;
+		final URI fURI;
+		final String fText;
+		final ProblemMarkerInfo fMarker;
+		final byte[] fBytes;
+		final int fLength;
+
+		Request(int kind, URI uri, String text, ProblemMarkerInfo marker) {
+			fKind = kind;
+			fURI = uri;
+			fText = text;
+			fMarker = marker;
+			fBytes = null;
+			fLength = 0;
+		}
+
+		Request(byte[] bytes, int length) {
+			fKind = WRITE_BYTES;
+			fURI = null;
+			fText = null;
+			fMarker = null;
+			fBytes = bytes;
+			fLength = length;
+		}
+	}
+
+	private final BlockingQueue<Request> fRequests = new LinkedBlockingQueue<Request>();
+	private final Semaphore fCapacity = new Semaphore(QUEUE_CAPACITY);
+	private final AtomicBoolean fScheduled = new AtomicBoolean(false);
+	private final Queue<byte[]> fBufferPool = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicInteger fPooledBuffers = new AtomicInteger();
+	private final Charset fCharset;
+	private final Job fJob;
+
+	// accessed by the job only
+	private URI fURI;
+	private OutputStream fStream;
+	private DataOutputStream fProblems;
+	/** Number of bytes in the log */
+	private long fLogPosition;
+	private final byte[] fBuffer = new byte[BUFFER_SIZE];
+	private int fBuffered;
+	private long fBufferedSince;
+
+	/**
+	 * @param charset - encoding used for the log file.
+	 */
+	BuildConsoleLogWriter(Charset charset) {
+		fCharset = charset;
+		fJob = new Job(ConsoleMessages.BuildConsoleLogWriter_JobName) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				processRequests();
+				return Status.OK_STATUS;
+			}
+		};
+		fJob.setSystem(true);
+	}
+
+	/**
+	 * Returns the encoding used for the log file.
+	 */
+	Charset getCharset() {
+		return fCharset;
+	}
+
+	/**
+	 * Opens the log at the given location, closing a log that is still open.
+	 *
+	 * @param uri - location of the log.
+	 * @param append - whether to append to an existing log rather than overwriting it.
+	 */
+	void open(URI uri, boolean append) {
+		enqueue(new Request(append ? OPEN_APPEND : OPEN, uri, null, null));
+	}
+
+	/**
+	 * Appends text to the log. Blocks only if the queue is full.
+	 *
+	 * @param marker - problem reported by the text or {@code null}.
+	 */
+	void write(String text, ProblemMarkerInfo marker) {
+		int permits = Math.min(text.length(), QUEUE_CAPACITY);
+		fCapacity.acquireUninterruptibly(permits);
+		enqueue(new Request(WRITE, null, text, marker));
+	}
+
+	/**
+	 * Appends bytes encoded with {@link #getCharset()} to the log. The bytes are
+	 * copied, blocks only if the queue is full.
+	 */
+	void write(byte[] b, int off, int len) {
+		int permits = Math.min(len, QUEUE_CAPACITY);
+		fCapacity.acquireUninterruptibly(permits);
+		byte[] bytes = null;
+		if (len <= POOLED_BUFFER_SIZE) {
+			bytes = fBufferPool.poll();
+			if (bytes != null) {
+				fPooledBuffers.decrementAndGet();
+			} else {
+				bytes = new byte[POOLED_BUFFER_SIZE];
+			}
+		} else {
+			bytes = new byte[len];
+		}
+		System.arraycopy(b, off, bytes, 0, len);
+		enqueue(new Request(bytes, len));
+	}
+
+	/**
+	 * Closes the log after all queued text has been written.
+	 */
+	void close() {
+		enqueue(new Request(CLOSE, null, null, null));
+	}
+
+	private void enqueue(Request request) {
+		fRequests.add(request);
+		if (fScheduled.compareAndSet(false, true)) {
+			fJob.schedule();
+		}
+	}
+
+	private void processRequests() {
+		// requests queued from now on need another run
+		fScheduled.set(false);
+		try {
+			while (true) {
+				Request request = fRequests.poll(FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+				if (request == null) {
+					flush();
+					return;
+				}
+				switch (request.fKind) {
+				case OPEN:
+				case OPEN_APPEND:
+					closeLog();
+					openLog(request.fURI, request.fKind == OPEN_APPEND);
+					break;
+				case WRITE:
+					fCapacity.release(Math.min(request.fText.length(), QUEUE_CAPACITY));
+					writeLog(request.fText, request.fMarker);
+					break;
+				case WRITE_BYTES:
+					fCapacity.release(Math.min(request.fLength, QUEUE_CAPACITY));
+					writeLog(ByteBuffer.wrap(request.fBytes, 0, request.fLength));
+					recycle(request.fBytes);
+					break;
+				case CLOSE:
+					closeLog();
+					break;
+				}
+				if (fBuffered > 0 && System.currentTimeMillis() - fBufferedSince >= FLUSH_INTERVAL) {
+					flush();
+				}
+			}
+		} catch (InterruptedException e) {
+			flush();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void openLog(URI uri, boolean append) {
+		try {
+			IFileStore logStore = EFS.getStore(uri);
+			// Ensure the directory exists before opening the file
+			IFileStore dir = logStore.getParent();
+			if (dir != null)
+				dir.mkdir(EFS.NONE, null);
+			int opts = append ? EFS.APPEND : EFS.NONE;
+			fStream = logStore.openOutputStream(opts, null);
+			fURI = uri;
+			fLogPosition = append ? Math.max(logStore.fetchInfo().getLength(), 0) : 0;
+		} catch (CoreException e) {
+			CUIPlugin.log(e);
+			return;
+		}
+		try {
+			FileOutputStream problems = new FileOutputStream(BuildLogIndex.getProblemsFile(uri), append);
+			fProblems = new DataOutputStream(new BufferedOutputStream(problems, 8 * 1024));
+		} catch (IOException e) {
+			// the full log is shown without problems
+			CUIPlugin.log(e);
+		}
+	}
+
+	private void writeLog(String text, ProblemMarkerInfo marker) {
+		if (fStream != null) {
+			long position = fLogPosition;
+			ByteBuffer bytes = fCharset.encode(text);
+			int length = bytes.remaining();
+			writeLog(bytes);
+			if (marker != null && fProblems != null) {
+				try {
+					BuildLogIndex.writeProblem(fProblems, position, length, marker);
+				} catch (IOException e) {
+					CUIPlugin.log(e);
+					closeProblems();
+				}
+			}
+		}
+	}
+
+	private void writeLog(ByteBuffer bytes) {
+		if (fStream == null) {
+			return;
+		}
+		fLogPosition += bytes.remaining();
+		if (fBuffered + bytes.remaining() > fBuffer.length) {
+			flush();
+		}
+		if (fStream == null) {
+			return;
+		}
+		if (bytes.remaining() >= fBuffer.length) {
+			try {
+				fStream.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+			} catch (IOException e) {
+				failed(e);
+			}
+		} else {
+			int length = bytes.remaining();
+			if (fBuffered == 0) {
+				fBufferedSince = System.currentTimeMillis();
+			}
+			bytes.get(fBuffer, fBuffered, length);
+			fBuffered += length;
+		}
+	}
+
+	private void recycle(byte[] bytes) {
+		if (bytes.length == POOLED_BUFFER_SIZE && fPooledBuffers.get() < MAX_POOLED_BUFFERS) {
+			fPooledBuffers.incrementAndGet();
+			fBufferPool.add(bytes);
+		}
+	}
+
+	private void flush() {
+		if (fStream == null) {
+			fBuffered = 0;
+			return;
+		}
+		try {
+			if (fBuffered > 0) {
+				fStream.write(fBuffer, 0, fBuffered);
+			}
+			fStream.flush();
+			if (fProblems != null) {
+				fProblems.flush();
+			}
+		} catch (IOException e) {
+			failed(e);
+		} finally {
+			fBuffered = 0;
+		}
+	}
+
+	private void closeLog() {
+		if (fStream == null) {
+			return;
+		}
+		flush();
+		if (fStream != null) {
+			try {
+				fStream.close();
+			} catch (IOException e) {
+				CUIPlugin.log(e);
+			}
+			fStream = null;
+		}
+		closeProblems();
+		ResourcesUtil.refreshWorkspaceFiles(fURI);
+		fURI = null;
+	}
+
+	private void closeProblems() {
+		if (fProblems != null) {
+			try {
+				fProblems.close();
+			} catch (IOException e) {
+				CUIPlugin.log(e);
+			}
+			fProblems = null;
+		}
+	}
+
+	/**
+	 * Stops logging after a write error, output is dropped until the log is reopened.
+	 */
+	private void failed(IOException e) {
+		CUIPlugin.log(e);
+		try {
+			fStream.close();
+		} catch (IOException e1) {
+		}
+		fStream = null;
+		fBuffered = 0;
+		closeProblems();
+		ResourcesUtil.refreshWorkspaceFiles(fURI);
+		fURI = null;
+	}
+}
@@ -14,6 +14,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.buildconsole;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,12 +24,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
+import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.GroupMarker;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.action.IMenuListener;
@@ -34,6 +43,7 @@ import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IFindReplaceTarget;
@@ -132,6 +142,12 @@ public class BuildConsolePage extends Page
 	private NextErrorAction fNextErrorAction;
 	private PreviousErrorAction fPreviousErrorAction;
 	private ShowErrorAction fShowErrorAction;
+	private GoToErrorAction fGoToErrorAction;
+	private FullLogAction fFullLogAction;
+
+	// full build log shown instead of the console, if any
+	private BuildLogPartitioner fLogPartitioner;
+	private Job fLogJob;
 
 	/**
 	 * @param view
@@ -160,6 +176,7 @@ public class BuildConsolePage extends Page
 	}
 
 	protected IDocument setDocument() {
+		closeFullLog();
 		IProject project = getProject();
 		if (project != null) {
 			IBuildConsoleManager consoleManager = getConsole().getConsoleManager();
@@ -206,7 +223,7 @@ public class BuildConsolePage extends Page
 	}
 
 	boolean isAvailable() {
-		return getControl() != null;
+		return getControl() != null && !getControl().isDisposed();
 	}
 
 	/*
@@ -300,7 +317,9 @@ public class BuildConsolePage extends Page
 		fNextErrorAction = new NextErrorAction(this);
 		fPreviousErrorAction = new PreviousErrorAction(this);
 		fShowErrorAction = new ShowErrorAction(this);
+		fGoToErrorAction = new GoToErrorAction(this);
 		fSaveLogAction = new CopyBuildLogAction(this);
+		fFullLogAction = new FullLogAction(this);
 
 		getViewer().setAutoScroll(!fIsLocked);
 		// In order for the clipboard actions to accessible via their shortcuts
@@ -354,7 +373,9 @@ public class BuildConsolePage extends Page
 		mgr.insertBefore(IConsoleConstants.OUTPUT_GROUP, new GroupMarker(BuildConsole.ERROR_GROUP));
 		mgr.appendToGroup(BuildConsole.ERROR_GROUP, fNextErrorAction);
 		mgr.appendToGroup(BuildConsole.ERROR_GROUP, fPreviousErrorAction);
+		mgr.appendToGroup(BuildConsole.ERROR_GROUP, fGoToErrorAction);
 		mgr.appendToGroup(BuildConsole.ERROR_GROUP, fShowErrorAction);
+		mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fFullLogAction);
 		mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fSaveLogAction);
 		mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fScrollLockAction);
 		mgr.appendToGroup(IConsoleConstants.OUTPUT_GROUP, fClearOutputAction);
@@ -380,6 +401,7 @@ public class BuildConsolePage extends Page
 	 */
 	@Override
 	public void dispose() {
+		closeFullLog();
 		getSite().getPage().removeSelectionListener(this);
 		getConsole().getConsoleManager().removeConsoleListener(this);
 		fViewer.removeTextListener(this);
@@ -565,6 +587,22 @@ public class BuildConsolePage extends Page
 	 * @param position POSITION_NEXT (-1), POSITION_PREV (-2), or offset
 	 */
 	void moveToError(int position) {
+		if (fLogPartitioner != null) {
+			BuildLogPartitioner par = fLogPartitioner;
+			if ( position == POSITION_NEXT ) {
+				par.moveToNextError();
+			} else if ( position == POSITION_PREV ) {
+				par.moveToPreviousError();
+			} else if ( position == POSITION_FIST ) {
+				par.moveToFirstError();
+			} else if ( position >= 0 ) {
+				if ( ! par.moveToErrorByOffset(position) ) {
+					return;
+				}
+			}
+			showError(par, position > 0 || fShowErrorAction.isChecked() );
+			return;
+		}
 		IConsole console = getCurrentConsole();
 		if (console == null) return;
 		if (console instanceof BuildConsolePartitioner) {
@@ -586,10 +624,48 @@ public class BuildConsolePage extends Page
 		}
 	}
 
+	/**
+	 * Highlight the given problem, problems of all severities are counted
+	 * @param problem index of the problem among the problems in the console
+	 */
+	void moveToProblem(int problem) {
+		if (fLogPartitioner != null) {
+			if (fLogPartitioner.moveToError(problem)) {
+				showError(fLogPartitioner, fShowErrorAction.isChecked());
+			}
+			return;
+		}
+		IConsole console = getCurrentConsole();
+		if (console instanceof BuildConsolePartitioner) {
+			BuildConsolePartitioner par = (BuildConsolePartitioner)console;
+			if (par.fDocumentMarkerManager.moveToError(problem)) {
+				showError(par, fShowErrorAction.isChecked());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of problems of the given marker severity in the console
+	 */
+	int getProblemCount(int severity) {
+		if (fLogPartitioner != null) {
+			return fLogPartitioner.getProblemCount(severity);
+		}
+		IConsole console = getCurrentConsole();
+		if (console instanceof BuildConsolePartitioner) {
+			return ((BuildConsolePartitioner)console).fDocumentMarkerManager.getProblemCount(severity);
+		}
+		return 0;
+	}
+
 	/**
 	 * Highlight current error and show it in editor
 	 */
 	public void showError(BuildConsolePartitioner par, boolean openInEditor) {
+		if (fLogPartitioner != null) {
+			showError(fLogPartitioner, openInEditor);
+			return;
+		}
 		// Highlight current error
 		BuildConsolePartition p = par.fDocumentMarkerManager.getCurrentPartition();
 		if ( p == null ) return;
@@ -602,6 +678,133 @@ public class BuildConsolePage extends Page
 		}
 	}
 
+	/**
+	 * Highlight current error of the full build log and show it in editor
+	 */
+	void showError(BuildLogPartitioner par, boolean openInEditor) {
+		BuildConsolePartition p = par.getCurrentPartition();
+		if ( p == null ) return;
+		getViewer().selectPartition(par.getDocument(), p);
+		if ( openInEditor ) {
+			openErrorInEditor(par.getCurrentErrorMarker());
+		}
+	}
+
+	/**
+	 * Shows the full build log of the current project instead of the console
+	 * or switches back to the console. The log is indexed in the background
+	 * the first time it is shown, afterwards it is paged in from the log file.
+	 */
+	void setFullLog(boolean show) {
+		if (!show) {
+			setDocument();
+			return;
+		}
+		IConsole console = getCurrentConsole();
+		if (!(console instanceof BuildConsolePartitioner)) {
+			fFullLogAction.setChecked(false);
+			return;
+		}
+		final BuildConsolePartitioner par = (BuildConsolePartitioner)console;
+		final URI uri = par.getLogURI();
+		if (uri == null) {
+			MessageDialog.openWarning(getSite().getShell(), ConsoleMessages.CopyLog_UnavailableLog,
+					ConsoleMessages.CopyLog_BuildNotLogged);
+			fFullLogAction.setChecked(false);
+			return;
+		}
+		final Display display = getControl().getDisplay();
+		fLogJob = new Job(ConsoleMessages.FullLogAction_JobName) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				final Job job = this;
+				BuildLogIndex index = null;
+				IStatus status = Status.OK_STATUS;
+				try {
+					File file = EFS.getStore(uri).toLocalFile(EFS.NONE, monitor);
+					if (file == null) {
+						throw new IOException(ConsoleMessages.CopyLog_UnableToAccess + uri);
+					}
+					index = BuildLogIndex.open(uri, file, par.getCharset(), monitor);
+				} catch (OperationCanceledException e) {
+					status = Status.CANCEL_STATUS;
+				} catch (IOException e) {
+					status = new Status(IStatus.ERROR, CUIPlugin.PLUGIN_ID, ConsoleMessages.FullLogAction_ErrorReadingLog, e);
+				} catch (CoreException e) {
+					status = new Status(IStatus.ERROR, CUIPlugin.PLUGIN_ID, ConsoleMessages.FullLogAction_ErrorReadingLog, e);
+				}
+				final BuildLogIndex result = index;
+				Runnable show = new Runnable() {
+					public void run() {
+						if (fLogJob == job && isAvailable() && result != null) {
+							fLogJob = null;
+							showFullLog(par, result);
+						} else {
+							if (fLogJob == job && isAvailable()) {
+								fLogJob = null;
+								fFullLogAction.setChecked(false);
+							}
+							if (result != null) {
+								result.close();
+							}
+						}
+					}
+				};
+				if (display.isDisposed()) {
+					if (result != null) {
+						result.close();
+					}
+				} else {
+					display.asyncExec(show);
+				}
+				return status;
+			}
+		};
+		fLogJob.schedule();
+	}
+
+	private void showFullLog(BuildConsolePartitioner par, BuildLogIndex index) {
+		BuildConsoleStreamDecorator stream;
+		try {
+			stream = par.fManager.getStreamDecorator(BuildConsoleManager.BUILD_STREAM_TYPE_OUTPUT);
+		} catch (CoreException e) {
+			CUIPlugin.log(e);
+			index.close();
+			fFullLogAction.setChecked(false);
+			return;
+		}
+		BuildLogDocument document = new BuildLogDocument(index);
+		fLogPartitioner = new BuildLogPartitioner(document, stream, par.fManager);
+		fLogPartitioner.connect(document);
+		document.setDocumentPartitioner(fLogPartitioner);
+		fClearOutputAction.setEnabled(false);
+		getViewer().setDocument(document);
+	}
+
+	/**
+	 * Stops showing the full build log, the log file must not be mapped while a
+	 * new build rewrites it.
+	 */
+	private void closeFullLog() {
+		if (fLogJob != null) {
+			fLogJob.cancel();
+			fLogJob = null;
+		}
+		if (fFullLogAction != null) {
+			fFullLogAction.setChecked(false);
+		}
+		if (fLogPartitioner != null) {
+			BuildLogPartitioner par = fLogPartitioner;
+			fLogPartitioner = null;
+			if (getViewer().getDocument() == par.getDocument()) {
+				getViewer().setDocument(null);
+			}
+			par.disconnect();
+			par.getDocument().getIndex().close();
+			fClearOutputAction.setEnabled(true);
+		}
+	}
+
 	/**
 	 * Open error specified by marker in editor
 	 */
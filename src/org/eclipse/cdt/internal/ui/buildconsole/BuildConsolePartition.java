@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.buildconsole;
 
+import org.eclipse.core.resources.IMarker;
+
 import org.eclipse.cdt.core.ProblemMarkerInfo;
 import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.jface.text.TypedRegion;
@@ -123,6 +125,18 @@ public class BuildConsolePartition extends TypedRegion {
 		return fMarker;
 	}
 
+	/**
+	 * Returns the type of the partitions reporting problems of the given severity.
+	 */
+	public static String getProblemPartitionType(int severity) {
+		if (severity==IMarker.SEVERITY_INFO) {
+			return INFO_PARTITION_TYPE;
+		} else if (severity==IMarker.SEVERITY_WARNING) {
+			return WARNING_PARTITION_TYPE;
+		}
+		return ERROR_PARTITION_TYPE;
+	}
+
 	public static boolean isProblemPartitionType(String type) {
 		return type==BuildConsolePartition.ERROR_PARTITION_TYPE
 			|| type==BuildConsolePartition.WARNING_PARTITION_TYPE
@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import java.util.Arrays;
+
+import org.eclipse.core.resources.IMarker;
+
+/**
+ * Partitions of the build console document ordered by offset.
+ * <p>
+ * Partitions are stored with offsets relative to a base offset rather than to the
+ * start of the document. Removing text from the head of the document on overflow
+ * therefore only drops leading partitions and moves the base offset, surviving
+ * partitions are not recreated. Lookups by offset use binary search.
+ * Partitions handed out by this index carry document offsets.
+ * <p>
+ * Problem partitions are additionally listed in a side table in document order,
+ * together with their number per severity, so that navigating between problems
+ * does not walk the partitions. Partitions are identified in the side table by
+ * serial numbers, which stay valid as partitions are removed from the head.
+ */
+class BuildConsolePartitionIndex {
+
+	private static final BuildConsolePartition[] EMPTY = new BuildConsolePartition[0];
+
+	/** Partitions with offsets relative to {@link #fBase}, valid from {@link #fHead} */
+	private BuildConsolePartition[] fItems = new BuildConsolePartition[16];
+	/** Index of the first partition in {@link #fItems} */
+	private int fHead;
+	/** Number of partitions */
+	private int fSize;
+	/** Length of the text removed from the head of the document since the last compaction */
+	private int fBase;
+
+	/** Serial number of the first partition, advances as partitions are removed from the head */
+	private int fFirstSerial;
+	/** Serial numbers of the problem partitions, valid from {@link #fProblemHead} */
+	private int[] fProblems = new int[16];
+	/** Index of the first problem in {@link #fProblems} */
+	private int fProblemHead;
+	/** Number of problem partitions */
+	private int fProblemCount;
+	/** Number of problem partitions by marker severity */
+	private final int[] fSeverityCounts = new int[3];
+
+	int size() {
+		return fSize;
+	}
+
+	boolean isEmpty() {
+		return fSize == 0;
+	}
+
+	void clear() {
+		fItems = new BuildConsolePartition[16];
+		fHead = 0;
+		fSize = 0;
+		fBase = 0;
+		fFirstSerial = 0;
+		fProblems = new int[16];
+		fProblemHead = 0;
+		fProblemCount = 0;
+		Arrays.fill(fSeverityCounts, 0);
+	}
+
+	/**
+	 * Returns the partition at the given index with document offsets.
+	 */
+	BuildConsolePartition get(int index) {
+		if (index < 0 || index >= fSize) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return toDocument(fItems[fHead + index]);
+	}
+
+	/**
+	 * Returns the type of the partition at the given index.
+	 */
+	String getType(int index) {
+		if (index < 0 || index >= fSize) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return fItems[fHead + index].getType();
+	}
+
+	/**
+	 * Returns the document offset of the partition at the given index.
+	 */
+	int getOffset(int index) {
+		if (index < 0 || index >= fSize) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return fItems[fHead + index].getOffset() - fBase;
+	}
+
+	/**
+	 * Adds a new partition at the end, combining it with the last partition if possible.
+	 *
+	 * @param partition - partition with document offsets.
+	 * @return the index of the partition that covers the added range.
+	 */
+	int add(BuildConsolePartition partition) {
+		if (fHead + fSize == fItems.length) {
+			compact(fSize * 2 > fItems.length ? fItems.length * 2 : fItems.length);
+		}
+		if (fBase != 0) {
+			partition = partition.createNewPartition(partition.getOffset() + fBase,
+					partition.getLength(), partition.getType());
+		}
+		if (fSize > 0) {
+			int last = fHead + fSize - 1;
+			if (fItems[last].canBeCombinedWith(partition)) {
+				// replace with a single partition
+				fItems[last] = fItems[last].combineWith(partition);
+				return fSize - 1;
+			}
+		}
+		fItems[fHead + fSize] = partition;
+		fSize++;
+		if (BuildConsolePartition.isProblemPartitionType(partition.getType())) {
+			addProblem(fFirstSerial + fSize - 1, partition.getType());
+		}
+		return fSize - 1;
+	}
+
+	/**
+	 * Returns the number of problem partitions.
+	 */
+	int getProblemCount() {
+		return fProblemCount;
+	}
+
+	/**
+	 * Returns the number of problem partitions of the given marker severity.
+	 */
+	int getProblemCount(int severity) {
+		return fSeverityCounts[severity];
+	}
+
+	/**
+	 * Returns the index of the partition of the given problem.
+	 *
+	 * @param problem - index of the problem among the problem partitions.
+	 */
+	int getProblemPartitionIndex(int problem) {
+		if (problem < 0 || problem >= fProblemCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(problem));
+		}
+		return fProblems[fProblemHead + problem] - fFirstSerial;
+	}
+
+	/**
+	 * Returns the index among the problem partitions of the partition at the
+	 * given index or <code>-1</code> if it is not a problem partition.
+	 */
+	int indexOfProblem(int index) {
+		int low = 0;
+		int high = fProblemCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			// serial numbers may wrap around, compare their distance to the first
+			int midIndex = fProblems[fProblemHead + mid] - fFirstSerial;
+			if (midIndex < index) {
+				low = mid + 1;
+			} else if (midIndex > index) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the partition containing the given document offset or
+	 * <code>-1</code> if there is no such partition.
+	 */
+	int indexOf(int offset) {
+		int index = lastStartingAtOrBefore(offset + fBase);
+		if (index >= 0) {
+			BuildConsolePartition p = fItems[fHead + index];
+			if (offset + fBase < p.getOffset() + p.getLength()) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the partitions touching the given range of the document, which
+	 * includes partitions ending at the start of the range.
+	 */
+	BuildConsolePartition[] getPartitions(int offset, int length) {
+		int start = offset + fBase;
+		int end = start + length;
+		int first = firstEndingAtOrAfter(start);
+		int last = first;
+		while (last < fSize && fItems[fHead + last].getOffset() <= end) {
+			last++;
+		}
+		return toArray(first, last);
+	}
+
+	/**
+	 * Returns all partitions.
+	 */
+	BuildConsolePartition[] toArray() {
+		return toArray(0, fSize);
+	}
+
+	/**
+	 * Removes the given number of characters from the head of the document. Partitions
+	 * entirely within the removed text are dropped, the partition crossing its end
+	 * is shortened unless it reports a problem, which can't be split and is dropped too.
+	 *
+	 * @return the number of partitions removed from the head.
+	 */
+	int removeHead(int length) {
+		int end = fBase + length;
+		int removed = 0;
+		while (removed < fSize) {
+			BuildConsolePartition p = fItems[fHead + removed];
+			if (p.getOffset() >= end) {
+				break;
+			}
+			int partitionEnd = p.getOffset() + p.getLength();
+			if (partitionEnd > end && !BuildConsolePartition.isProblemPartitionType(p.getType())) {
+				// split partition
+				fItems[fHead + removed] = p.createNewPartition(end, partitionEnd - end, p.getType());
+				break;
+			}
+			removed++;
+		}
+		removeProblems(removed);
+		for (int i = 0; i < removed; i++) {
+			fItems[fHead + i] = null;
+		}
+		fHead += removed;
+		fSize -= removed;
+		fBase = end;
+		fFirstSerial += removed;
+		if (fHead > fSize || fBase > Integer.MAX_VALUE / 2) {
+			compact(fItems.length);
+		}
+		return removed;
+	}
+
+	private void addProblem(int serial, String type) {
+		if (fProblemHead + fProblemCount == fProblems.length) {
+			int[] problems = fProblems;
+			if (fProblemCount * 2 > fProblems.length) {
+				problems = new int[fProblems.length * 2];
+			}
+			System.arraycopy(fProblems, fProblemHead, problems, 0, fProblemCount);
+			fProblems = problems;
+			fProblemHead = 0;
+		}
+		fProblems[fProblemHead + fProblemCount] = serial;
+		fProblemCount++;
+		fSeverityCounts[getSeverity(type)]++;
+	}
+
+	/**
+	 * Drops the problems among the given number of partitions about to be removed
+	 * from the head.
+	 */
+	private void removeProblems(int removed) {
+		while (fProblemCount > 0 && fProblems[fProblemHead] - fFirstSerial < removed) {
+			int index = fProblems[fProblemHead] - fFirstSerial;
+			fSeverityCounts[getSeverity(fItems[fHead + index].getType())]--;
+			fProblemHead++;
+			fProblemCount--;
+		}
+		if (fProblemCount == 0) {
+			fProblemHead = 0;
+		}
+	}
+
+	private static int getSeverity(String type) {
+		if (type == BuildConsolePartition.INFO_PARTITION_TYPE) {
+			return IMarker.SEVERITY_INFO;
+		} else if (type == BuildConsolePartition.WARNING_PARTITION_TYPE) {
+			return IMarker.SEVERITY_WARNING;
+		}
+		return IMarker.SEVERITY_ERROR;
+	}
+
+	private int lastStartingAtOrBefore(int offset) {
+		int low = 0;
+		int high = fSize - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (fItems[fHead + mid].getOffset() <= offset) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return high;
+	}
+
+	private int firstEndingAtOrAfter(int offset) {
+		int low = 0;
+		int high = fSize;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			BuildConsolePartition p = fItems[fHead + mid];
+			if (p.getOffset() + p.getLength() < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private BuildConsolePartition[] toArray(int from, int to) {
+		if (from >= to) {
+			return EMPTY;
+		}
+		BuildConsolePartition[] result = new BuildConsolePartition[to - from];
+		for (int i = from; i < to; i++) {
+			result[i - from] = toDocument(fItems[fHead + i]);
+		}
+		return result;
+	}
+
+	private BuildConsolePartition toDocument(BuildConsolePartition p) {
+		if (fBase == 0) {
+			return p;
+		}
+		return p.createNewPartition(p.getOffset() - fBase, p.getLength(), p.getType());
+	}
+
+	/**
+	 * Moves the partitions to the beginning of an array of the given capacity and
+	 * rebases their offsets to the start of the document.
+	 */
+	private void compact(int capacity) {
+		BuildConsolePartition[] items = capacity == fItems.length ? fItems : new BuildConsolePartition[capacity];
+		for (int i = 0; i < fSize; i++) {
+			items[i] = toDocument(fItems[fHead + i]);
+		}
+		for (int i = fSize; i < fHead + fSize && i < items.length; i++) {
+			items[i] = null;
+		}
+		fItems = items;
+		fHead = 0;
+		fBase = 0;
+	}
+}
@@ -13,17 +13,14 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.buildconsole;
 
-import java.io.IOException;
-import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Vector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.eclipse.core.filesystem.EFS;
-import org.eclipse.core.filesystem.IFileStore;
-import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.text.BadLocationException;
@@ -42,7 +39,6 @@ import org.eclipse.ui.console.ConsolePlugin;
 import org.eclipse.cdt.core.ConsoleOutputStream;
 import org.eclipse.cdt.core.ProblemMarkerInfo;
 import org.eclipse.cdt.core.resources.IConsole;
-import org.eclipse.cdt.core.resources.ResourcesUtil;
 import org.eclipse.cdt.ui.CUIPlugin;
 
 import org.eclipse.cdt.internal.ui.preferences.BuildConsolePreferencePage;
@@ -57,9 +53,9 @@ public class BuildConsolePartitioner
 	private IProject fProject;
 
 	/**
-	 * List of partitions
+	 * Partitions of the document
 	 */
-	List<ITypedRegion> fPartitions = new ArrayList<ITypedRegion>(5);
+	final BuildConsolePartitionIndex fPartitions = new BuildConsolePartitionIndex();
 
 	private int fMaxLines;
 
@@ -75,47 +71,43 @@ public class BuildConsolePartitioner
 
 	/**
 	 * A queue of stream entries written to standard out and standard err.
-	 * Entries appended to the end of the queue and removed from the front.
-	 * Intentionally a vector to obtain synchronization as entries are added and
-	 * removed.
+	 * Producers append to the tail without locking; the queue is drained in
+	 * batches on the user-interface thread by {@link #fDrainRunnable}.
 	 */
-	Vector<StreamEntry> fQueue = new Vector<StreamEntry>(5);
+	final Queue<StreamEntry> fQueue = new ConcurrentLinkedQueue<StreamEntry>();
 
-	private URI fLogURI;
-	private OutputStream fLogStream;
+	/**
+	 * Set while a drain of {@link #fQueue} is scheduled but has not started yet,
+	 * so that a burst of output results in a single runnable on the display.
+	 */
+	private final AtomicBoolean fDrainScheduled = new AtomicBoolean(false);
 
-	private class StreamEntry {
-		static public final int EVENT_APPEND = 0;
-		static public final int EVENT_OPEN_LOG = 1;
-		static public final int EVENT_CLOSE_LOG = 2;
-		static public final int EVENT_OPEN_APPEND_LOG = 3;
+	/**
+	 * Delay in milliseconds used to coalesce appends arriving within one display frame.
+	 */
+	private static final int FRAME_DELAY = 16;
 
+	/**
+	 * Maximum number of characters processed by a single drain. Remaining entries are
+	 * left for the next frame to keep the user-interface thread responsive.
+	 */
+	private static final int MAX_CHARS_PER_DRAIN = 256 * 1024;
+
+	private volatile URI fLogURI;
+	private final BuildConsoleLogWriter fLogWriter;
+
+	private class StreamEntry {
 		/** Identifier of the stream written to. */
 		private BuildConsoleStreamDecorator fStream;
 		/** The text written */
-		private StringBuffer fText = null;
+		private String fText = null;
 		/** Problem marker corresponding to the line of text */
 		private ProblemMarkerInfo fMarker;
-		/** Type of event **/
-		private int eventType;
 
 		public StreamEntry(String text, BuildConsoleStreamDecorator stream, ProblemMarkerInfo marker) {
-			fText = new StringBuffer(text);
+			fText = text;
 			fStream = stream;
 			fMarker = marker;
-			eventType = EVENT_APPEND;
-		}
-
-		/**
-		 * This constructor is used for special events such as clear console or close log.
-		 *
-		 * @param event - kind of event.
-		 */
-		public StreamEntry(int event) {
-			fText = null;
-			fStream = null;
-			fMarker = null;
-			eventType = event;
 		}
 
 		/**
@@ -125,19 +117,11 @@ public class BuildConsolePartitioner
 			return fStream;
 		}
 
-		public void appendText(String text) {
-			fText.append(text);
-		}
-
-		public int size() {
-			return fText.length();
-		}
-
 		/**
 		 * Returns the text written
 		 */
 		public String getText() {
-			return fText.toString();
+			return fText;
 		}
 
 		/**
@@ -146,14 +130,6 @@ public class BuildConsolePartitioner
 		public ProblemMarkerInfo getMarker() {
 			return fMarker;
 		}
-
-		/**
-		 * Returns type of event
-		 */
-		public int getEventType() {
-			return eventType;
-		}
-
 	}
 
 	/**
@@ -173,7 +149,8 @@ public class BuildConsolePartitioner
 		connect(fDocument);
 
 		fLogURI = null;
-		fLogStream = null;
+		// the build output is encoded with the platform encoding, see BuildOutputStream
+		fLogWriter = new BuildConsoleLogWriter(Charset.defaultCharset());
 	}
 
 	/**
@@ -181,8 +158,7 @@ public class BuildConsolePartitioner
 	 * when opening the output stream.
 	 */
 	public void setStreamOpened() {
-		fQueue.add(new StreamEntry(StreamEntry.EVENT_OPEN_LOG));
-		asyncProcessQueue();
+		logOpen(false);
 	}
 
 	/**
@@ -191,18 +167,35 @@ public class BuildConsolePartitioner
 	 * emptying the log file.
 	 */
 	public void setStreamAppend() {
-		fQueue.add(new StreamEntry(StreamEntry.EVENT_OPEN_APPEND_LOG));
-		asyncProcessQueue();
+		logOpen(true);
 	}
 
 	/**
 	 * Sets the indicator that stream was closed so logging should be stopped. Should be called when
 	 * build process has finished. Note that there could still be unprocessed console
-	 * stream entries in the queue being worked on in the background.
+	 * stream entries in the queue being worked on in the background, the log is closed
+	 * once they have been written.
 	 */
 	public void setStreamClosed() {
-		fQueue.add(new StreamEntry(StreamEntry.EVENT_CLOSE_LOG));
-		asyncProcessQueue();
+		fLogWriter.close();
+	}
+
+	/**
+	 * Open the log
+	 * @param append Set to true if the log should be opened for appending, false for overwriting.
+	 */
+	private void logOpen(boolean append) {
+		fLogURI = fManager.getLogURI(fProject);
+		if (fLogURI!=null) {
+			fLogWriter.open(fLogURI, append);
+		}
+	}
+
+	/**
+	 * Returns the encoding of the build output and the log.
+	 */
+	Charset getCharset() {
+		return fLogWriter.getCharset();
 	}
 
 	/**
@@ -212,155 +205,137 @@ public class BuildConsolePartitioner
 	 * @param stream - the stream to append to.
 	 */
 	public void appendToDocument(String text, BuildConsoleStreamDecorator stream, ProblemMarkerInfo marker) {
-		boolean addToQueue = true;
-		synchronized (fQueue) {
-			int i = fQueue.size();
-			if (i > 0) {
-				StreamEntry entry = fQueue.get(i - 1);
-				// if last stream is the same and we have not exceeded our
-				// display write limit, append.
-				if (entry.getStream()==stream && entry.getEventType()==StreamEntry.EVENT_APPEND && entry.getMarker()==marker && entry.size()<10000) {
-					entry.appendText(text);
-					addToQueue = false;
-				}
-			}
-			if (addToQueue) {
-				fQueue.add(new StreamEntry(text, stream, marker));
-			}
+		if (text.length()>0) {
+			fLogWriter.write(text, marker);
 		}
-		if (addToQueue) {
-			asyncProcessQueue();
+		appendToConsole(text, stream, marker);
+	}
+
+	/**
+	 * Adds the new text to the document without writing it to the log.
+	 */
+	void appendToConsole(String text, BuildConsoleStreamDecorator stream, ProblemMarkerInfo marker) {
+		fQueue.add(new StreamEntry(text, stream, marker));
+		scheduleDrain();
+	}
+
+	/**
+	 * Writes raw build output to the log. The bytes are expected to be encoded with
+	 * {@link #getCharset()}.
+	 */
+	void appendToLog(byte[] b, int off, int len) {
+		if (len>0) {
+			fLogWriter.write(b, off, len);
 		}
 	}
 
 	/**
-	 * Asynchronous processing of stream entries to append to console.
-	 * Note that all these are processed by the same thread - the user-interface thread
-	 * as of {@link Display#asyncExec(Runnable)}.
+	 * Schedules a drain of the queue on the user-interface thread unless one is already
+	 * pending. The drain is delayed by one frame so that entries written meanwhile are
+	 * appended to the document together.
 	 */
-	private void asyncProcessQueue() {
-		Runnable r = new Runnable() {
+	private void scheduleDrain() {
+		if (!fDrainScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		final Display display = CUIPlugin.getStandardDisplay();
+		if (display == null) {
+			fDrainScheduled.set(false);
+			return;
+		}
+		display.asyncExec(new Runnable() {
 			public void run() {
-				StreamEntry entry;
-				try {
-					entry = fQueue.remove(0);
-				} catch (ArrayIndexOutOfBoundsException e) {
+				if (display.isDisposed()) {
 					return;
 				}
-				switch (entry.getEventType()) {
-				case StreamEntry.EVENT_OPEN_LOG:
-				case StreamEntry.EVENT_OPEN_APPEND_LOG:
-					logOpen(entry.getEventType() == StreamEntry.EVENT_OPEN_APPEND_LOG);
-					break;
-				case StreamEntry.EVENT_APPEND:
-					fLastStream = entry.getStream();
-					try {
-						warnOfContentChange(fLastStream);
-
-						if (fLastStream == null) {
-							// special case to empty document
-							fPartitions.clear();
-							fDocumentMarkerManager.clear();
-							fDocument.set(""); //$NON-NLS-1$
-						}
-						String text = entry.getText();
-						if (text.length()>0) {
-							addStreamEntryToDocument(entry);
-							log(text);
-							checkOverflow();
-						}
-					} catch (BadLocationException e) {
-					}
-					break;
-				case StreamEntry.EVENT_CLOSE_LOG:
-					logClose();
-					break;
-				}
+				display.timerExec(FRAME_DELAY, fDrainRunnable);
 			}
+		});
+	}
 
-			/**
-			 * Open the log
-			 * @param append Set to true if the log should be opened for appending, false for overwriting.
-			 */
-			private void logOpen(boolean append) {
-				fLogURI = fManager.getLogURI(fProject);
-				if (fLogURI!=null) {
-					try {
-						IFileStore logStore = EFS.getStore(fLogURI);
-						// Ensure the directory exists before opening the file
-						IFileStore dir = logStore.getParent();
-						if (dir != null)
-							dir.mkdir(EFS.NONE, null);
-						int opts = append ? EFS.APPEND : EFS.NONE;
-						fLogStream = logStore.openOutputStream(opts, null);
-					} catch (CoreException e) {
-						CUIPlugin.log(e);
-					} finally {
-						ResourcesUtil.refreshWorkspaceFiles(fLogURI);
-					}
+	/**
+	 * Processing of stream entries to append to console.
+	 * Note that all these are processed by the same thread - the user-interface thread
+	 * as of {@link Display#asyncExec(Runnable)}. All pending entries are handled in one go:
+	 * consecutive appends are collected into a single document replace followed by
+	 * a single overflow check.
+	 */
+	private final Runnable fDrainRunnable = new Runnable() {
+		/** Text collected for the next document replace */
+		private final StringBuilder fPending = new StringBuilder();
+		/** Partitions describing {@link #fPending} */
+		private final List<BuildConsolePartition> fPendingPartitions = new ArrayList<BuildConsolePartition>();
+
+		public void run() {
+			// entries queued from now on need another drain
+			fDrainScheduled.set(false);
+
+			int processed = 0;
+			StreamEntry entry;
+			while (processed < MAX_CHARS_PER_DRAIN && (entry = fQueue.poll()) != null) {
+				fLastStream = entry.getStream();
+				if (fLastStream == null) {
+					// special case to empty document
+					flushPending();
+					warnOfContentChange(null);
+					fPartitions.clear();
+					fDocumentMarkerManager.clear();
+					fDocument.set(""); //$NON-NLS-1$
+				}
+				String text = entry.getText();
+				if (text.length()>0) {
+					fPendingPartitions.add(createPartition(entry,
+							fDocument.getLength() + fPending.length()));
+					fPending.append(text);
+					processed += text.length();
 				}
 			}
+			flushPending();
 
-			private void log(String text) {
-				if (fLogStream!=null) {
-					try {
-						fLogStream.write(text.getBytes());
-						if (fQueue.isEmpty()) {
-							fLogStream.flush();
-						}
-					} catch (IOException e) {
-						CUIPlugin.log(e);
-					} finally {
-						ResourcesUtil.refreshWorkspaceFiles(fLogURI);
-					}
-				}
+			if (!fQueue.isEmpty()) {
+				scheduleDrain();
 			}
+		}
 
-			private void logClose() {
-				if (fLogStream!=null) {
-					try {
-						fLogStream.close();
-					} catch (IOException e) {
-						CUIPlugin.log(e);
-					} finally {
-						ResourcesUtil.refreshWorkspaceFiles(fLogURI);
-					}
-					fLogStream = null;
+		/**
+		 * Appends the collected text to the document.
+		 */
+		private void flushPending() {
+			if (fPending.length() == 0) {
+				return;
+			}
+			String text = fPending.toString();
+			fPending.setLength(0);
+			try {
+				warnOfContentChange(fLastStream);
+				for (BuildConsolePartition partition : fPendingPartitions) {
+					fPartitions.add(partition);
 				}
+				fDocument.replace(fDocument.getLength(), 0, text);
+				checkOverflow();
+			} catch (BadLocationException e) {
+			} finally {
+				fPendingPartitions.clear();
 			}
-
-		};
-		Display display = CUIPlugin.getStandardDisplay();
-		if (display != null) {
-			display.asyncExec(r);
 		}
-	}
 
-	private void addStreamEntryToDocument(StreamEntry entry) throws BadLocationException {
+	};
+
+	/**
+	 * Creates the partition for the text of the given entry placed at the given offset.
+	 */
+	private BuildConsolePartition createPartition(StreamEntry entry, int offset) {
 		ProblemMarkerInfo marker = entry.getMarker();
+		int length = entry.getText().length();
 		if (marker==null) {
 			// It is plain unmarkered console output
-			addPartition(new BuildConsolePartition(fLastStream,
-					fDocument.getLength(),
-					entry.getText().length(),
-					BuildConsolePartition.CONSOLE_PARTITION_TYPE));
-		} else {
-			// this text line in entry is markered with ProblemMarkerInfo,
-			// create special partition for it.
-			String errorPartitionType;
-			if (marker.severity==IMarker.SEVERITY_INFO) {
-				errorPartitionType = BuildConsolePartition.INFO_PARTITION_TYPE;
-			} else if (marker.severity==IMarker.SEVERITY_WARNING) {
-				errorPartitionType = BuildConsolePartition.WARNING_PARTITION_TYPE;
-			} else {
-				errorPartitionType = BuildConsolePartition.ERROR_PARTITION_TYPE;
-			}
-			addPartition(new BuildConsolePartition(fLastStream,
-					fDocument.getLength(),
-					entry.getText().length(),
-					errorPartitionType, marker));
+			return new BuildConsolePartition(entry.getStream(), offset, length,
+					BuildConsolePartition.CONSOLE_PARTITION_TYPE);
 		}
-		fDocument.replace(fDocument.getLength(), 0, entry.getText());
+		// this text line in entry is markered with ProblemMarkerInfo,
+		// create special partition for it.
+		String errorPartitionType = BuildConsolePartition.getProblemPartitionType(marker.severity);
+		return new BuildConsolePartition(entry.getStream(), offset, length, errorPartitionType, marker);
 	}
 
 	void warnOfContentChange(BuildConsoleStreamDecorator stream) {
@@ -421,33 +396,18 @@ public class BuildConsolePartitioner
 	 */
 	public ITypedRegion[] computePartitioning(int offset, int length) {
 		if (offset == 0 && length == fDocument.getLength()) {
-			return fPartitions.toArray(new ITypedRegion[fPartitions.size()]);
+			return fPartitions.toArray();
 		}
-		int end = offset + length;
-		List<ITypedRegion> list = new ArrayList<ITypedRegion>();
-		for (int i = 0; i < fPartitions.size(); i++) {
-			ITypedRegion partition = fPartitions.get(i);
-			int partitionStart = partition.getOffset();
-			int partitionEnd = partitionStart + partition.getLength();
-			if ( (offset >= partitionStart && offset <= partitionEnd) ||
-					(offset < partitionStart && end >= partitionStart)) {
-				list.add(partition);
-			}
-		}
-		return list.toArray(new ITypedRegion[list.size()]);
+		return fPartitions.getPartitions(offset, length);
 	}
 
 	/**
 	 * @see org.eclipse.jface.text.IDocumentPartitioner#getPartition(int)
 	 */
 	public ITypedRegion getPartition(int offset) {
-		for (int i = 0; i < fPartitions.size(); i++) {
-			ITypedRegion partition = fPartitions.get(i);
-			int start = partition.getOffset();
-			int end = start + partition.getLength();
-			if (offset >= start && offset < end) {
-				return partition;
-			}
+		int index = fPartitions.indexOf(offset);
+		if (index >= 0) {
+			return fPartitions.get(index);
 		}
 		return null;
 	}
@@ -489,38 +449,9 @@ public class BuildConsolePartitioner
 				} catch (BadLocationException e1) {
 				}
 				// update partitions
-				List<ITypedRegion> newParitions = new ArrayList<ITypedRegion>(fPartitions.size());
-				Iterator<ITypedRegion> partitions = fPartitions.iterator();
-				while (partitions.hasNext()) {
-					ITypedRegion region = partitions.next();
-					if (region instanceof BuildConsolePartition) {
-						BuildConsolePartition messageConsolePartition = (BuildConsolePartition)region;
-
-						ITypedRegion newPartition = null;
-						int offset = region.getOffset();
-						String type = messageConsolePartition.getType();
-						if (offset < overflow) {
-							int endOffset = offset + region.getLength();
-							if (endOffset < overflow || BuildConsolePartition.isProblemPartitionType(type)) {
-								// remove partition,
-								// partitions with problem markers can't be split - remove them too
-							} else {
-								// split partition
-								int length = endOffset - overflow;
-								newPartition = messageConsolePartition.createNewPartition(0, length, type);
-							}
-						} else {
-							// modify partition offset
-							offset = messageConsolePartition.getOffset() - overflow;
-							newPartition = messageConsolePartition.createNewPartition(offset, messageConsolePartition.getLength(), type);
-						}
-						if (newPartition != null) {
-							newParitions.add(newPartition);
-						}
-					}
-				}
-				fPartitions = newParitions;
-				fDocumentMarkerManager.moveToFirstError();
+				int problems = fPartitions.getProblemCount();
+				fPartitions.removeHead(overflow);
+				fDocumentMarkerManager.problemsRemoved(problems - fPartitions.getProblemCount());
 
 				try {
 					fDocument.replace(0, overflow, ""); //$NON-NLS-1$
@@ -530,27 +461,6 @@ public class BuildConsolePartitioner
 		}
 	}
 
-	/**
-	 * Adds a new partition, combining with the previous partition if possible.
-	 */
-	private BuildConsolePartition addPartition(BuildConsolePartition partition) {
-		if (fPartitions.isEmpty()) {
-			fPartitions.add(partition);
-		} else {
-			int index = fPartitions.size() - 1;
-			BuildConsolePartition last = (BuildConsolePartition)fPartitions.get(index);
-			if (last.canBeCombinedWith(partition)) {
-				// replace with a single partition
-				partition = last.combineWith(partition);
-				fPartitions.set(index, partition);
-			} else {
-				// different kinds - add a new parition
-				fPartitions.add(partition);
-			}
-		}
-		return partition;
-	}
-
 	public IConsole getConsole() {
 		return this;
 	}
@@ -566,8 +476,6 @@ public class BuildConsolePartitioner
 		if (display != null) {
 			display.asyncExec(new Runnable() {
 				public void run() {
-					fLogStream = null;
-					fLogURI = null;
 					fManager.startConsoleActivity(project);
 				}
 			});
@@ -595,8 +503,7 @@ public class BuildConsolePartitioner
 	@SuppressWarnings({ "unused", "nls" })
 	private void printDocumentPartitioning() {
 		System.out.println("Document partitioning: ");
-		for (ITypedRegion tr : fPartitions) {
-			BuildConsolePartition p = (BuildConsolePartition) tr;
+		for (BuildConsolePartition p : fPartitions.toArray()) {
 			int start = p.getOffset();
 			int end = p.getOffset() + p.getLength();
 			String text;
@@ -15,6 +15,7 @@ import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.TextViewer;
 import org.eclipse.swt.SWT;
@@ -171,11 +172,12 @@ public class BuildConsoleViewer extends TextViewer
 	public void lineGetStyle(LineStyleEvent event) {
 		IDocument document = getDocument();
 		if (document == null) return;
-		BuildConsolePartitioner partitioner = (BuildConsolePartitioner) document.getDocumentPartitioner();
-		if (partitioner == null) return;
+		IDocumentPartitioner partitioner = document.getDocumentPartitioner();
+		BuildConsoleManager manager = getManager(partitioner);
+		if (manager == null) return;
 
-		BuildConsolePartition p = partitioner.fDocumentMarkerManager.getCurrentPartition();
-		Color problemHighlightedColor =  partitioner.fManager.getProblemHighlightedColor();
+		BuildConsolePartition p = getCurrentPartition(partitioner);
+		Color problemHighlightedColor =  manager.getProblemHighlightedColor();
 
 		// Note, computePartitioning actually doesn't change anything in partitioning,
 		// but only computes number of affected regions.
@@ -189,7 +191,7 @@ public class BuildConsoleViewer extends TextViewer
 			Color colorBG = null;
 
 			// Highlight current partition
-			if ( partition == p ) {
+			if ( partition.equals(p) ) {
 				colorFG = problemHighlightedColor;
 			}
 			StyleRange styleRange = new StyleRange(partition.getOffset(), partition.getLength(), colorFG, colorBG);
@@ -198,10 +200,38 @@ public class BuildConsoleViewer extends TextViewer
 		event.styles = styles;
 	}
 
+	/**
+	 * Returns the console manager of the given partitioner or {@code null} if it
+	 * is not a build console or build log partitioner.
+	 */
+	private static BuildConsoleManager getManager(IDocumentPartitioner partitioner) {
+		if (partitioner instanceof BuildConsolePartitioner) {
+			return ((BuildConsolePartitioner) partitioner).fManager;
+		}
+		if (partitioner instanceof BuildLogPartitioner) {
+			return ((BuildLogPartitioner) partitioner).fManager;
+		}
+		return null;
+	}
+
+	private static BuildConsolePartition getCurrentPartition(IDocumentPartitioner partitioner) {
+		if (partitioner instanceof BuildConsolePartitioner) {
+			return ((BuildConsolePartitioner) partitioner).fDocumentMarkerManager.getCurrentPartition();
+		}
+		if (partitioner instanceof BuildLogPartitioner) {
+			return ((BuildLogPartitioner) partitioner).getCurrentPartition();
+		}
+		return null;
+	}
+
 	public void selectPartition(BuildConsolePartitioner partitioner, BuildConsolePartition p) {
+		selectPartition(partitioner.getDocument(), p);
+	}
+
+	void selectPartition(IDocument document, BuildConsolePartition p) {
 		try {
-			int start = partitioner.getDocument().getLineOfOffset(p.getOffset());
-			int end = partitioner.getDocument().getLineOfOffset(p.getOffset()+p.getLength()-1);
+			int start = document.getLineOfOffset(p.getOffset());
+			int end = document.getLineOfOffset(p.getOffset()+p.getLength()-1);
 
 			if ( fAutoScroll ) {
 				// Check if area around this line is visible, scroll if needed
@@ -216,7 +246,7 @@ public class BuildConsoleViewer extends TextViewer
 
 			// Select line
 			StyledText st = getTextWidget();
-			st.redrawRange(0, partitioner.getDocument().getLength(), true);
+			st.redrawRange(0, document.getLength(), true);
 
 		} catch (BadLocationException e) {
 			CUIPlugin.log(e);
@@ -253,19 +283,20 @@ public class BuildConsoleViewer extends TextViewer
 	public void lineGetBackground(LineBackgroundEvent event) {
 		IDocument document = getDocument();
 		if (document == null) return;
-		BuildConsolePartitioner partitioner = (BuildConsolePartitioner) document.getDocumentPartitioner();
-		if (partitioner == null) return;
+		IDocumentPartitioner partitioner = document.getDocumentPartitioner();
+		BuildConsoleManager manager = getManager(partitioner);
+		if (manager == null) return;
 
 		BuildConsolePartition partition = (BuildConsolePartition) partitioner.getPartition(event.lineOffset);
 		// Set background for error partitions
 		if (partition!=null) {
 			String type = partition.getType();
 			if (type==BuildConsolePartition.ERROR_PARTITION_TYPE) {
-				event.lineBackground = partitioner.fManager.getProblemBackgroundColor();
+				event.lineBackground = manager.getProblemBackgroundColor();
 			} else if (type==BuildConsolePartition.WARNING_PARTITION_TYPE) {
-				event.lineBackground = partitioner.fManager.getWarningBackgroundColor();
+				event.lineBackground = manager.getWarningBackgroundColor();
 			} else if (type==BuildConsolePartition.INFO_PARTITION_TYPE) {
-				event.lineBackground = partitioner.fManager.getInfoBackgroundColor();
+				event.lineBackground = manager.getInfoBackgroundColor();
 			}
 		}
 	}
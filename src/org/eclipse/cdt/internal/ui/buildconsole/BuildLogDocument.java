@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import org.eclipse.jface.text.Document;
+
+/**
+ * Read-only document showing the full build log from its index.
+ */
+public class BuildLogDocument extends Document {
+
+	private final BuildLogTextStore fStore;
+
+	BuildLogDocument(BuildLogIndex index) {
+		fStore = new BuildLogTextStore(index);
+		setTextStore(fStore);
+		setLineTracker(new BuildLogLineTracker(fStore));
+		completeInitialization();
+	}
+
+	BuildLogIndex getIndex() {
+		return fStore.getIndex();
+	}
+
+	/**
+	 * Returns the line of the log at the start of the document.
+	 */
+	int getFirstLine() {
+		return fStore.getFirstLine();
+	}
+
+	/**
+	 * Returns the character offset of the start of the document in the decoded log.
+	 */
+	long getBase() {
+		return fStore.getBase();
+	}
+}
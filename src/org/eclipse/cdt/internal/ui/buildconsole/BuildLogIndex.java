@@ -0,0 +1,716 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.cdt.core.ProblemMarkerInfo;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * Line and problem index of a build log file.
+ * <p>
+ * The index is kept in a file in the plug-in state area next to the problems
+ * recorded by {@link BuildConsoleLogWriter} while the log was written. It stores
+ * for every line its byte offset in the log and its character offset in the
+ * decoded text, and for every problem its byte range, severity and the position
+ * of its marker record. Neither the index nor the log are memory-mapped, a mapping
+ * cannot be released before it is garbage collected and would keep the next build
+ * from rewriting the files on some platforms. The index is read in pages, a few of
+ * which are kept in memory, so lookups do not depend on the size of the log. The
+ * log itself is read with positional reads of the requested lines only.
+ * <p>
+ * Only encodings representing line delimiters as single ASCII bytes are supported.
+ */
+class BuildLogIndex {
+
+	private static final String INDEX_FOLDER = "buildlog"; //$NON-NLS-1$
+	private static final String INDEX_EXTENSION = ".index"; //$NON-NLS-1$
+	private static final String PROBLEMS_EXTENSION = ".problems"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x43424C49;
+	private static final int VERSION = 1;
+	/** magic, version, charset, log length, log time stamp, character count, line count, problem count */
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 8 + 4 + 4;
+	/** byte offset, character offset */
+	private static final int LINE_ENTRY_SIZE = 16;
+	/** byte offset, byte length, severity, record position */
+	private static final int PROBLEM_ENTRY_SIZE = 24;
+	/** byte offset, byte length, severity, record length */
+	static final int PROBLEM_RECORD_HEADER_SIZE = 8 + 4 + 4 + 4;
+
+	/** Size of the buffer used while scanning the log */
+	private static final int SCAN_BUFFER_SIZE = 1024 * 1024;
+	/** Size of the pages read from the index file */
+	private static final int PAGE_SIZE = 64 * 1024;
+	/** Number of pages of the index file kept in memory */
+	private static final int PAGE_COUNT = 16;
+
+	private final URI fLogURI;
+	private final File fLogFile;
+	private final File fProblemsFile;
+	private final Charset fCharset;
+
+	private RandomAccessFile fLog;
+	private FileChannel fLogChannel;
+	private long fLogLength;
+	private ByteBuffer fBytes = ByteBuffer.allocate(64 * 1024);
+
+	private File fIndexFile;
+	private RandomAccessFile fIndex;
+	private FileChannel fIndexChannel;
+	private final long[] fPageNumbers = new long[PAGE_COUNT];
+	private final ByteBuffer[] fPages = new ByteBuffer[PAGE_COUNT];
+	private int fNextPage;
+	private final ByteBuffer fEntry = ByteBuffer.allocate(8);
+	private long fProblemsStart;
+	private int fLineCount;
+	private int fProblemCount;
+	private long fCharCount;
+
+	private CharsetDecoder fDecoder;
+	private CharBuffer fChars = CharBuffer.allocate(1024);
+
+	private BuildLogIndex(URI logURI, File logFile, Charset charset) {
+		fLogURI = logURI;
+		fLogFile = logFile;
+		fProblemsFile = getProblemsFile(logURI);
+		fCharset = charset;
+		fDecoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		Arrays.fill(fPageNumbers, -1);
+	}
+
+	/**
+	 * Opens the index of the given log, building it first if it is missing or out of date.
+	 *
+	 * @param logURI - location of the build log.
+	 * @param logFile - local build log file.
+	 * @param charset - encoding of the log.
+	 * @param monitor - progress monitor for building the index.
+	 * @throws OperationCanceledException if the monitor was canceled.
+	 */
+	static BuildLogIndex open(URI logURI, File logFile, Charset charset, IProgressMonitor monitor) throws IOException {
+		BuildLogIndex index = new BuildLogIndex(logURI, logFile, charset);
+		try {
+			index.open(monitor);
+		} catch (IOException e) {
+			index.close();
+			throw e;
+		} catch (RuntimeException e) {
+			index.close();
+			throw e;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the file for the problems recorded while writing the given log.
+	 */
+	static File getProblemsFile(URI logURI) {
+		return getStateFile(logURI, PROBLEMS_EXTENSION);
+	}
+
+	private static File getIndexFile(URI logURI) {
+		return getStateFile(logURI, INDEX_EXTENSION);
+	}
+
+	private static File getStateFile(URI logURI, String extension) {
+		IPath folder = CUIPlugin.getDefault().getStateLocation().append(INDEX_FOLDER);
+		folder.toFile().mkdirs();
+		String name = Integer.toHexString(logURI.normalize().toString().hashCode());
+		return folder.append(name + extension).toFile();
+	}
+
+	private void open(IProgressMonitor monitor) throws IOException {
+		fLog = new RandomAccessFile(fLogFile, "r"); //$NON-NLS-1$
+		fLogChannel = fLog.getChannel();
+		fLogLength = fLogChannel.size();
+		long timeStamp = fLogFile.lastModified();
+
+		File indexFile = getIndexFile(fLogURI);
+		if (!isValid(indexFile, timeStamp)) {
+			build(indexFile, timeStamp, monitor);
+		}
+		fIndexFile = indexFile;
+		fIndex = new RandomAccessFile(indexFile, "r"); //$NON-NLS-1$
+		fIndexChannel = fIndex.getChannel();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		readFully(fIndexChannel, header, 0, indexFile);
+		header.position(4 + 4 + 4 + 8 + 8);
+		fCharCount = header.getLong();
+		fLineCount = header.getInt();
+		fProblemCount = header.getInt();
+		fProblemsStart = HEADER_SIZE + (long) fLineCount * LINE_ENTRY_SIZE;
+		if (fIndexChannel.size() < fProblemsStart + (long) fProblemCount * PROBLEM_ENTRY_SIZE) {
+			throw new IOException("Truncated build log index: " + indexFile); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Fills the remaining bytes of the given buffer with the bytes of the file at the
+	 * given position and flips the buffer.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position, File file) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file: " + file); //$NON-NLS-1$
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Returns the long value at the given position of the index file.
+	 */
+	private synchronized long readIndexLong(long position) {
+		ByteBuffer page = getPage(position);
+		int offset = (int) (position % PAGE_SIZE);
+		if (offset + 8 <= page.limit()) {
+			return page.getLong(offset);
+		}
+		// the value spans two pages
+		fEntry.clear();
+		fEntry.limit(8);
+		try {
+			readFully(fIndexChannel, fEntry, position, fIndexFile);
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read build log index: " + e.getMessage()); //$NON-NLS-1$
+		}
+		return fEntry.getLong(0);
+	}
+
+	/**
+	 * Returns the int value at the given position of the index file.
+	 */
+	private synchronized int readIndexInt(long position) {
+		ByteBuffer page = getPage(position);
+		int offset = (int) (position % PAGE_SIZE);
+		if (offset + 4 <= page.limit()) {
+			return page.getInt(offset);
+		}
+		fEntry.clear();
+		fEntry.limit(4);
+		try {
+			readFully(fIndexChannel, fEntry, position, fIndexFile);
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read build log index: " + e.getMessage()); //$NON-NLS-1$
+		}
+		return fEntry.getInt(0);
+	}
+
+	/**
+	 * Returns the page of the index file containing the given position, reading it
+	 * in place of the least recently read page if necessary.
+	 */
+	private ByteBuffer getPage(long position) {
+		if (fIndexChannel == null) {
+			throw new IllegalStateException("Build log index closed: " + fLogFile); //$NON-NLS-1$
+		}
+		long pageNumber = position / PAGE_SIZE;
+		for (int i = 0; i < PAGE_COUNT; i++) {
+			if (fPageNumbers[i] == pageNumber) {
+				return fPages[i];
+			}
+		}
+		int i = fNextPage;
+		fNextPage = (fNextPage + 1) % PAGE_COUNT;
+		if (fPages[i] == null) {
+			fPages[i] = ByteBuffer.allocate(PAGE_SIZE);
+		}
+		ByteBuffer page = fPages[i];
+		fPageNumbers[i] = -1;
+		page.clear();
+		try {
+			long start = pageNumber * PAGE_SIZE;
+			while (page.hasRemaining()) {
+				if (fIndexChannel.read(page, start + page.position()) < 0) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't read build log index: " + e.getMessage()); //$NON-NLS-1$
+		}
+		page.flip();
+		fPageNumbers[i] = pageNumber;
+		return page;
+	}
+
+	private long getLineEntry(int line, int field) {
+		if (line < 0 || line >= fLineCount) {
+			throw new IndexOutOfBoundsException("Line " + line + " of " + fLineCount); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return readIndexLong(HEADER_SIZE + (long) line * LINE_ENTRY_SIZE + field);
+	}
+
+	private long getProblemEntry(int problem, int field) {
+		if (problem < 0 || problem >= fProblemCount) {
+			throw new IndexOutOfBoundsException("Problem " + problem + " of " + fProblemCount); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return fProblemsStart + (long) problem * PROBLEM_ENTRY_SIZE + field;
+	}
+
+	private boolean isValid(File indexFile, long timeStamp) {
+		if (!indexFile.isFile()) {
+			return false;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(indexFile));
+			return in.readInt() == MAGIC && in.readInt() == VERSION
+					&& in.readInt() == fCharset.name().hashCode()
+					&& in.readLong() == fLogLength && in.readLong() == timeStamp;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Scans the log for line delimiters and merges the recorded problems into a new index.
+	 */
+	private void build(File indexFile, long timeStamp, IProgressMonitor monitor) throws IOException {
+		int work = (int) Math.min(fLogLength / SCAN_BUFFER_SIZE + 1, Integer.MAX_VALUE);
+		monitor.beginTask(null, work);
+		File tmpFile = new File(indexFile.getPath() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+		int lineCount = 0;
+		int problemCount = 0;
+		long charCount = 0;
+		try {
+			out.writeInt(0);
+			out.writeInt(VERSION);
+			out.writeInt(fCharset.name().hashCode());
+			out.writeLong(fLogLength);
+			out.writeLong(timeStamp);
+			out.writeLong(0);
+			out.writeInt(0);
+			out.writeInt(0);
+
+			// first line
+			writeLine(out, 0, 0);
+			lineCount++;
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+			// bytes of the current line, decoded when the line is complete
+			ByteBuffer line = ByteBuffer.allocate(4 * 1024);
+			// whether the last byte was '\r', the next line starts after a '\n' following it
+			boolean pendingCR = false;
+			long position = 0;
+			while (position < fLogLength) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				buffer.clear();
+				int read = fLogChannel.read(buffer, position);
+				if (read <= 0) {
+					break;
+				}
+				for (int i = 0; i < read; i++) {
+					byte b = buffer.get(i);
+					if (pendingCR) {
+						pendingCR = false;
+						if (b == '\n') {
+							charCount++;
+							writeLine(out, position + i + 1, charCount);
+							lineCount++;
+							continue;
+						}
+						writeLine(out, position + i, charCount);
+						lineCount++;
+					}
+					if (!line.hasRemaining()) {
+						line = grow(line);
+					}
+					line.put(b);
+					if (b == '\n' || b == '\r') {
+						line.flip();
+						charCount += decodedLength(line);
+						line.clear();
+						if (b == '\n') {
+							writeLine(out, position + i + 1, charCount);
+							lineCount++;
+						} else {
+							pendingCR = true;
+						}
+					}
+				}
+				position += read;
+				monitor.worked(1);
+			}
+			if (pendingCR) {
+				writeLine(out, position, charCount);
+				lineCount++;
+			}
+			line.flip();
+			charCount += decodedLength(line);
+			problemCount = writeProblems(out);
+		} finally {
+			out.close();
+		}
+
+		RandomAccessFile file = new RandomAccessFile(tmpFile, "rw"); //$NON-NLS-1$
+		try {
+			file.writeInt(MAGIC);
+			file.seek(4 + 4 + 4 + 8 + 8);
+			file.writeLong(charCount);
+			file.writeInt(lineCount);
+			file.writeInt(problemCount);
+		} finally {
+			file.close();
+		}
+		indexFile.delete();
+		if (!tmpFile.renameTo(indexFile)) {
+			throw new IOException("Can't create " + indexFile); //$NON-NLS-1$
+		}
+		monitor.done();
+	}
+
+	private static void writeLine(DataOutputStream out, long byteOffset, long charOffset) throws IOException {
+		out.writeLong(byteOffset);
+		out.writeLong(charOffset);
+	}
+
+	/**
+	 * Copies the entries of the problems inside the log from the problems file.
+	 *
+	 * @return the number of problems.
+	 */
+	private int writeProblems(DataOutputStream out) throws IOException {
+		if (!fProblemsFile.isFile()) {
+			return 0;
+		}
+		int count = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fProblemsFile)));
+		try {
+			long recordPosition = 0;
+			while (true) {
+				long byteOffset;
+				try {
+					byteOffset = in.readLong();
+				} catch (EOFException e) {
+					break;
+				}
+				int byteLength = in.readInt();
+				int severity = in.readInt();
+				int recordLength = in.readInt();
+				if (byteOffset + byteLength > fLogLength) {
+					// written after the log was read
+					break;
+				}
+				out.writeLong(byteOffset);
+				out.writeInt(byteLength);
+				out.writeInt(severity);
+				out.writeLong(recordPosition);
+				count++;
+				if (in.skipBytes(recordLength) < recordLength) {
+					break;
+				}
+				recordPosition += PROBLEM_RECORD_HEADER_SIZE + recordLength;
+			}
+		} finally {
+			in.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of characters the given bytes decode to, consuming them.
+	 */
+	private int decodedLength(ByteBuffer bytes) {
+		int length = 0;
+		fDecoder.reset();
+		fChars.clear();
+		while (true) {
+			CoderResult result = fDecoder.decode(bytes, fChars, true);
+			if (result.isOverflow()) {
+				length += fChars.position();
+				fChars.clear();
+				continue;
+			}
+			break;
+		}
+		fDecoder.flush(fChars);
+		length += fChars.position();
+		fChars.clear();
+		return length;
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer) {
+		ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+		buffer.flip();
+		bigger.put(buffer);
+		return bigger;
+	}
+
+	/**
+	 * Returns the number of lines of the log, a trailing empty line included.
+	 */
+	int getLineCount() {
+		return fLineCount;
+	}
+
+	/**
+	 * Returns the number of characters of the decoded log.
+	 */
+	long getCharCount() {
+		return fCharCount;
+	}
+
+	/**
+	 * Returns the number of problems recorded for the log.
+	 */
+	int getProblemCount() {
+		return fProblemCount;
+	}
+
+	/**
+	 * Returns the byte offset of the given line in the log.
+	 */
+	long getLineByteOffset(int line) {
+		if (line == fLineCount) {
+			return fLogLength;
+		}
+		return getLineEntry(line, 0);
+	}
+
+	/**
+	 * Returns the character offset of the given line in the decoded log.
+	 */
+	long getLineCharOffset(int line) {
+		if (line == fLineCount) {
+			return fCharCount;
+		}
+		return getLineEntry(line, 8);
+	}
+
+	/**
+	 * Returns the line containing the given character offset of the decoded log.
+	 */
+	int getLineOfCharOffset(long offset) {
+		return lastLineAtOrBefore(offset, 8);
+	}
+
+	/**
+	 * Returns the line containing the given byte offset of the log.
+	 */
+	int getLineOfByteOffset(long offset) {
+		return lastLineAtOrBefore(offset, 0);
+	}
+
+	private int lastLineAtOrBefore(long offset, int field) {
+		int low = 0;
+		int high = fLineCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (getLineEntry(mid, field) <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	long getProblemByteOffset(int problem) {
+		return readIndexLong(getProblemEntry(problem, 0));
+	}
+
+	int getProblemByteLength(int problem) {
+		return readIndexInt(getProblemEntry(problem, 8));
+	}
+
+	int getProblemSeverity(int problem) {
+		return readIndexInt(getProblemEntry(problem, 12));
+	}
+
+	/**
+	 * Returns the first problem ending after the given byte offset, or the number
+	 * of problems if there is none.
+	 */
+	int getFirstProblemEndingAfter(long offset) {
+		int low = 0;
+		int high = fProblemCount;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getProblemByteOffset(mid) + getProblemByteLength(mid) <= offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Reads the marker recorded for the given problem.
+	 */
+	ProblemMarkerInfo readMarker(int problem) throws IOException {
+		long recordPosition = readIndexLong(getProblemEntry(problem, 16));
+		RandomAccessFile file = new RandomAccessFile(fProblemsFile, "r"); //$NON-NLS-1$
+		try {
+			file.seek(recordPosition);
+			file.readLong();
+			file.readInt();
+			int severity = file.readInt();
+			byte[] data = new byte[file.readInt()];
+			file.readFully(data);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			String path = in.readUTF();
+			int lineNumber = in.readInt();
+			String description = in.readUTF();
+			String variableName = in.readUTF();
+			IResource resource = null;
+			if (path.length() > 0) {
+				resource = ResourcesPlugin.getWorkspace().getRoot().findMember(new Path(path));
+			}
+			return new ProblemMarkerInfo(resource, lineNumber, description, severity,
+					variableName.length() > 0 ? variableName : null);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Writes the record of a problem to the problems file.
+	 *
+	 * @param out - stream of the problems file.
+	 * @param byteOffset - offset of the problem text in the log.
+	 * @param byteLength - length of the problem text in the log.
+	 * @param marker - the problem.
+	 */
+	static void writeProblem(DataOutputStream out, long byteOffset, int byteLength, ProblemMarkerInfo marker) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeUTF(marker.file != null ? marker.file.getFullPath().toString() : ""); //$NON-NLS-1$
+		data.writeInt(marker.lineNumber);
+		data.writeUTF(marker.description != null ? marker.description : ""); //$NON-NLS-1$
+		data.writeUTF(marker.variableName != null ? marker.variableName : ""); //$NON-NLS-1$
+		data.close();
+		out.writeLong(byteOffset);
+		out.writeInt(byteLength);
+		out.writeInt(marker.severity);
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	/**
+	 * Returns the decoded text of the given range of lines.
+	 */
+	String getText(int firstLine, int endLine) throws IOException {
+		long start = getLineByteOffset(firstLine);
+		int length = (int) (getLineCharOffset(endLine) - getLineCharOffset(firstLine));
+		ByteBuffer bytes = read(start, (int) (getLineByteOffset(endLine) - start));
+		StringBuilder text = new StringBuilder(length);
+		for (int line = firstLine; line < endLine; line++) {
+			long lineEnd = getLineByteOffset(line + 1);
+			bytes.limit((int) (lineEnd - getLineByteOffset(firstLine)));
+			fDecoder.reset();
+			while (true) {
+				fChars.clear();
+				CoderResult result = fDecoder.decode(bytes, fChars, true);
+				fChars.flip();
+				text.append(fChars);
+				if (!result.isOverflow()) {
+					break;
+				}
+			}
+			fChars.clear();
+			fDecoder.flush(fChars);
+			fChars.flip();
+			text.append(fChars);
+			start = lineEnd;
+		}
+		fChars.clear();
+		if (text.length() != length) {
+			throw new IOException("Build log changed since indexed: " + fLogFile); //$NON-NLS-1$
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Returns a buffer with the given region of the log, read from the file.
+	 *
+	 * @throws IOException if the log has been truncated since it was indexed.
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		if (fLogChannel == null) {
+			throw new IOException("Build log closed: " + fLogFile); //$NON-NLS-1$
+		}
+		if (fBytes.capacity() < length) {
+			fBytes = ByteBuffer.allocate(length);
+		}
+		fBytes.clear();
+		fBytes.limit(length);
+		while (fBytes.hasRemaining()) {
+			if (fLogChannel.read(fBytes, position + fBytes.position()) < 0) {
+				throw new IOException("Build log changed since indexed: " + fLogFile); //$NON-NLS-1$
+			}
+		}
+		fBytes.flip();
+		return fBytes;
+	}
+
+	/**
+	 * Releases the files of the index.
+	 */
+	void close() {
+		closeQuietly(fLog);
+		fLog = null;
+		fLogChannel = null;
+		synchronized (this) {
+			closeQuietly(fIndex);
+			fIndex = null;
+			fIndexChannel = null;
+			Arrays.fill(fPages, null);
+			Arrays.fill(fPageNumbers, -1);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DefaultLineTracker;
+import org.eclipse.jface.text.ILineTracker;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+
+/**
+ * Read-only line tracker over an indexed build log, answering from the line
+ * offsets persisted by {@link BuildLogIndex}.
+ */
+class BuildLogLineTracker implements ILineTracker {
+
+	private final BuildLogTextStore fStore;
+	private final BuildLogIndex fIndex;
+	private final int fFirstLine;
+	private final long fBase;
+
+	BuildLogLineTracker(BuildLogTextStore store) {
+		fStore = store;
+		fIndex = store.getIndex();
+		fFirstLine = store.getFirstLine();
+		fBase = store.getBase();
+	}
+
+	public String[] getLegalLineDelimiters() {
+		return DefaultLineTracker.DELIMITERS;
+	}
+
+	public String getLineDelimiter(int line) throws BadLocationException {
+		checkLine(line);
+		if (line == getNumberOfLines() - 1) {
+			return null;
+		}
+		int end = lineStart(line + 1);
+		if (fStore.get(end - 1) == '\n') {
+			if (end - 2 >= lineStart(line) && fStore.get(end - 2) == '\r') {
+				return "\r\n"; //$NON-NLS-1$
+			}
+			return "\n"; //$NON-NLS-1$
+		}
+		return "\r"; //$NON-NLS-1$
+	}
+
+	public int computeNumberOfLines(String text) {
+		int count = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '\r') {
+				count++;
+				if (i + 1 < length && text.charAt(i + 1) == '\n') {
+					i++;
+				}
+			} else if (c == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int getNumberOfLines() {
+		return fIndex.getLineCount() - fFirstLine;
+	}
+
+	public int getNumberOfLines(int offset, int length) throws BadLocationException {
+		if (offset < 0 || length < 0 || offset + length > fStore.getLength()) {
+			throw new BadLocationException();
+		}
+		if (length == 0) {
+			return 1;
+		}
+		return getLineNumberOfOffset(offset + length) - getLineNumberOfOffset(offset) + 1;
+	}
+
+	public int getLineOffset(int line) throws BadLocationException {
+		checkLine(line);
+		return lineStart(line);
+	}
+
+	public int getLineLength(int line) throws BadLocationException {
+		checkLine(line);
+		return lineStart(line + 1) - lineStart(line);
+	}
+
+	public int getLineNumberOfOffset(int offset) throws BadLocationException {
+		if (offset < 0 || offset > fStore.getLength()) {
+			throw new BadLocationException();
+		}
+		return fIndex.getLineOfCharOffset(fBase + offset) - fFirstLine;
+	}
+
+	public IRegion getLineInformationOfOffset(int offset) throws BadLocationException {
+		return getLineInformation(getLineNumberOfOffset(offset));
+	}
+
+	public IRegion getLineInformation(int line) throws BadLocationException {
+		checkLine(line);
+		int start = lineStart(line);
+		int length = lineStart(line + 1) - start;
+		String delimiter = getLineDelimiter(line);
+		if (delimiter != null) {
+			length -= delimiter.length();
+		}
+		return new Region(start, length);
+	}
+
+	/**
+	 * The build log is read-only.
+	 */
+	public void replace(int offset, int length, String text) throws BadLocationException {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The build log is read-only.
+	 */
+	public void set(String text) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Returns the start of the given line, or the length of the text for the line after the last.
+	 */
+	private int lineStart(int line) {
+		return (int) (fIndex.getLineCharOffset(fFirstLine + line) - fBase);
+	}
+
+	private void checkLine(int line) throws BadLocationException {
+		if (line < 0 || line >= getNumberOfLines()) {
+			throw new BadLocationException();
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.ITypedRegion;
+
+import org.eclipse.cdt.core.ProblemMarkerInfo;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * Partitioner of a {@link BuildLogDocument}. Partitions are derived on demand
+ * from the problems in the log index, problem partitions cover whole lines.
+ * Navigation between problems follows {@link DocumentMarkerManager}.
+ */
+class BuildLogPartitioner implements IDocumentPartitioner {
+
+	final BuildConsoleManager fManager;
+	private final BuildConsoleStreamDecorator fStream;
+	private final BuildLogDocument fDocument;
+	private final BuildLogIndex fIndex;
+	/** First problem shown in the document */
+	private final int fFirstProblem;
+	private int fCurrentProblem = -1;
+	/** Number of problems shown by marker severity, counted when first needed */
+	private int[] fSeverityCounts;
+
+	/**
+	 * @param document - the full build log.
+	 * @param stream - stream the log is shown with.
+	 * @param manager - the build console manager.
+	 */
+	BuildLogPartitioner(BuildLogDocument document, BuildConsoleStreamDecorator stream, BuildConsoleManager manager) {
+		fDocument = document;
+		fStream = stream;
+		fManager = manager;
+		fIndex = document.getIndex();
+		fFirstProblem = fIndex.getFirstProblemEndingAfter(fIndex.getLineByteOffset(document.getFirstLine()));
+	}
+
+	BuildLogDocument getDocument() {
+		return fDocument;
+	}
+
+	public void connect(IDocument document) {
+	}
+
+	public void disconnect() {
+		fDocument.setDocumentPartitioner(null);
+	}
+
+	public void documentAboutToBeChanged(DocumentEvent event) {
+	}
+
+	public boolean documentChanged(DocumentEvent event) {
+		return false;
+	}
+
+	public String[] getLegalContentTypes() {
+		return new String[]{BuildConsolePartition.CONSOLE_PARTITION_TYPE,
+				BuildConsolePartition.ERROR_PARTITION_TYPE,
+				BuildConsolePartition.WARNING_PARTITION_TYPE,
+				BuildConsolePartition.INFO_PARTITION_TYPE};
+	}
+
+	public String getContentType(int offset) {
+		return getPartition(offset).getType();
+	}
+
+	/**
+	 * Returns the partitions touching the given range. Problem partitions are
+	 * returned whole, the text around them is covered by console partitions.
+	 */
+	public ITypedRegion[] computePartitioning(int offset, int length) {
+		List<ITypedRegion> partitions = new ArrayList<ITypedRegion>();
+		int end = offset + length;
+		int position = offset;
+		for (int problem = firstProblemEndingAfter(offset); problem < fIndex.getProblemCount(); problem++) {
+			int start = problemStart(problem);
+			if (start > end || (start == end && length > 0)) {
+				break;
+			}
+			int problemEnd = problemEnd(problem);
+			if (problemEnd <= position && !partitions.isEmpty()) {
+				// shares its lines with the previous problem
+				continue;
+			}
+			if (start > position) {
+				partitions.add(new BuildConsolePartition(fStream, position, start - position,
+						BuildConsolePartition.CONSOLE_PARTITION_TYPE));
+			}
+			partitions.add(createProblemPartition(problem));
+			position = Math.max(position, problemEnd);
+			if (position >= end) {
+				break;
+			}
+		}
+		if (position < end || partitions.isEmpty()) {
+			partitions.add(new BuildConsolePartition(fStream, position, Math.max(end - position, 0),
+					BuildConsolePartition.CONSOLE_PARTITION_TYPE));
+		}
+		return partitions.toArray(new ITypedRegion[partitions.size()]);
+	}
+
+	public ITypedRegion getPartition(int offset) {
+		ITypedRegion[] partitions = computePartitioning(offset, offset < fDocument.getLength() ? 1 : 0);
+		for (ITypedRegion partition : partitions) {
+			if (offset >= partition.getOffset() && offset < partition.getOffset() + partition.getLength()) {
+				return partition;
+			}
+		}
+		return partitions[partitions.length - 1];
+	}
+
+	void moveToNextError() {
+		if (fFirstProblem == fIndex.getProblemCount()) return;
+		if (fCurrentProblem == -1 || fCurrentProblem + 1 == fIndex.getProblemCount()) {
+			moveToFirstError();
+		} else {
+			fCurrentProblem++;
+		}
+	}
+
+	void moveToPreviousError() {
+		if (fFirstProblem == fIndex.getProblemCount()) return;
+		if (fCurrentProblem == -1) {
+			moveToFirstError();
+		} else if (fCurrentProblem == fFirstProblem) {
+			fCurrentProblem = fIndex.getProblemCount() - 1;
+		} else {
+			fCurrentProblem--;
+		}
+	}
+
+	void moveToFirstError() {
+		fCurrentProblem = fFirstProblem < fIndex.getProblemCount() ? fFirstProblem : -1;
+	}
+
+	/** Moves to the given problem, returns false if there is no such problem */
+	boolean moveToError(int problem) {
+		if (problem < 0 || fFirstProblem + problem >= fIndex.getProblemCount()) {
+			return false;
+		}
+		fCurrentProblem = fFirstProblem + problem;
+		return true;
+	}
+
+	/** Returns the number of problems of the given marker severity */
+	int getProblemCount(int severity) {
+		if (fSeverityCounts == null) {
+			fSeverityCounts = new int[3];
+			for (int problem = fFirstProblem; problem < fIndex.getProblemCount(); problem++) {
+				int s = fIndex.getProblemSeverity(problem);
+				fSeverityCounts[s >= 0 && s < fSeverityCounts.length ? s : IMarker.SEVERITY_ERROR]++;
+			}
+		}
+		return fSeverityCounts[severity];
+	}
+
+	/** Returns true if offset points to error partition and false otherwise */
+	boolean moveToErrorByOffset(int offset) {
+		int problem = firstProblemEndingAfter(offset);
+		if (problem < fIndex.getProblemCount() && problemStart(problem) <= offset && offset < problemEnd(problem)) {
+			fCurrentProblem = problem;
+			return true;
+		}
+		return false;
+	}
+
+	/** Get partition for current error */
+	BuildConsolePartition getCurrentPartition() {
+		if (fCurrentProblem == -1) {
+			return null;
+		}
+		return createProblemPartition(fCurrentProblem);
+	}
+
+	/** Get marker for current error, read from the problems recorded with the log */
+	ProblemMarkerInfo getCurrentErrorMarker() {
+		if (fCurrentProblem == -1) {
+			return null;
+		}
+		try {
+			return fIndex.readMarker(fCurrentProblem);
+		} catch (IOException e) {
+			CUIPlugin.log(e);
+			return null;
+		}
+	}
+
+	private BuildConsolePartition createProblemPartition(int problem) {
+		int start = problemStart(problem);
+		return new BuildConsolePartition(fStream, start, problemEnd(problem) - start,
+				BuildConsolePartition.getProblemPartitionType(fIndex.getProblemSeverity(problem)));
+	}
+
+	private int firstProblemEndingAfter(int offset) {
+		int line = fIndex.getLineOfCharOffset(fDocument.getBase() + offset);
+		return Math.max(fFirstProblem, fIndex.getFirstProblemEndingAfter(fIndex.getLineByteOffset(line)));
+	}
+
+	/**
+	 * Returns the document offset of the first line of the given problem.
+	 */
+	private int problemStart(int problem) {
+		int line = fIndex.getLineOfByteOffset(fIndex.getProblemByteOffset(problem));
+		return (int) Math.max(fIndex.getLineCharOffset(line) - fDocument.getBase(), 0);
+	}
+
+	/**
+	 * Returns the document offset following the last line of the given problem.
+	 */
+	private int problemEnd(int problem) {
+		long offset = fIndex.getProblemByteOffset(problem);
+		long last = offset + Math.max(fIndex.getProblemByteLength(problem) - 1, 0);
+		int line = fIndex.getLineOfByteOffset(last);
+		return (int) (fIndex.getLineCharOffset(line + 1) - fDocument.getBase());
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.eclipse.jface.text.ITextStore;
+
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * Read-only text store over an indexed build log. Text is decoded on demand in
+ * blocks of whole lines, only the most recently used block is kept. Logs longer
+ * than a document can address are shown from the first line of their last
+ * {@link Integer#MAX_VALUE} characters.
+ */
+class BuildLogTextStore implements ITextStore {
+
+	/** Number of characters decoded at a time, unless a line is longer */
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	private final BuildLogIndex fIndex;
+	/** Line of the log at the start of the store */
+	private final int fFirstLine;
+	/** Character offset of {@link #fFirstLine} in the decoded log */
+	private final long fBase;
+	private final int fLength;
+
+	/** Decoded text starting at {@link #fBlockOffset} */
+	private String fBlock = ""; //$NON-NLS-1$
+	private int fBlockOffset;
+
+	BuildLogTextStore(BuildLogIndex index) {
+		fIndex = index;
+		long charCount = index.getCharCount();
+		int firstLine = 0;
+		if (charCount > Integer.MAX_VALUE) {
+			firstLine = index.getLineOfCharOffset(charCount - Integer.MAX_VALUE);
+			if (charCount - index.getLineCharOffset(firstLine) > Integer.MAX_VALUE) {
+				firstLine++;
+			}
+		}
+		fFirstLine = firstLine;
+		fBase = index.getLineCharOffset(firstLine);
+		fLength = (int) (charCount - fBase);
+	}
+
+	BuildLogIndex getIndex() {
+		return fIndex;
+	}
+
+	int getFirstLine() {
+		return fFirstLine;
+	}
+
+	long getBase() {
+		return fBase;
+	}
+
+	/**
+	 * @see ITextStore#get(int)
+	 */
+	public char get(int pos) {
+		if (pos < 0 || pos >= fLength) {
+			throw new StringIndexOutOfBoundsException(pos);
+		}
+		if (pos < fBlockOffset || pos >= fBlockOffset + fBlock.length()) {
+			load(pos);
+		}
+		return fBlock.charAt(pos - fBlockOffset);
+	}
+
+	/**
+	 * @see ITextStore#get(int, int)
+	 */
+	public String get(int pos, int length) {
+		if (pos < 0 || length < 0 || pos + length > fLength) {
+			throw new StringIndexOutOfBoundsException(pos);
+		}
+		int end = pos + length;
+		if (pos < fBlockOffset || end > fBlockOffset + fBlock.length()) {
+			load(pos);
+		}
+		if (end <= fBlockOffset + fBlock.length()) {
+			return fBlock.substring(pos - fBlockOffset, end - fBlockOffset);
+		}
+		StringBuilder text = new StringBuilder(length);
+		while (pos < end) {
+			if (pos >= fBlockOffset + fBlock.length()) {
+				load(pos);
+			}
+			int count = Math.min(end, fBlockOffset + fBlock.length()) - pos;
+			text.append(fBlock, pos - fBlockOffset, pos - fBlockOffset + count);
+			pos += count;
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @see ITextStore#getLength()
+	 */
+	public int getLength() {
+		return fLength;
+	}
+
+	/**
+	 * The build log is read-only.
+	 *
+	 * @see ITextStore#replace(int, int, String)
+	 */
+	public void replace(int offset, int length, String text) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The build log is read-only.
+	 *
+	 * @see ITextStore#set(String)
+	 */
+	public void set(String text) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Decodes the block of lines starting with the line containing the given offset.
+	 */
+	private void load(int pos) {
+		int firstLine = fIndex.getLineOfCharOffset(fBase + pos);
+		long start = fIndex.getLineCharOffset(firstLine);
+		int lineCount = fIndex.getLineCount();
+		int endLine = firstLine + 1;
+		while (endLine < lineCount && fIndex.getLineCharOffset(endLine + 1) - start <= BLOCK_SIZE) {
+			endLine++;
+		}
+		fBlockOffset = (int) (start - fBase);
+		try {
+			fBlock = fIndex.getText(firstLine, endLine);
+		} catch (IOException e) {
+			CUIPlugin.log(e);
+			// keep offsets intact
+			char[] blanks = new char[(int) (fIndex.getLineCharOffset(endLine) - start)];
+			Arrays.fill(blanks, ' ');
+			fBlock = new String(blanks);
+		}
+	}
+}
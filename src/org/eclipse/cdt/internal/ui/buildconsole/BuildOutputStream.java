@@ -14,6 +14,11 @@
 package org.eclipse.cdt.internal.ui.buildconsole;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import org.eclipse.cdt.core.ConsoleOutputStream;
 import org.eclipse.cdt.core.ProblemMarkerInfo;
@@ -22,13 +27,25 @@ import org.eclipse.cdt.internal.core.IErrorMarkeredOutputStream;
 
 /**
  * Output stream which put all output to BuildConsolePartitioner 
- * and informs it when stream is closed
+ * and informs it when stream is closed.
+ * <p>
+ * Bytes are passed to the build log as they are and decoded once for the console.
+ * The decoder keeps its state between writes, so characters split across
+ * writes are decoded correctly.
  */
 public class BuildOutputStream extends ConsoleOutputStream implements IErrorMarkeredOutputStream {
 
+	private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
 	final BuildConsoleStreamDecorator fStream;
 	private BuildConsolePartitioner fPartitioner;
 
+	private final CharsetDecoder fDecoder;
+	/** Decoded characters, reused for all writes */
+	private final CharBuffer fChars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+	/** Bytes of an incomplete character left over from the previous write */
+	private ByteBuffer fPartialBytes = ByteBuffer.allocate(16);
+
 	public BuildOutputStream(BuildConsolePartitioner partitioner, 
 			BuildConsoleStreamDecorator stream) {
 		fPartitioner = partitioner;
@@ -39,6 +56,9 @@ public class BuildOutputStream extends ConsoleOutputStream implements IErrorMark
 		else
 			fPartitioner.setStreamOpened();
 		fStream = stream;
+		fDecoder = fPartitioner.getCharset().newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
 	}
 
 	@Override
@@ -46,14 +66,76 @@ public class BuildOutputStream extends ConsoleOutputStream implements IErrorMark
 	}
 
 	@Override
-	public void close() throws IOException {
+	public synchronized void close() throws IOException {
 		flush();
+		// decode bytes of an incomplete character, if any
+		fPartialBytes.flip();
+		decode(fPartialBytes, true);
+		fPartialBytes.clear();
+		fDecoder.flush(fChars);
+		appendChars();
+		fDecoder.reset();
 		fPartitioner.setStreamClosed();
 	}
 
 	@Override
-	public void write(byte[] b, int off, int len) throws IOException {
-		fPartitioner.appendToDocument(new String(b, off, len), fStream, null);
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		fPartitioner.appendToLog(b, off, len);
+
+		ByteBuffer in;
+		if (fPartialBytes.position() == 0) {
+			in = ByteBuffer.wrap(b, off, len);
+		} else {
+			// complete the character left over from the previous write
+			if (fPartialBytes.remaining() < len) {
+				ByteBuffer bytes = ByteBuffer.allocate(fPartialBytes.position() + len);
+				fPartialBytes.flip();
+				bytes.put(fPartialBytes);
+				fPartialBytes = bytes;
+			}
+			fPartialBytes.put(b, off, len);
+			fPartialBytes.flip();
+			in = fPartialBytes;
+		}
+		decode(in, false);
+		appendChars();
+
+		// keep bytes of an incomplete character for the next write
+		if (in == fPartialBytes) {
+			fPartialBytes.compact();
+			if (fPartialBytes.capacity() > CHAR_BUFFER_SIZE) {
+				fPartialBytes.flip();
+				fPartialBytes = ByteBuffer.allocate(16).put(fPartialBytes);
+			}
+		} else {
+			fPartialBytes.clear();
+			if (in.hasRemaining()) {
+				if (fPartialBytes.capacity() < in.remaining()) {
+					fPartialBytes = ByteBuffer.allocate(in.remaining());
+				}
+				fPartialBytes.put(in);
+			}
+		}
+	}
+
+	private void decode(ByteBuffer in, boolean endOfInput) {
+		while (true) {
+			CoderResult result = fDecoder.decode(in, fChars, endOfInput);
+			if (!result.isOverflow()) {
+				break;
+			}
+			appendChars();
+		}
+	}
+
+	/**
+	 * Passes the decoded characters to the console.
+	 */
+	private void appendChars() {
+		if (fChars.position() > 0) {
+			fPartitioner.appendToConsole(new String(fChars.array(), 0, fChars.position()), fStream, null);
+			fChars.clear();
+		}
 	}
 
 	public void write(String s, ProblemMarkerInfo marker) throws IOException {
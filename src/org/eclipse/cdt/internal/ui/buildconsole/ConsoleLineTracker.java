@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DefaultLineTracker;
+import org.eclipse.jface.text.ILineTracker;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextStore;
+import org.eclipse.jface.text.Region;
+
+/**
+ * Line tracker for the build console, recognizing the same delimiters as
+ * {@link DefaultLineTracker}. Line start offsets are kept in an array relative to
+ * a base offset, so that appending text and removing leading lines on overflow
+ * do not shift the remaining entries. Any other modification recomputes the lines
+ * from the text store, which the document updates before the tracker.
+ */
+public class ConsoleLineTracker implements ILineTracker {
+
+	private final ITextStore fStore;
+
+	/** Line start offsets plus {@link #fBase}, valid from {@link #fHead} */
+	private int[] fStarts = new int[256];
+	/** Index of the first line in {@link #fStarts} */
+	private int fHead;
+	/** Number of lines, at least one */
+	private int fCount = 1;
+	/** Length of the text removed from the head since the last compaction */
+	private int fBase;
+	/** Length of the tracked text */
+	private int fLength;
+
+	public ConsoleLineTracker(ITextStore store) {
+		fStore = store;
+	}
+
+	public String[] getLegalLineDelimiters() {
+		return DefaultLineTracker.DELIMITERS;
+	}
+
+	public String getLineDelimiter(int line) throws BadLocationException {
+		checkLine(line);
+		if (line == fCount - 1) {
+			return null;
+		}
+		int end = lineStart(line + 1);
+		if (fStore.get(end - 1) == '\r') {
+			return "\r"; //$NON-NLS-1$
+		}
+		if (end - 2 >= lineStart(line) && fStore.get(end - 2) == '\r') {
+			return "\r\n"; //$NON-NLS-1$
+		}
+		return "\n"; //$NON-NLS-1$
+	}
+
+	public int computeNumberOfLines(String text) {
+		int count = 0;
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '\r') {
+				count++;
+				if (i + 1 < length && text.charAt(i + 1) == '\n') {
+					i++;
+				}
+			} else if (c == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public int getNumberOfLines() {
+		return fCount;
+	}
+
+	public int getNumberOfLines(int offset, int length) throws BadLocationException {
+		if (offset < 0 || length < 0 || offset + length > fLength) {
+			throw new BadLocationException();
+		}
+		if (length == 0) {
+			return 1;
+		}
+		return getLineNumberOfOffset(offset + length) - getLineNumberOfOffset(offset) + 1;
+	}
+
+	public int getLineOffset(int line) throws BadLocationException {
+		checkLine(line);
+		return lineStart(line);
+	}
+
+	public int getLineLength(int line) throws BadLocationException {
+		checkLine(line);
+		return lineEnd(line) - lineStart(line);
+	}
+
+	public int getLineNumberOfOffset(int offset) throws BadLocationException {
+		if (offset < 0 || offset > fLength) {
+			throw new BadLocationException();
+		}
+		// binary search for the last line starting at or before offset
+		int target = offset + fBase;
+		int low = fHead;
+		int high = fHead + fCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (fStarts[mid] <= target) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low - fHead;
+	}
+
+	public IRegion getLineInformationOfOffset(int offset) throws BadLocationException {
+		return getLineInformation(getLineNumberOfOffset(offset));
+	}
+
+	public IRegion getLineInformation(int line) throws BadLocationException {
+		checkLine(line);
+		int start = lineStart(line);
+		int length = lineEnd(line) - start;
+		String delimiter = getLineDelimiter(line);
+		if (delimiter != null) {
+			length -= delimiter.length();
+		}
+		return new Region(start, length);
+	}
+
+	public void replace(int offset, int length, String text) throws BadLocationException {
+		if (text == null) {
+			text = ""; //$NON-NLS-1$
+		}
+		if (offset < 0 || length < 0 || offset + length > fLength) {
+			throw new BadLocationException();
+		}
+		if (length == 0 && offset == fLength) {
+			append(text);
+		} else if (offset == 0 && text.length() == 0 && removeHead(length)) {
+			// leading lines removed
+		} else {
+			set(fStore.get(0, fStore.getLength()));
+		}
+	}
+
+	public void set(String text) {
+		fStarts = new int[Math.max(256, computeNumberOfLines(text) + 1)];
+		fHead = 0;
+		fCount = 1;
+		fBase = 0;
+		fLength = 0;
+		append(text);
+	}
+
+	private void append(String text) {
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			int offset = fLength + i;
+			if (c == '\n') {
+				boolean afterCR = i > 0 ? text.charAt(i - 1) == '\r' : offset > 0 && fStore.get(offset - 1) == '\r';
+				if (afterCR && fStarts[fHead + fCount - 1] == offset + fBase) {
+					// "\r\n" is a single delimiter, move the start set after '\r'
+					fStarts[fHead + fCount - 1]++;
+				} else {
+					addStart(offset + 1);
+				}
+			} else if (c == '\r') {
+				addStart(offset + 1);
+			}
+		}
+		fLength += length;
+	}
+
+	/**
+	 * Removes the given number of characters from the head provided they end at
+	 * a line start.
+	 *
+	 * @return {@code false} if the removed text does not end at a line start.
+	 */
+	private boolean removeHead(int length) throws BadLocationException {
+		int line = getLineNumberOfOffset(length);
+		if (lineStart(line) != length) {
+			return false;
+		}
+		fHead += line;
+		fCount -= line;
+		fBase += length;
+		fLength -= length;
+		if (fHead > fCount) {
+			compact(fStarts.length);
+		}
+		return true;
+	}
+
+	private void addStart(int offset) {
+		if (fHead + fCount == fStarts.length) {
+			compact(fCount * 2 > fStarts.length ? fStarts.length * 2 : fStarts.length);
+		}
+		fStarts[fHead + fCount] = offset + fBase;
+		fCount++;
+	}
+
+	/**
+	 * Moves the lines to the beginning of an array of the given capacity and
+	 * rebases their offsets.
+	 */
+	private void compact(int capacity) {
+		int[] starts = capacity == fStarts.length ? fStarts : new int[capacity];
+		for (int i = 0; i < fCount; i++) {
+			starts[i] = fStarts[fHead + i] - fBase;
+		}
+		fStarts = starts;
+		fHead = 0;
+		fBase = 0;
+	}
+
+	private int lineStart(int line) {
+		return fStarts[fHead + line] - fBase;
+	}
+
+	private int lineEnd(int line) {
+		return line == fCount - 1 ? fLength : lineStart(line + 1);
+	}
+
+	private void checkLine(int line) throws BadLocationException {
+		if (line < 0 || line >= fCount) {
+			throw new BadLocationException();
+		}
+	}
+}
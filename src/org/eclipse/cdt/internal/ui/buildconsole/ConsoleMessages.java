@@ -23,6 +23,7 @@ public final class ConsoleMessages extends NLS {
 	}
 
 	public static String BuildConsole_GlobalConsole;
+	public static String BuildConsoleLogWriter_JobName;
 	public static String find_replace_action_label;
 	public static String find_replace_action_tooltip;
 	public static String find_replace_action_image;
@@ -35,6 +36,14 @@ public final class ConsoleMessages extends NLS {
 	public static String PreviousErrorAction_Tooltip;
 	public static String NextErrorAction_Tooltip;
 	public static String ShowErrorAction_Tooltip;
+	public static String GoToErrorAction_Tooltip;
+	public static String GoToErrorAction_Title;
+	public static String GoToErrorAction_Message;
+	public static String GoToErrorAction_InvalidNumber;
+	public static String GoToErrorAction_NoProblems;
+	public static String FullLogAction_Tooltip;
+	public static String FullLogAction_JobName;
+	public static String FullLogAction_ErrorReadingLog;
 	public static String CBuildConsole_Console_Must_Be_Started_First;
 	public static String CopyLog_ActionTooltip;
 	public static String CopyLog_BuildNotLogged;
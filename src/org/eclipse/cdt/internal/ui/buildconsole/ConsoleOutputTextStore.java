@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2006 QNX Software Systems and others.
+ * Copyright (c) 2002, 2010 QNX Software Systems and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,33 +12,69 @@ package org.eclipse.cdt.internal.ui.buildconsole;
 
 import org.eclipse.jface.text.ITextStore;
 
+/**
+ * Text store for the build console. The text is kept in fixed size chunks held
+ * in a ring, so that appending never copies the existing text and removing text
+ * from the start of the console (on overflow) merely releases leading chunks.
+ * Replacements elsewhere are supported, but rebuild the store.
+ */
 public class ConsoleOutputTextStore implements ITextStore {
 
-	private StringBuffer fBuffer;
+	private static final int CHUNK_SHIFT = 14;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** Ring of chunks, the capacity is always a power of two */
+	private char[][] fChunks;
+	/** Ring index of the first chunk in use */
+	private int fFirstChunk;
+	/** Number of chunks in use */
+	private int fChunkCount;
+	/** Offset of the first character within the first chunk */
+	private int fStart;
+	/** Length of the text */
+	private int fLength;
 
 	public ConsoleOutputTextStore(int bufferSize) {
-		fBuffer = new StringBuffer(bufferSize);
+		fChunks = new char[ringCapacity(bufferSize)][];
 	}
 
 	/**
 	 * @see ITextStore#get(int)
 	 */
 	public char get(int pos) {
-		return fBuffer.charAt(pos);
+		if (pos < 0 || pos >= fLength) {
+			throw new StringIndexOutOfBoundsException(pos);
+		}
+		int index = fStart + pos;
+		return chunk(index >>> CHUNK_SHIFT)[index & CHUNK_MASK];
 	}
 
 	/**
 	 * @see ITextStore#get(int, int)
 	 */
 	public String get(int pos, int length) {
-		return fBuffer.substring(pos, pos + length);
+		if (pos < 0 || length < 0 || pos + length > fLength) {
+			throw new StringIndexOutOfBoundsException(pos);
+		}
+		char[] result = new char[length];
+		int index = fStart + pos;
+		int copied = 0;
+		while (copied < length) {
+			int inChunk = index & CHUNK_MASK;
+			int count = Math.min(CHUNK_SIZE - inChunk, length - copied);
+			System.arraycopy(chunk(index >>> CHUNK_SHIFT), inChunk, result, copied, count);
+			copied += count;
+			index += count;
+		}
+		return new String(result);
 	}
 
 	/**
 	 * @see ITextStore#getLength()
 	 */
 	public int getLength() {
-		return fBuffer.length();
+		return fLength;
 	}
 
 	/**
@@ -48,20 +84,118 @@ public class ConsoleOutputTextStore implements ITextStore {
 		if (text == null) {
 			text = ""; //$NON-NLS-1$
 		}
-		fBuffer.replace(pos, pos + length, text);
+		if (pos < 0 || length < 0 || pos + length > fLength) {
+			throw new StringIndexOutOfBoundsException(pos);
+		}
+		if (pos + length == fLength) {
+			// replacement at the end, typically an append
+			fLength = pos;
+			releaseTrailingChunks();
+			append(text);
+		} else if (pos == 0 && text.length() == 0) {
+			// truncation of the head on overflow
+			removeHead(length);
+		} else {
+			String content = get(0, fLength);
+			set(content.substring(0, pos) + text + content.substring(pos + length));
+		}
 	}
 
 	/**
 	 * @see ITextStore#set(String)
 	 */
 	public void set(String text) {
-		fBuffer = new StringBuffer(text);
+		if (text == null) {
+			text = ""; //$NON-NLS-1$
+		}
+		fChunks = new char[ringCapacity(text.length())][];
+		fFirstChunk = 0;
+		fChunkCount = 0;
+		fStart = 0;
+		fLength = 0;
+		append(text);
 	}
 
 	/**
-	 * @see StringBuffer#ensureCapacity(int)
+	 * Ensures the ring can address the given number of characters without growing.
 	 */
 	public void setMinimalBufferSize(int bufferSize) {
-		fBuffer.ensureCapacity(bufferSize);
+		int capacity = ringCapacity(bufferSize);
+		if (capacity > fChunks.length) {
+			growRing(capacity);
+		}
+	}
+
+	private void append(String text) {
+		int length = text.length();
+		int copied = 0;
+		while (copied < length) {
+			int index = fStart + fLength;
+			int chunkIndex = index >>> CHUNK_SHIFT;
+			if (chunkIndex == fChunkCount) {
+				addChunk();
+			}
+			int inChunk = index & CHUNK_MASK;
+			int count = Math.min(CHUNK_SIZE - inChunk, length - copied);
+			text.getChars(copied, copied + count, chunk(chunkIndex), inChunk);
+			copied += count;
+			fLength += count;
+		}
+	}
+
+	private void removeHead(int length) {
+		fStart += length;
+		fLength -= length;
+		int dropped = fStart >>> CHUNK_SHIFT;
+		for (int i = 0; i < dropped; i++) {
+			fChunks[fFirstChunk] = null;
+			fFirstChunk = (fFirstChunk + 1) & (fChunks.length - 1);
+		}
+		fChunkCount -= dropped;
+		fStart &= CHUNK_MASK;
+		if (fChunkCount == 0) {
+			fStart = 0;
+		}
+	}
+
+	private void releaseTrailingChunks() {
+		int used = (fStart + fLength + CHUNK_MASK) >>> CHUNK_SHIFT;
+		while (fChunkCount > used) {
+			fChunkCount--;
+			fChunks[(fFirstChunk + fChunkCount) & (fChunks.length - 1)] = null;
+		}
+		if (fChunkCount == 0) {
+			fStart = 0;
+		}
+	}
+
+	private void addChunk() {
+		if (fChunkCount == fChunks.length) {
+			growRing(fChunks.length * 2);
+		}
+		fChunks[(fFirstChunk + fChunkCount) & (fChunks.length - 1)] = new char[CHUNK_SIZE];
+		fChunkCount++;
+	}
+
+	private void growRing(int capacity) {
+		char[][] chunks = new char[capacity][];
+		for (int i = 0; i < fChunkCount; i++) {
+			chunks[i] = chunk(i);
+		}
+		fChunks = chunks;
+		fFirstChunk = 0;
+	}
+
+	private char[] chunk(int chunkIndex) {
+		return fChunks[(fFirstChunk + chunkIndex) & (fChunks.length - 1)];
+	}
+
+	private static int ringCapacity(int bufferSize) {
+		int chunks = (bufferSize >>> CHUNK_SHIFT) + 1;
+		int capacity = 4;
+		while (capacity < chunks) {
+			capacity <<= 1;
+		}
+		return capacity;
 	}
 }
@@ -11,8 +11,6 @@
 
 package org.eclipse.cdt.internal.ui.buildconsole;
 
-import org.eclipse.jface.text.ITypedRegion;
-
 import org.eclipse.cdt.core.ProblemMarkerInfo;
 
 /**
@@ -23,7 +21,8 @@ class DocumentMarkerManager {
 	BuildConsoleDocument fDocument; 
 	BuildConsolePartitioner fPartitioner;
 	
-	int highlightedPartitionIndex = -1;
+	/** Index of the highlighted problem among the problem partitions */
+	int highlightedProblemIndex = -1;
 	
 	DocumentMarkerManager(BuildConsoleDocument document, BuildConsolePartitioner partitioner) {
 		fDocument = document;
@@ -32,71 +31,63 @@ class DocumentMarkerManager {
 
 	/** Increment index */
 	void moveToNextError() {				
-		if ( fPartitioner.fPartitions.size() == 0 ) return;
-		if ( highlightedPartitionIndex == -1 ) { 
+		int count = fPartitioner.fPartitions.getProblemCount();
+		if ( count == 0 ) return;
+		if ( highlightedProblemIndex == -1 ) { 
 			moveToFirstError();
 			return;
 		}
-		int i = highlightedPartitionIndex + 1; 
-		do {
-			if ( i == fPartitioner.fPartitions.size() ) {
-				i = 0;
-			}
-			String type = fPartitioner.fPartitions.get(i).getType();
-			if (BuildConsolePartition.isProblemPartitionType(type)) {
-				highlightedPartitionIndex = i;
-				return;
-			} else {
-				i++;
-			}
-		} while ( highlightedPartitionIndex != i);
+		highlightedProblemIndex = (highlightedProblemIndex + 1) % count;
 	}
 	
 	/** Decrement index */
 	void moveToPreviousError() {	
-		if ( fPartitioner.fPartitions.size() == 0 ) return;
-		if ( highlightedPartitionIndex == -1 ) { 
+		int count = fPartitioner.fPartitions.getProblemCount();
+		if ( count == 0 ) return;
+		if ( highlightedProblemIndex == -1 ) { 
 			moveToFirstError();
 			return;
 		}
-		
-		int i = highlightedPartitionIndex - 1; 
-		do {
-			if ( i == -1 ) {
-				i = fPartitioner.fPartitions.size() - 1;
-			}
-			String type = fPartitioner.fPartitions.get(i).getType();
-			if (BuildConsolePartition.isProblemPartitionType(type)) {
-				highlightedPartitionIndex = i;
-				return;
-			} else {
-				i--;
-			}
-		} while ( highlightedPartitionIndex != i);
+		highlightedProblemIndex = (highlightedProblemIndex + count - 1) % count;
 	}
 	
 	void moveToFirstError() {
-		for (int i=0; i<fPartitioner.fPartitions.size(); i++) {
-			String type = fPartitioner.fPartitions.get(i).getType();
-			if (BuildConsolePartition.isProblemPartitionType(type)) {
-				highlightedPartitionIndex = i;
-				return;			
-			}
+		highlightedProblemIndex = fPartitioner.fPartitions.getProblemCount() > 0 ? 0 : -1;
+	}
+
+	/** Moves to the given problem, returns false if there is no such problem */
+	boolean moveToError(int problem) {
+		if (problem < 0 || problem >= fPartitioner.fPartitions.getProblemCount()) {
+			return false;
 		}
-		highlightedPartitionIndex = -1;
+		highlightedProblemIndex = problem;
+		return true;
 	}
 
 	/** Returns true if offset points to error partition and false otherwise */
 	boolean moveToErrorByOffset(int offset) {
-		ITypedRegion p = fPartitioner.getPartition(offset);
-		String type = p.getType();
-		if (BuildConsolePartition.isProblemPartitionType(type)) {
-			highlightedPartitionIndex = fPartitioner.fPartitions.indexOf(p);
+		int index = fPartitioner.fPartitions.indexOf(offset);
+		if (index >= 0 && BuildConsolePartition.isProblemPartitionType(fPartitioner.fPartitions.getType(index))) {
+			highlightedProblemIndex = fPartitioner.fPartitions.indexOfProblem(index);
 			return true;
 		}
 		return false;
 	}
 
+	/** Adjusts index after leading problems have been removed on overflow */
+	void problemsRemoved(int count) {
+		if (highlightedProblemIndex >= count) {
+			highlightedProblemIndex -= count;
+		} else if (highlightedProblemIndex >= 0) {
+			moveToFirstError();
+		}
+	}
+
+	/** Returns the number of problems of the given marker severity */
+	int getProblemCount(int severity) {
+		return fPartitioner.fPartitions.getProblemCount(severity);
+	}
+
 	/** Get marker for current error */
 	ProblemMarkerInfo getCurrentErrorMarker() {
 		BuildConsolePartition p = getCurrentPartition();
@@ -109,15 +100,14 @@ class DocumentMarkerManager {
 
 	/** Get partition for current error */
 	BuildConsolePartition getCurrentPartition() {
-		if ( 0 <= highlightedPartitionIndex && 	
-				highlightedPartitionIndex < fPartitioner.fPartitions.size() ) {
-			BuildConsolePartition p = (BuildConsolePartition)fPartitioner.fPartitions.get(highlightedPartitionIndex);
-			return p;
+		if ( 0 <= highlightedProblemIndex && 	
+				highlightedProblemIndex < fPartitioner.fPartitions.getProblemCount() ) {
+			return fPartitioner.fPartitions.get(fPartitioner.fPartitions.getProblemPartitionIndex(highlightedProblemIndex));
 		}
 		return null;
 	}	
 	
 	void clear() {
-		highlightedPartitionIndex = -1;		
+		highlightedProblemIndex = -1;		
 	}
 }
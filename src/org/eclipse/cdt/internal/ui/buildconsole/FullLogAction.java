@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+
+/**
+ * Toggles between the build console and the full build log
+ */
+public class FullLogAction extends Action {
+
+	private BuildConsolePage fConsolePage;
+
+	public FullLogAction(BuildConsolePage page) {
+		super(ConsoleMessages.FullLogAction_Tooltip, IAction.AS_CHECK_BOX);
+		fConsolePage = page;
+		setChecked(false);
+		setToolTipText(ConsoleMessages.FullLogAction_Tooltip);
+		ISharedImages images = PlatformUI.getWorkbench().getSharedImages();
+		setImageDescriptor(images.getImageDescriptor(ISharedImages.IMG_OBJ_FILE));
+	}
+
+	/**
+	 * @see org.eclipse.jface.action.IAction#run()
+	 */
+	@Override
+	public void run() {
+		fConsolePage.setFullLog(isChecked());
+	}
+
+}
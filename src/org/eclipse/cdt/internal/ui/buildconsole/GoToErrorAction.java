@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.buildconsole;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.dialogs.IInputValidator;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Shell;
+
+import org.eclipse.cdt.internal.ui.CPluginImages;
+
+/**
+ * Moves the console to a problem given by its number
+ */
+public class GoToErrorAction extends Action {
+
+	private BuildConsolePage fConsolePage;
+
+	public GoToErrorAction(BuildConsolePage page) {
+		super(ConsoleMessages.GoToErrorAction_Tooltip);
+		fConsolePage = page;
+		setToolTipText(ConsoleMessages.GoToErrorAction_Tooltip);
+		CPluginImages.setImageDescriptors(this, CPluginImages.T_TOOL, CPluginImages.IMG_TOOL_GOTO_PROBLEM);
+	}
+
+	/**
+	 * @see org.eclipse.jface.action.IAction#run()
+	 */
+	@Override
+	public void run() {
+		int errors = fConsolePage.getProblemCount(IMarker.SEVERITY_ERROR);
+		int warnings = fConsolePage.getProblemCount(IMarker.SEVERITY_WARNING);
+		int infos = fConsolePage.getProblemCount(IMarker.SEVERITY_INFO);
+		final int count = errors + warnings + infos;
+		Shell shell = fConsolePage.getSite().getShell();
+		if (count == 0) {
+			MessageDialog.openInformation(shell, ConsoleMessages.GoToErrorAction_Title,
+					ConsoleMessages.GoToErrorAction_NoProblems);
+			return;
+		}
+		String message = NLS.bind(ConsoleMessages.GoToErrorAction_Message,
+				new Object[] {count, errors, warnings, infos});
+		InputDialog dialog = new InputDialog(shell, ConsoleMessages.GoToErrorAction_Title, message, null,
+				new IInputValidator() {
+					public String isValid(String text) {
+						try {
+							int problem = Integer.parseInt(text.trim());
+							if (problem >= 1 && problem <= count) {
+								return null;
+							}
+						} catch (NumberFormatException e) {
+						}
+						return NLS.bind(ConsoleMessages.GoToErrorAction_InvalidNumber, count);
+					}
+				});
+		if (dialog.open() == Window.OK) {
+			fConsolePage.moveToProblem(Integer.parseInt(dialog.getValue().trim()) - 1);
+		}
+	}
+
+}
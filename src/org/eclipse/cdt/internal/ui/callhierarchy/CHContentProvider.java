@@ -47,12 +47,13 @@ public class CHContentProvider extends AsyncTreeContentProvider {
 	private boolean fComputeReferencedBy = true;
 	private WorkingSetFilterUI fFilter;
 	private CHViewPart fView;
+	private volatile CHQuerySession fQuerySession= new CHQuerySession();
 
 	/**
 	 * Constructs the content provider.
 	 */
 	public CHContentProvider(CHViewPart view, Display disp) {
-		super(disp);
+		super(disp, PARALLEL_WORKERS, true);
 		fView= view;
 	}
 
@@ -65,6 +66,19 @@ public class CHContentProvider extends AsyncTreeContentProvider {
 		return super.getParent(element);
 	}
 
+	@Override
+	protected void clear() {
+		fQuerySession= new CHQuerySession();
+		super.clear();
+	}
+
+	/**
+	 * Returns the results of index queries for the current input.
+	 */
+	CHQuerySession getQuerySession() {
+		return fQuerySession;
+	}
+
 	@Override
 	protected Object[] syncronouslyComputeChildren(Object parentElement) {
 		if (parentElement instanceof CHMultiDefNode) {
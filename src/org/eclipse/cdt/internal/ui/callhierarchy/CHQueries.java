@@ -50,13 +50,19 @@ public class CHQueries {
 	 */
 	public static CHNode[] findCalledBy(CHContentProvider cp, CHNode node, IIndex index, IProgressMonitor pm) 
 			throws CoreException {
-		CalledByResult result= new CalledByResult();
 		ICElement callee= node.getRepresentedDeclaration();
 		if (!(callee instanceof ISourceReference)) {
 			return EMPTY_NODES;
 		}
-		boolean done= false;
 		int linkageID= node.getLinkageID();
+		CHQuerySession session= cp.getQuerySession();
+		session.validate(index);
+		CalledByResult result= session.getCalledBy(callee, linkageID);
+		if (result != null) {
+			return cp.createNodes(node, result);
+		}
+		result= new CalledByResult();
+		boolean done= false;
 		if (linkageID == -1) {
 			final ITranslationUnit tu = ((ISourceReference) callee).getTranslationUnit();
 			if (tu == null)
@@ -65,50 +71,51 @@ public class CHQueries {
 			final String ct = tu.getContentTypeId();
 			if (ct.equals(CCorePlugin.CONTENT_TYPE_CXXHEADER)) {
 				// bug 260262: in a header file we need to consider c and c++
-				findCalledBy(callee, ILinkage.C_LINKAGE_ID, index, result);
-				findCalledBy(callee, ILinkage.CPP_LINKAGE_ID, index, result);
+				findCalledBy(session, callee, ILinkage.C_LINKAGE_ID, index, result);
+				findCalledBy(session, callee, ILinkage.CPP_LINKAGE_ID, index, result);
 				done= true;
 			}
 		}
 		if (!done) {
-			findCalledBy(callee, linkageID, index, result);
+			findCalledBy(session, callee, linkageID, index, result);
 		}
+		session.putCalledBy(callee, linkageID, result);
 		return cp.createNodes(node, result);
 	}
 
-	private static void findCalledBy(ICElement callee, int linkageID, IIndex index, CalledByResult result) 
-			throws CoreException {
+	private static void findCalledBy(CHQuerySession session, ICElement callee, int linkageID, IIndex index, 
+			CalledByResult result) throws CoreException {
 		final ICProject project = callee.getCProject();
 		IIndexBinding calleeBinding= IndexUI.elementToBinding(index, callee, linkageID);
 		if (calleeBinding != null) {
-			findCalledBy1(index, calleeBinding, true, project, result);
+			findCalledBy1(session, index, calleeBinding, true, project, result);
 			if (calleeBinding instanceof ICPPMethod) {
 				IBinding[] overriddenBindings= ClassTypeHelper.findOverridden((ICPPMethod) calleeBinding);
 				for (IBinding overriddenBinding : overriddenBindings) {
-					findCalledBy1(index, overriddenBinding, false, project, result);
+					findCalledBy1(session, index, overriddenBinding, false, project, result);
 				}
 			}
 		}
 	}
 
-	private static void findCalledBy1(IIndex index, IBinding callee, boolean includeOrdinaryCalls,
-			ICProject project, CalledByResult result) throws CoreException {
-		findCalledBy2(index, callee, includeOrdinaryCalls, project, result);
+	private static void findCalledBy1(CHQuerySession session, IIndex index, IBinding callee, 
+			boolean includeOrdinaryCalls, ICProject project, CalledByResult result) throws CoreException {
+		findCalledBy2(session, index, callee, includeOrdinaryCalls, project, result);
 		List<? extends IBinding> specializations = IndexUI.findSpecializations(callee);
 		for (IBinding spec : specializations) {
-			findCalledBy2(index, spec, includeOrdinaryCalls, project, result);
+			findCalledBy2(session, index, spec, includeOrdinaryCalls, project, result);
 		}
 	}
 
 
-	private static void findCalledBy2(IIndex index, IBinding callee, boolean includeOrdinaryCalls, ICProject project, CalledByResult result) 
-			throws CoreException {
-		IIndexName[] names= index.findNames(callee, IIndex.FIND_REFERENCES | IIndex.SEARCH_ACROSS_LANGUAGE_BOUNDARIES);
+	private static void findCalledBy2(CHQuerySession session, IIndex index, IBinding callee, 
+			boolean includeOrdinaryCalls, ICProject project, CalledByResult result) throws CoreException {
+		IIndexName[] names= session.findReferences(index, callee);
 		for (IIndexName rname : names) {
 			if (includeOrdinaryCalls || rname.couldBePolymorphicMethodCall()) {
 				IIndexName caller= rname.getEnclosingDefinition();
 				if (caller != null) {
-					ICElement elem= IndexUI.getCElementForName(project, index, caller);
+					ICElement elem= session.getCElementForName(project, index, caller);
 					if (elem != null) {
 						result.add(elem, rname);
 					} 
@@ -123,7 +130,13 @@ public class CHQueries {
 	public static CHNode[] findCalls(CHContentProvider cp, CHNode node, IIndex index, IProgressMonitor pm) 
 			throws CoreException {
 		ICElement caller= node.getRepresentedDeclaration();
-		CallsToResult result= new CallsToResult();
+		CHQuerySession session= cp.getQuerySession();
+		session.validate(index);
+		CallsToResult result= session.getCallsTo(caller);
+		if (result != null) {
+			return cp.createNodes(node, result);
+		}
+		result= new CallsToResult();
 		IIndexName callerName= IndexUI.elementToName(index, caller);
 		if (callerName != null) {
 			IIndexName[] refs= callerName.getEnclosedNames();
@@ -150,6 +163,7 @@ public class CHQueries {
 				}
 			}
 		}
+		session.putCallsTo(caller, result);
 		return cp.createNodes(node, result);
 	}
 
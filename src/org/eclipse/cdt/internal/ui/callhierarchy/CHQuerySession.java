@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.callhierarchy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.index.IIndex;
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IIndexName;
+import org.eclipse.cdt.core.model.ICElement;
+import org.eclipse.cdt.core.model.ICProject;
+
+import org.eclipse.cdt.internal.ui.viewsupport.IndexUI;
+
+/**
+ * Results of index queries for one input of the call hierarchy. A function that appears
+ * multiple times in the hierarchy is looked up in the index only once.
+ * <p>
+ * The results are dropped as soon as the index is modified. Methods may be called from
+ * multiple threads, all of them need to hold a read lock on the index.
+ */
+class CHQuerySession {
+	private static final class NameKey {
+		private final ICProject fProject;
+		private final IIndexFileLocation fLocation;
+		private final int fOffset;
+
+		NameKey(ICProject project, IIndexFileLocation location, int offset) {
+			fProject= project;
+			fLocation= location;
+			fOffset= offset;
+		}
+
+		@Override
+		public int hashCode() {
+			return (fProject == null ? 0 : fProject.hashCode()) * 31 + fLocation.hashCode() + fOffset;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof NameKey)) {
+				return false;
+			}
+			NameKey other= (NameKey) obj;
+			return fOffset == other.fOffset && fLocation.equals(other.fLocation)
+					&& (fProject == null ? other.fProject == null : fProject.equals(other.fProject));
+		}
+	}
+
+	private static final class CalleeKey {
+		private final ICElement fCallee;
+		private final int fLinkageID;
+
+		CalleeKey(ICElement callee, int linkageID) {
+			fCallee= callee;
+			fLinkageID= linkageID;
+		}
+
+		@Override
+		public int hashCode() {
+			return fCallee.hashCode() * 31 + fLinkageID;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CalleeKey)) {
+				return false;
+			}
+			CalleeKey other= (CalleeKey) obj;
+			return fLinkageID == other.fLinkageID && fCallee.equals(other.fCallee);
+		}
+	}
+
+	private long fLastWriteAccess= -1;
+	private final Map<CalleeKey, CalledByResult> fCalledBy= new HashMap<CalleeKey, CalledByResult>();
+	private final Map<ICElement, CallsToResult> fCallsTo= new HashMap<ICElement, CallsToResult>();
+	private final Map<IBinding, IIndexName[]> fReferences= new HashMap<IBinding, IIndexName[]>();
+	private final Map<NameKey, ICElement> fElements= new HashMap<NameKey, ICElement>();
+
+	/**
+	 * Drops the results when the index has been modified since they were computed.
+	 */
+	synchronized void validate(IIndex index) {
+		long lastWriteAccess= index.getLastWriteAccess();
+		if (lastWriteAccess != fLastWriteAccess) {
+			fCalledBy.clear();
+			fCallsTo.clear();
+			fReferences.clear();
+			fElements.clear();
+			fLastWriteAccess= lastWriteAccess;
+		}
+	}
+
+	synchronized CalledByResult getCalledBy(ICElement callee, int linkageID) {
+		return fCalledBy.get(new CalleeKey(callee, linkageID));
+	}
+
+	synchronized void putCalledBy(ICElement callee, int linkageID, CalledByResult result) {
+		fCalledBy.put(new CalleeKey(callee, linkageID), result);
+	}
+
+	synchronized CallsToResult getCallsTo(ICElement caller) {
+		return fCallsTo.get(caller);
+	}
+
+	synchronized void putCallsTo(ICElement caller, CallsToResult result) {
+		fCallsTo.put(caller, result);
+	}
+
+	/**
+	 * Returns the references to the given binding.
+	 */
+	IIndexName[] findReferences(IIndex index, IBinding binding) throws CoreException {
+		IIndexName[] names;
+		synchronized (this) {
+			names= fReferences.get(binding);
+		}
+		if (names == null) {
+			names= index.findNames(binding, IIndex.FIND_REFERENCES | IIndex.SEARCH_ACROSS_LANGUAGE_BOUNDARIES);
+			synchronized (this) {
+				fReferences.put(binding, names);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns the element for the given definition, see
+	 * {@link IndexUI#getCElementForName(ICProject, IIndex, IIndexName)}.
+	 */
+	ICElement getCElementForName(ICProject project, IIndex index, IIndexName name) throws CoreException {
+		NameKey key= new NameKey(project, name.getFile().getLocation(), name.getNodeOffset());
+		synchronized (this) {
+			if (fElements.containsKey(key)) {
+				return fElements.get(key);
+			}
+		}
+		ICElement elem= IndexUI.getCElementForName(project, index, name);
+		synchronized (this) {
+			fElements.put(key, elem);
+		}
+		return elem;
+	}
+}
@@ -14,6 +14,7 @@
 package org.eclipse.cdt.internal.ui.editor;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -38,6 +39,8 @@ import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.internal.core.model.ASTCache;
 import org.eclipse.cdt.internal.core.model.ASTCache.ASTRunnable;
 
+import org.eclipse.cdt.internal.ui.search.ASTNameIndex;
+
 /**
  * Provides a shared AST for clients. The shared AST is
  * the AST of the active CEditor's input element.
@@ -218,6 +221,10 @@ public final class ASTProvider {
 	private ActivationListener fActivationListener;
 	private IWorkbenchPart fActiveEditor;
 	private long fTimeStamp;
+	/** The AST held by the cache for the active editor, as far as it has been passed to this provider */
+	private IASTTranslationUnit fSharedAST;
+	/** Index of the names of the shared AST, see {@link #getNameIndex(IASTTranslationUnit)} */
+	private ASTNameIndex fNameIndex;
 
 	/**
 	 * Returns the C plug-in's AST provider.
@@ -259,6 +266,8 @@ public final class ASTProvider {
 		synchronized (this) {
 			fActiveEditor= editor;
 			fTimeStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+			fSharedAST= null;
+			fNameIndex= null;
 			fCache.setActiveElement((ITranslationUnit) cElement);
 		}
 	}
@@ -273,6 +282,7 @@ public final class ASTProvider {
 		if (cElement == null)
 			return;
 		Assert.isTrue(cElement instanceof ITranslationUnit);
+		clearSharedAST();
 		fCache.aboutToBeReconciled((ITranslationUnit) cElement);
 		updateModificationStamp();
 	}
@@ -315,6 +325,7 @@ public final class ASTProvider {
 			fActivationListener= null;
 		}
 		fCache.setActiveElement(null);
+		clearSharedAST();
 	}
 
 	/*
@@ -324,7 +335,47 @@ public final class ASTProvider {
 		if (cElement == null)
 			return;
 		Assert.isTrue(cElement instanceof ITranslationUnit);
+		clearSharedAST();
 		fCache.reconciled(ast, (ITranslationUnit) cElement);
+		setSharedAST(ast, (ITranslationUnit) cElement);
+	}
+
+	/**
+	 * Returns the index of the names of the given AST. The index of the shared AST of the
+	 * active editor is kept until the shared AST is replaced, such that its names are
+	 * collected only once. For other ASTs a new index is returned, the provider does not
+	 * keep them alive.
+	 * 
+	 * @param ast the AST to get the index for.
+	 * @return the index of the names of the AST.
+	 */
+	public synchronized ASTNameIndex getNameIndex(IASTTranslationUnit ast) {
+		if (ast != fSharedAST) {
+			return new ASTNameIndex(ast);
+		}
+		if (fNameIndex == null || fNameIndex.getTranslationUnit() != ast) {
+			fNameIndex= new ASTNameIndex(ast);
+		}
+		return fNameIndex;
+	}
+
+	/**
+	 * Remembers the given AST as the shared AST if it is the one cached for the active editor.
+	 */
+	private void setSharedAST(IASTTranslationUnit ast, ITranslationUnit tu) {
+		if (ast != null && fCache.isActiveElement(tu)) {
+			synchronized (this) {
+				if (ast != fSharedAST) {
+					fSharedAST= ast;
+					fNameIndex= null;
+				}
+			}
+		}
+	}
+
+	private synchronized void clearSharedAST() {
+		fSharedAST= null;
+		fNameIndex= null;
 	}
 
 	/**
@@ -339,12 +390,17 @@ public final class ASTProvider {
 	 * @return the status  returned by the ASTRunnable
 	 */
 	public IStatus runOnAST(ICElement cElement, WAIT_FLAG waitFlag, IProgressMonitor monitor,
-			ASTCache.ASTRunnable astRunnable) {
+			final ASTCache.ASTRunnable astRunnable) {
 		Assert.isTrue(cElement instanceof ITranslationUnit);
 		final ITranslationUnit tu = (ITranslationUnit) cElement;
 		if (!prepareForUsingCache(tu, waitFlag))
 			return Status.CANCEL_STATUS;
-		return fCache.runOnAST(tu, waitFlag != WAIT_NO, monitor, astRunnable);
+		return fCache.runOnAST(tu, waitFlag != WAIT_NO, monitor, new ASTRunnable() {
+			public IStatus runOnAST(ILanguage lang, IASTTranslationUnit ast) throws CoreException {
+				setSharedAST(ast, tu);
+				return astRunnable.runOnAST(lang, ast);
+			}
+		});
 	}
 
 	/**
@@ -367,7 +423,9 @@ public final class ASTProvider {
 			WAIT_FLAG waitFlag, IProgressMonitor monitor) {
 		if (!prepareForUsingCache(tu, waitFlag))
 			return null;
-		return fCache.acquireSharedAST(tu, index, waitFlag != WAIT_NO, monitor);
+		IASTTranslationUnit ast= fCache.acquireSharedAST(tu, index, waitFlag != WAIT_NO, monitor);
+		setSharedAST(ast, tu);
+		return ast;
 	}
 
 	/**
@@ -401,6 +459,7 @@ public final class ASTProvider {
 			return false;
 		}
 		if (isActive && updateModificationStamp()) {
+			clearSharedAST();
 			fCache.disposeAST();
 		}
 		return true;
@@ -227,6 +227,85 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		}
 	}
 
+	/**
+	 * Range of the document modified since some point in time, follows later modifications.
+	 */
+	private static class DirtyRegion {
+
+		/** Start of the range */
+		private int fStart;
+		/** End of the range */
+		private int fEnd;
+		/** <code>true</code> iff the range is empty */
+		private boolean fIsEmpty= true;
+		/** <code>true</code> iff the whole document is to be considered modified */
+		private boolean fIsWholeDocument= true;
+
+		/**
+		 * Adapts the range to the given modification of the document.
+		 *
+		 * @param event The event
+		 * @param include <code>true</code> iff the modified text is to be included in the range
+		 */
+		void update(DocumentEvent event, boolean include) {
+			if (fIsWholeDocument)
+				return;
+
+			int eventOffset= event.getOffset();
+			int eventEnd= eventOffset + event.getLength();
+			String newText= event.getText();
+			int newEnd= eventOffset + (newText != null ? newText.length() : 0);
+
+			if (!fIsEmpty) {
+				int delta= newEnd - eventEnd;
+				if (fEnd >= eventEnd) {
+					fEnd+= delta;
+				} else if (fEnd > eventOffset) {
+					fEnd= newEnd;
+				}
+				if (fStart >= eventEnd) {
+					fStart+= delta;
+				} else if (fStart > eventOffset) {
+					fStart= eventOffset;
+				}
+			}
+			if (include)
+				add(eventOffset, newEnd);
+		}
+
+		/**
+		 * Extends the range by the given region.
+		 */
+		void add(DirtyRegion region) {
+			if (region.fIsWholeDocument) {
+				setWholeDocument();
+			} else if (!region.fIsEmpty && !fIsWholeDocument) {
+				add(region.fStart, region.fEnd);
+			}
+		}
+
+		private void add(int start, int end) {
+			if (fIsEmpty) {
+				fStart= start;
+				fEnd= end;
+				fIsEmpty= false;
+			} else {
+				fStart= Math.min(fStart, start);
+				fEnd= Math.max(fEnd, end);
+			}
+		}
+
+		void setWholeDocument() {
+			fIsWholeDocument= true;
+			fIsEmpty= false;
+		}
+
+		void clear() {
+			fIsWholeDocument= false;
+			fIsEmpty= true;
+		}
+	}
+
 	/** Position updater */
 	private IPositionUpdater fPositionUpdater= new HighlightingPositionUpdater(getPositionCategory());
 
@@ -243,6 +322,13 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	/** <code>true</code> iff the current reconcile is canceled. */
 	private boolean fIsCanceled= false;
 
+	/** Region modified since it was last captured for a reconcile */
+	private final DirtyRegion fPendingRegion= new DirtyRegion();
+	/** Region modified up to the last capture, not reconciled yet */
+	private final DirtyRegion fCapturedRegion= new DirtyRegion();
+	/** Dirty region lock */
+	private final Object fDirtyRegionLock= new Object();
+
 	/**
 	 * Creates and returns a new highlighted position with the given offset, length and highlighting.
 	 * <p>
@@ -284,18 +370,6 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @return the text presentation or <code>null</code>, if reconciliation should be canceled
 	 */
 	public TextPresentation createPresentation(List<? extends Position> addedPositions, List<? extends Position> removedPositions) {
-		CSourceViewer sourceViewer= fSourceViewer;
-		CPresentationReconciler presentationReconciler= fPresentationReconciler;
-		if (sourceViewer == null || presentationReconciler == null)
-			return null;
-
-		if (isCanceled())
-			return null;
-
-		IDocument document= sourceViewer.getDocument();
-		if (document == null)
-			return null;
-
 		int minStart= Integer.MAX_VALUE;
 		int maxEnd= Integer.MIN_VALUE;
 		for (int i= 0, n= removedPositions.size(); i < n; i++) {
@@ -312,8 +386,37 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		}
 
 		if (minStart < maxEnd)
+			return createPresentation(new Region(minStart, maxEnd - minStart));
+
+		return null;
+	}
+
+	/**
+	 * Create a text presentation of the given range in the background.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @param damage the range covering the added and removed positions
+	 * @return the text presentation or <code>null</code>, if reconciliation should be canceled
+	 *  or the range is empty
+	 */
+	public TextPresentation createPresentation(IRegion damage) {
+		CSourceViewer sourceViewer= fSourceViewer;
+		CPresentationReconciler presentationReconciler= fPresentationReconciler;
+		if (sourceViewer == null || presentationReconciler == null)
+			return null;
+
+		if (isCanceled())
+			return null;
+
+		IDocument document= sourceViewer.getDocument();
+		if (document == null)
+			return null;
+
+		if (damage.getLength() > 0)
 			try {
-				return presentationReconciler.createRepairDescription(new Region(minStart, maxEnd - minStart), document);
+				return presentationReconciler.createRepairDescription(damage, document);
 			} catch (RuntimeException e) {
 				// Assume concurrent modification from UI thread
 			}
@@ -590,6 +693,43 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
 	 */
 	public void documentChanged(DocumentEvent event) {
+		synchronized (fDirtyRegionLock) {
+			fCapturedRegion.update(event, false);
+			fPendingRegion.update(event, true);
+		}
+	}
+
+	/**
+	 * Captures the region modified so far for the next reconcile. Modifications made after
+	 * the capture are left for the reconcile after that.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 */
+	public void captureDirtyRegion() {
+		synchronized (fDirtyRegionLock) {
+			fCapturedRegion.add(fPendingRegion);
+			fPendingRegion.clear();
+		}
+	}
+
+	/**
+	 * Returns the captured region and considers it reconciled.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @return the region modified since the last reconcile or <code>null</code>, if
+	 * 	the whole document is to be reconciled or the modification is not known
+	 */
+	public IRegion takeDirtyRegion() {
+		synchronized (fDirtyRegionLock) {
+			IRegion region= null;
+			if (!fCapturedRegion.fIsWholeDocument && !fCapturedRegion.fIsEmpty)
+				region= new Region(fCapturedRegion.fStart, fCapturedRegion.fEnd - fCapturedRegion.fStart);
+			fCapturedRegion.clear();
+			return region;
+		}
 	}
 
 	/**
@@ -736,6 +876,10 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		synchronized (fPositionLock) {
 			fPositions.clear();
 		}
+		synchronized (fDirtyRegionLock) {
+			fPendingRegion.setWholeDocument();
+			fCapturedRegion.setWholeDocument();
+		}
 	}
 
 	/**
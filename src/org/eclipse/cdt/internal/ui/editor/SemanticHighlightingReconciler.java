@@ -13,15 +13,17 @@
 package org.eclipse.cdt.internal.ui.editor;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.swt.widgets.Display;
@@ -31,6 +33,8 @@ import org.eclipse.ui.IWorkbenchPartSite;
 import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTDeclarator;
+import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
+import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
 import org.eclipse.cdt.core.dom.ast.IASTImageLocation;
 import org.eclipse.cdt.core.dom.ast.IASTMacroExpansionLocation;
 import org.eclipse.cdt.core.dom.ast.IASTName;
@@ -40,6 +44,7 @@ import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroDefinition;
 import org.eclipse.cdt.core.dom.ast.IASTPreprocessorMacroExpansion;
 import org.eclipse.cdt.core.dom.ast.IASTStatement;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTLinkageSpecification;
 import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTNamespaceDefinition;
 import org.eclipse.cdt.core.model.ICElement;
 import org.eclipse.cdt.core.model.ILanguage;
@@ -60,6 +65,12 @@ import org.eclipse.cdt.internal.ui.text.ICReconcilingListener;
  */
 public class SemanticHighlightingReconciler implements ICReconcilingListener {
 
+	/** Trace binding properties shared across references */
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.cdt.ui/debug/SemanticHighlighting/bindingProperties"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/** Minimum size of the slices a file is reconciled in, in characters */
+	private static final int SLICE_SIZE= 32 * 1024;
+
 	/**
 	 * Collects positions from the AST.
 	 */
@@ -68,10 +79,13 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		/** The semantic token */
 		private SemanticToken fToken= new SemanticToken();
 		private int fMinLocation;
+		/** Start of the range of the file ranges are collected from */
+		private int fRangeStart= 0;
+		/** End of the range of the file ranges are collected from */
+		private int fRangeEnd= Integer.MAX_VALUE;
 		
 		public PositionCollector(boolean visitImplicitNames) {
 			fMinLocation= -1;
-			shouldVisitTranslationUnit= true;
 			shouldVisitNames= true;
 			shouldVisitDeclarations= true;
 			shouldVisitExpressions= true;
@@ -82,37 +96,43 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			shouldVisitImplicitNameAlternates = visitImplicitNames;
 		}
 
-		/*
-		 * @see org.eclipse.cdt.core.dom.ast.ASTVisitor#visit(org.eclipse.cdt.core.dom.ast.IASTTranslationUnit)
+		/**
+		 * Restricts the collected ranges to the given range of the file.
+		 * 
+		 * @param start The start of the range
+		 * @param end The end of the range
 		 */
-		@Override
-		public int visit(IASTTranslationUnit tu) {
-			
+		public void setRange(int start, int end) {
+			fRangeStart= start;
+			fRangeEnd= end;
+			fMinLocation= -1;
+		}
+
+		/**
+		 * Visits the macro definitions and expansions overlapping the current range.
+		 * 
+		 * @param macroDefs The macro definitions of the file
+		 * @param macroExps The macro expansions of the file
+		 */
+		public void visitMacros(NodeRanges macroDefs, NodeRanges macroExps) {
 			// visit macro definitions
-			IASTPreprocessorMacroDefinition[] macroDefs= tu.getMacroDefinitions();
-			for (IASTPreprocessorMacroDefinition macroDef : macroDefs) {
-				if (macroDef.isPartOfTranslationUnitFile()) {
-					visitNode(macroDef.getName());
-				}
+			for (int i= macroDefs.indexOfFirstEndingAfter(fRangeStart); i < macroDefs.fSize && macroDefs.fOffsets[i] < fRangeEnd; i++) {
+				IASTPreprocessorMacroDefinition macroDef= (IASTPreprocessorMacroDefinition) macroDefs.fNodes[i];
+				visitNode(macroDef.getName());
 			}
 			fMinLocation= -1;
 
 			// visit macro expansions
-			IASTPreprocessorMacroExpansion[] macroExps= tu.getMacroExpansions();
-			for (IASTPreprocessorMacroExpansion macroExp : macroExps) {
-				if (macroExp.isPartOfTranslationUnitFile()) {
-					IASTName macroRef= macroExp.getMacroReference();
-					visitNode(macroRef);
-					IASTName[] nestedMacroRefs= macroExp.getNestedMacroReferences();
-					for (IASTName nestedMacroRef : nestedMacroRefs) {
-						visitNode(nestedMacroRef);
-					}
+			for (int i= macroExps.indexOfFirstEndingAfter(fRangeStart); i < macroExps.fSize && macroExps.fOffsets[i] < fRangeEnd; i++) {
+				IASTPreprocessorMacroExpansion macroExp= (IASTPreprocessorMacroExpansion) macroExps.fNodes[i];
+				IASTName macroRef= macroExp.getMacroReference();
+				visitNode(macroRef);
+				IASTName[] nestedMacroRefs= macroExp.getNestedMacroReferences();
+				for (IASTName nestedMacroRef : nestedMacroRefs) {
+					visitNode(nestedMacroRef);
 				}
 			}
 			fMinLocation= -1;
-
-			// visit ordinary code
-			return super.visit(tu);
 		}
 
 		/*
@@ -194,9 +214,9 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
 				if (fJobHighlightings[i].isEnabled() && semanticHighlighting.consumes(fToken)) {
 					if (node instanceof IASTName) {
-						addNameLocation((IASTName)node, fJobHighlightings[i]);
+						addNameLocation((IASTName)node, i);
 					} else {
-						addNodeLocation(node.getFileLocation(), fJobHighlightings[i]);
+						addNodeLocation(node.getFileLocation(), i);
 					}
 					consumed= true;
 					break;
@@ -210,18 +230,18 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		 * Add the a location range for the given name.
 		 * 
 		 * @param name  The name
-		 * @param highlighting The highlighting
+		 * @param highlighting The index of the highlighting
 		 */
-		private void addNameLocation(IASTName name, HighlightingStyle highlightingStyle) {
+		private void addNameLocation(IASTName name, int highlighting) {
 			IASTImageLocation imageLocation= name.getImageLocation();
 			if (imageLocation != null) {
 				if (imageLocation.getLocationKind() != IASTImageLocation.MACRO_DEFINITION) {
 					int offset= imageLocation.getNodeOffset();
-					if (offset >= fMinLocation) {
+					if (offset >= fMinLocation && offset >= fRangeStart && offset < fRangeEnd) {
 						int length= imageLocation.getNodeLength();
 						if (offset > -1 && length > 0) {
 							fMinLocation= offset + length;
-							addPosition(offset, length, highlightingStyle);
+							fNewPositions.add(offset, length, highlighting);
 						}
 					}
 				}
@@ -229,7 +249,7 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 				// fallback in case no image location available
 				IASTNodeLocation[] nodeLocations= name.getNodeLocations();
 				if (nodeLocations.length == 1 && !(nodeLocations[0] instanceof IASTMacroExpansionLocation)) {
-					addNodeLocation(nodeLocations[0], highlightingStyle);
+					addNodeLocation(nodeLocations[0], highlighting);
 				}
 			}
 		}
@@ -238,50 +258,182 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		 * Add the a location range for the given highlighting.
 		 * 
 		 * @param nodeLocation  The node location
-		 * @param highlighting The highlighting
+		 * @param highlighting The index of the highlighting
 		 */
-		private void addNodeLocation(IASTNodeLocation nodeLocation, HighlightingStyle highlighting) {
+		private void addNodeLocation(IASTNodeLocation nodeLocation, int highlighting) {
 			if (nodeLocation == null) {
 				return;
 			}
 			int offset= nodeLocation.getNodeOffset();
-			if (offset >= fMinLocation) {
+			if (offset >= fMinLocation && offset >= fRangeStart && offset < fRangeEnd) {
 				int length= nodeLocation.getNodeLength();
 				if (offset > -1 && length > 0) {
 					fMinLocation= offset + length;
-					addPosition(offset, length, highlighting);
+					fNewPositions.add(offset, length, highlighting);
 				}
 			}
 		}
+	}
+
+	/**
+	 * Ranges found in the AST, kept in arrays rather than as one position object per
+	 * range. Position objects are created only for ranges which are not highlighted yet.
+	 */
+	private static class PositionStore {
+		private int[] fOffsets= new int[256];
+		private int[] fLengths= new int[256];
+		private int[] fHighlightings= new int[256];
+		private int fSize;
 
 		/**
-		 * Add a position with the given range and highlighting iff it does not exist already.
+		 * Adds a range.
 		 * 
 		 * @param offset The range offset
 		 * @param length The range length
-		 * @param highlighting The highlighting
+		 * @param highlighting The index of the highlighting
 		 */
-		private void addPosition(int offset, int length, HighlightingStyle highlighting) {
-			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
-				HighlightedPosition position= fRemovedPositions.get(i);
-				if (position == null)
-					continue;
-				if (position.isEqual(offset, length, highlighting)) {
-					isExisting= true;
-					fRemovedPositions.set(i, null);
-					fNOfRemovedPositions--;
-					break;
-				}
+		void add(int offset, int length, int highlighting) {
+			if (fSize == fOffsets.length) {
+				int capacity= fSize * 2;
+				fOffsets= copyOf(fOffsets, capacity);
+				fLengths= copyOf(fLengths, capacity);
+				fHighlightings= copyOf(fHighlightings, capacity);
+			}
+			fOffsets[fSize]= offset;
+			fLengths[fSize]= length;
+			fHighlightings[fSize]= highlighting;
+			fSize++;
+		}
+
+		/**
+		 * Sorts the ranges by offset, keeping the order of ranges with equal offsets.
+		 */
+		void sort() {
+			int[] order= sortByOffset(fOffsets, fSize);
+			if (order != null) {
+				fOffsets= permute(fOffsets, order);
+				fLengths= permute(fLengths, order);
+				fHighlightings= permute(fHighlightings, order);
+			}
+		}
+
+		void clear() {
+			if (fOffsets.length > 4096) {
+				fOffsets= new int[256];
+				fLengths= new int[256];
+				fHighlightings= new int[256];
+			}
+			fSize= 0;
+		}
+
+		private static int[] copyOf(int[] array, int length) {
+			int[] copy= new int[length];
+			System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+			return copy;
+		}
+
+		private static int[] permute(int[] array, int[] order) {
+			int[] result= new int[array.length];
+			for (int i= 0; i < order.length; i++) {
+				result[i]= array[order[i]];
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Nodes of the file with their file ranges, in ascending order of non-overlapping ranges.
+	 */
+	private static class NodeRanges {
+		private IASTNode[] fNodes= new IASTNode[64];
+		private int[] fOffsets= new int[64];
+		private int[] fEnds= new int[64];
+		private int fSize;
+
+		/**
+		 * Adds a node following the nodes added so far, nodes without a file location
+		 * or overlapping the previous node are ignored.
+		 *
+		 * @param node The node
+		 */
+		void add(IASTNode node) {
+			IASTFileLocation location= node.getFileLocation();
+			if (location == null)
+				return;
+			int offset= location.getNodeOffset();
+			if (fSize > 0 && offset < fEnds[fSize - 1])
+				return;
+			if (fSize == fNodes.length) {
+				int capacity= fSize * 2;
+				IASTNode[] nodes= new IASTNode[capacity];
+				System.arraycopy(fNodes, 0, nodes, 0, fSize);
+				fNodes= nodes;
+				fOffsets= PositionStore.copyOf(fOffsets, capacity);
+				fEnds= PositionStore.copyOf(fEnds, capacity);
+			}
+			fNodes[fSize]= node;
+			fOffsets[fSize]= offset;
+			fEnds[fSize]= offset + location.getNodeLength();
+			fSize++;
+		}
+
+		/**
+		 * Returns the index of the first node ending after the given offset.
+		 *
+		 * @param offset The offset
+		 * @return the index or the number of nodes if there is no such node
+		 */
+		int indexOfFirstEndingAfter(int offset) {
+			int low= 0;
+			int high= fSize;
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+				if (fEnds[mid] <= offset)
+					low= mid + 1;
+				else
+					high= mid;
 			}
+			return low;
+		}
 
-			if (!isExisting) {
-				HighlightedPosition position= fJobPresenter.createHighlightedPosition(offset, length, highlighting);
-				fAddedPositions.add(position);
+		void clear() {
+			if (fNodes.length > 4096) {
+				fNodes= new IASTNode[64];
+				fOffsets= new int[64];
+				fEnds= new int[64];
+			} else {
+				Arrays.fill(fNodes, 0, fSize, null);
 			}
+			fSize= 0;
 		}
+	}
 
+	/**
+	 * Returns the order of the given offsets in ascending order, equal offsets
+	 * keep their relative order.
+	 * 
+	 * @param offsets The offsets
+	 * @param size The number of offsets
+	 * @return the indices of the offsets in ascending order or <code>null</code> if they are sorted already
+	 */
+	private static int[] sortByOffset(int[] offsets, int size) {
+		boolean sorted= true;
+		for (int i= 1; i < size && sorted; i++) {
+			sorted= offsets[i - 1] <= offsets[i];
+		}
+		if (sorted)
+			return null;
+		// sort the offset in the high and the index in the low half of a long
+		long[] keys= new long[size];
+		for (int i= 0; i < size; i++) {
+			keys[i]= (long) offsets[i] << 32 | i;
+		}
+		Arrays.sort(keys);
+		int[] order= new int[size];
+		for (int i= 0; i < size; i++) {
+			order[i]= (int) keys[i];
+		}
+		return order;
 	}
 
 	/** The C editor this semantic highlighting reconciler is installed on */
@@ -297,8 +449,39 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	private List<HighlightedPosition> fAddedPositions= new ArrayList<HighlightedPosition>();
 	/** Background job's removed highlighted positions */
 	private List<HighlightedPosition> fRemovedPositions= new ArrayList<HighlightedPosition>();
-	/** Number of removed positions */
-	private int fNOfRemovedPositions;
+	/** Background job's highlighted positions before reconciling */
+	private List<HighlightedPosition> fOldPositions= new ArrayList<HighlightedPosition>();
+	/** Background job's offsets of the old positions, sorted like the old positions */
+	private int[] fOldOffsets;
+	/** Background job's ranges found in the AST */
+	private final PositionStore fNewPositions= new PositionStore();
+	/** Background job's buffer marking the old positions with equal offset that have been matched */
+	private boolean[] fMatched= new boolean[16];
+	/** Background job's top-level declarations of the file, nested ones for namespaces and linkage specifications */
+	private final NodeRanges fDeclarations= new NodeRanges();
+	/** Background job's macro definitions of the file */
+	private final NodeRanges fMacroDefinitions= new NodeRanges();
+	/** Background job's macro expansions of the file */
+	private final NodeRanges fMacroExpansions= new NodeRanges();
+	/** Start of the range affected by the added and removed positions */
+	private int fDamageStart;
+	/** End of the range affected by the added and removed positions */
+	private int fDamageEnd;
+
+	/** <code>true</code> iff the last reconcile covered the whole file and was not canceled */
+	private volatile boolean fIsComplete= false;
+	/** Start of the range of the document visible in the source viewer */
+	private volatile int fVisibleStart;
+	/** End of the range of the document visible in the source viewer */
+	private volatile int fVisibleEnd;
+	/** The source viewer this reconciler is installed on */
+	private ISourceViewer fSourceViewer;
+	/** Tracks the range visible in the source viewer */
+	private final IViewportListener fViewportListener= new IViewportListener() {
+		public void viewportChanged(int verticalOffset) {
+			updateVisibleRange();
+		}
+	};
 
 	/** Background job */
 	private Job fJob;
@@ -323,7 +506,9 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	 * @see org.eclipse.cdt.internal.ui.text.java.ICReconcilingListener#aboutToBeReconciled()
 	 */
 	public void aboutToBeReconciled() {
-		// Do nothing
+		SemanticHighlightingPresenter presenter= fPresenter;
+		if (presenter != null)
+			presenter.captureDirtyRegion();
 	}
 
 	/*
@@ -351,18 +536,18 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			
 			PositionCollector collector= new PositionCollector(requiresImplicitNames());
 
-			startReconcilingPositions();
-			
-			if (!fJobPresenter.isCanceled())
-				reconcilePositions(ast, collector);
-			
-			TextPresentation textPresentation= null;
-			if (!fJobPresenter.isCanceled())
-				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
+			startReconcilingPositions(ast);
 			
 			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				reconcilePositions(ast, collector, force);
 			
+			if (DEBUG) {
+				int hits= collector.fToken.getBindingPropertyHits();
+				int lookups= hits + collector.fToken.getBindingPropertyMisses();
+				System.err.println("Semantic Highlighting binding properties: " + hits + " of " + lookups + " lookups shared (" //$NON-NLS-1$ //$NON-NLS-2$
+						+ (lookups > 0 ? hits * 100 / lookups : 0) + "%)"); //$NON-NLS-1$
+			}
+
 			stopReconcilingPositions();
 		} finally {
 			fJobPresenter= null;
@@ -386,33 +571,308 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 
 	/**
 	 * Start reconciling positions.
+	 *
+	 * @param ast  the AST
+	 */
+	private void startReconcilingPositions(IASTTranslationUnit ast) {
+		fJobPresenter.addAllPositions(fOldPositions);
+
+		// offsets may change in the UI thread, in that case the reconcile is canceled
+		int nOld= fOldPositions.size();
+		int[] oldOffsets= new int[nOld];
+		for (int i= 0; i < nOld; i++) {
+			oldOffsets[i]= fOldPositions.get(i).getOffset();
+		}
+		int[] oldOrder= sortByOffset(oldOffsets, nOld);
+		if (oldOrder != null) {
+			List<HighlightedPosition> sorted= new ArrayList<HighlightedPosition>(nOld);
+			int[] sortedOffsets= new int[nOld];
+			for (int i= 0; i < nOld; i++) {
+				sorted.add(fOldPositions.get(oldOrder[i]));
+				sortedOffsets[i]= oldOffsets[oldOrder[i]];
+			}
+			fOldPositions= sorted;
+			oldOffsets= sortedOffsets;
+		}
+		fOldOffsets= oldOffsets;
+
+		IASTPreprocessorMacroDefinition[] macroDefs= ast.getMacroDefinitions();
+		for (IASTPreprocessorMacroDefinition macroDef : macroDefs) {
+			if (macroDef.isPartOfTranslationUnitFile())
+				fMacroDefinitions.add(macroDef);
+		}
+		IASTPreprocessorMacroExpansion[] macroExps= ast.getMacroExpansions();
+		for (IASTPreprocessorMacroExpansion macroExp : macroExps) {
+			if (macroExp.isPartOfTranslationUnitFile())
+				fMacroExpansions.add(macroExp);
+		}
+		addDeclarations(ast.getDeclarations());
+	}
+
+	/**
+	 * Adds the given declarations of the file, descending into namespaces and linkage
+	 * specifications, such that a single large namespace does not make up a single slice.
+	 *
+	 * @param declarations  the declarations
 	 */
-	private void startReconcilingPositions() {
-		fJobPresenter.addAllPositions(fRemovedPositions);
-		fNOfRemovedPositions= fRemovedPositions.size();
+	private void addDeclarations(IASTDeclaration[] declarations) {
+		for (IASTDeclaration declaration : declarations) {
+			if (!declaration.isPartOfTranslationUnitFile())
+				continue;
+			if (declaration instanceof ICPPASTNamespaceDefinition) {
+				ICPPASTNamespaceDefinition namespace= (ICPPASTNamespaceDefinition) declaration;
+				fDeclarations.add(namespace.getName());
+				addDeclarations(namespace.getDeclarations());
+			} else if (declaration instanceof ICPPASTLinkageSpecification) {
+				addDeclarations(((ICPPASTLinkageSpecification) declaration).getDeclarations());
+			} else {
+				fDeclarations.add(declaration);
+			}
+		}
 	}
 
 	/**
 	 * Reconcile positions based on the AST.
+	 * <p>
+	 * The file is reconciled in slices, starting with the range visible in the editor. Each slice
+	 * is presented as soon as it is reconciled. After an edit confined to the body of a single
+	 * function only that function is reconciled, provided the last reconcile completed.
+	 * </p>
 	 *
 	 * @param ast  the AST
 	 * @param visitor  the AST visitor
+	 * @param force  <code>true</code> if the reconcile is not caused by a modification of the document
+	 */
+	private void reconcilePositions(IASTTranslationUnit ast, PositionCollector visitor, boolean force) {
+		IRegion dirtyRegion= fJobPresenter.takeDirtyRegion();
+		int[] slices= null;
+		if (!force && fIsComplete && dirtyRegion != null)
+			slices= getModifiedFunction(dirtyRegion);
+		if (slices == null)
+			slices= getSlices();
+
+		fIsComplete= false;
+		for (int i= 0; i < slices.length; i+= 2) {
+			if (fJobPresenter.isCanceled())
+				return;
+			visitor.setRange(slices[i], slices[i + 1]);
+			reconcileSlice(visitor);
+		}
+		if (!fJobPresenter.isCanceled())
+			fIsComplete= true;
+	}
+
+	/**
+	 * Returns the range of the function definition enclosing the given modification of
+	 * the document.
+	 *
+	 * @param dirtyRegion  the modified region
+	 * @return the start and end of the range or <code>null</code>, if the modification is not
+	 * 	confined to the body of a single function, or the function defines macros
+	 */
+	private int[] getModifiedFunction(IRegion dirtyRegion) {
+		int dirtyStart= dirtyRegion.getOffset();
+		int dirtyEnd= dirtyStart + dirtyRegion.getLength();
+		int index= fDeclarations.indexOfFirstEndingAfter(dirtyStart);
+		if (index == fDeclarations.fSize || !(fDeclarations.fNodes[index] instanceof IASTFunctionDefinition))
+			return null;
+
+		IASTStatement body= ((IASTFunctionDefinition) fDeclarations.fNodes[index]).getBody();
+		IASTFileLocation bodyLocation= body != null ? body.getFileLocation() : null;
+		if (bodyLocation == null)
+			return null;
+		int bodyStart= bodyLocation.getNodeOffset();
+		int bodyEnd= bodyStart + bodyLocation.getNodeLength();
+		if (dirtyStart <= bodyStart || dirtyEnd >= bodyEnd)
+			return null;
+
+		int start= fDeclarations.fOffsets[index];
+		int end= fDeclarations.fEnds[index];
+		int macroDef= fMacroDefinitions.indexOfFirstEndingAfter(start);
+		if (macroDef < fMacroDefinitions.fSize && fMacroDefinitions.fOffsets[macroDef] < end)
+			return null;
+		return new int[] { start, end };
+	}
+
+	/**
+	 * Divides the file into slices not splitting declarations. The first slice covers the
+	 * range visible in the editor, followed by the slices below and then the slices above it.
+	 *
+	 * @return the start and end of each slice
+	 */
+	private int[] getSlices() {
+		int visibleStart= fVisibleStart;
+		int visibleEnd= fVisibleEnd;
+		if (visibleEnd > visibleStart) {
+			int index= fDeclarations.indexOfFirstEndingAfter(visibleStart);
+			if (index < fDeclarations.fSize && fDeclarations.fOffsets[index] < visibleStart)
+				visibleStart= fDeclarations.fOffsets[index];
+			index= fDeclarations.indexOfFirstEndingAfter(visibleEnd);
+			if (index < fDeclarations.fSize && fDeclarations.fOffsets[index] < visibleEnd)
+				visibleEnd= fDeclarations.fEnds[index];
+		} else {
+			visibleStart= 0;
+			visibleEnd= 0;
+		}
+
+		// boundaries of the slices in ascending order
+		int[] bounds= new int[fDeclarations.fSize + 4];
+		int nBounds= 0;
+		bounds[nBounds++]= 0;
+		for (int i= 0; i <= fDeclarations.fSize; i++) {
+			int offset= i < fDeclarations.fSize ? fDeclarations.fOffsets[i] : Integer.MAX_VALUE;
+			if (bounds[nBounds - 1] < visibleStart && visibleStart <= offset)
+				bounds[nBounds++]= visibleStart;
+			if (bounds[nBounds - 1] < visibleEnd && visibleEnd <= offset)
+				bounds[nBounds++]= visibleEnd;
+			if (offset - bounds[nBounds - 1] >= SLICE_SIZE)
+				bounds[nBounds++]= offset;
+		}
+		if (bounds[nBounds - 1] != Integer.MAX_VALUE)
+			bounds[nBounds++]= Integer.MAX_VALUE;
+
+		int first= 0;
+		while (bounds[first] < visibleStart)
+			first++;
+		int[] slices= new int[(nBounds - 1) * 2];
+		int n= 0;
+		for (int i= first; i < nBounds - 1; i++) {
+			slices[n++]= bounds[i];
+			slices[n++]= bounds[i + 1];
+		}
+		for (int i= first - 1; i >= 0; i--) {
+			slices[n++]= bounds[i];
+			slices[n++]= bounds[i + 1];
+		}
+		return slices;
+	}
+
+	/**
+	 * Reconciles the positions in the range of the given visitor and presents the result.
+	 *
+	 * @param visitor  the AST visitor
+	 */
+	private void reconcileSlice(PositionCollector visitor) {
+		visitor.visitMacros(fMacroDefinitions, fMacroExpansions);
+		for (int i= fDeclarations.indexOfFirstEndingAfter(visitor.fRangeStart); i < fDeclarations.fSize && fDeclarations.fOffsets[i] < visitor.fRangeEnd; i++) {
+			if (fJobPresenter.isCanceled())
+				return;
+			fDeclarations.fNodes[i].accept(visitor);
+		}
+		if (fJobPresenter.isCanceled())
+			return;
+
+		diffPositions(visitor.fRangeStart, visitor.fRangeEnd);
+
+		TextPresentation textPresentation= null;
+		if (!fJobPresenter.isCanceled())
+			textPresentation= fJobPresenter.createPresentation(new Region(fDamageStart, Math.max(fDamageEnd - fDamageStart, 0)));
+
+		if (!fJobPresenter.isCanceled())
+			updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+
+		fAddedPositions.clear();
+		fRemovedPositions.clear();
+		fNewPositions.clear();
+	}
+
+	/**
+	 * Computes the added and removed positions of the given range by merging the old
+	 * positions with the ranges found in the AST, both sorted by ascending offset. The added
+	 * and removed positions are sorted by ascending offset, too.
+	 *
+	 * @param start  the start of the range
+	 * @param end  the end of the range
 	 */
-	private void reconcilePositions(IASTTranslationUnit ast, PositionCollector visitor) {
-		ast.accept(visitor);
-		List<HighlightedPosition> oldPositions= fRemovedPositions;
-		List<HighlightedPosition> newPositions= new ArrayList<HighlightedPosition>(fNOfRemovedPositions);
-		for (int i= 0, n= oldPositions.size(); i < n; i ++) {
-			HighlightedPosition current= oldPositions.get(i);
-			if (current != null)
-				newPositions.add(current);
-		}
-		fRemovedPositions= newPositions;
-		// positions need to be sorted by ascending offset
-		Collections.sort(fAddedPositions, new Comparator<Position>() {
-			public int compare(final Position p1, final Position p2) {
-				return p1.getOffset() - p2.getOffset();
-			}});
+	private void diffPositions(int start, int end) {
+		PositionStore store= fNewPositions;
+		store.sort();
+		int[] newOffsets= store.fOffsets;
+		int nNew= store.fSize;
+
+		int[] oldOffsets= fOldOffsets;
+		int i= firstAtOrAfter(oldOffsets, start);
+		int nOld= firstAtOrAfter(oldOffsets, end);
+
+		fDamageStart= Integer.MAX_VALUE;
+		fDamageEnd= Integer.MIN_VALUE;
+		int j= 0;
+		while (i < nOld || j < nNew) {
+			if (j == nNew || (i < nOld && oldOffsets[i] < newOffsets[j])) {
+				removePosition(fOldPositions.get(i++));
+			} else if (i == nOld || newOffsets[j] < oldOffsets[i]) {
+				addPosition(j++);
+			} else {
+				// match the old and new positions with equal offset
+				int offset= oldOffsets[i];
+				int oldEnd= i;
+				while (oldEnd < nOld && oldOffsets[oldEnd] == offset)
+					oldEnd++;
+				int newEnd= j;
+				while (newEnd < nNew && newOffsets[newEnd] == offset)
+					newEnd++;
+				int oldStart= i;
+				if (fMatched.length < oldEnd - oldStart)
+					fMatched= new boolean[Math.max(oldEnd - oldStart, fMatched.length * 2)];
+				boolean[] matched= fMatched;
+				Arrays.fill(matched, 0, oldEnd - oldStart, false);
+				for (; j < newEnd; j++) {
+					HighlightingStyle highlighting= fJobHighlightings[store.fHighlightings[j]];
+					boolean isExisting= false;
+					for (int k= i; k < oldEnd; k++) {
+						if (!matched[k - oldStart] && fOldPositions.get(k).isEqual(offset, store.fLengths[j], highlighting)) {
+							matched[k - oldStart]= true;
+							isExisting= true;
+							break;
+						}
+					}
+					if (!isExisting)
+						addPosition(j);
+				}
+				for (; i < oldEnd; i++) {
+					if (!matched[i - oldStart])
+						removePosition(fOldPositions.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the first of the given ascending offsets at or after the given offset.
+	 */
+	private static int firstAtOrAfter(int[] offsets, int offset) {
+		int low= 0;
+		int high= offsets.length;
+		while (low < high) {
+			int mid= (low + high) >>> 1;
+			if (offsets[mid] < offset)
+				low= mid + 1;
+			else
+				high= mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Adds a position for the range found in the AST at the given index.
+	 */
+	private void addPosition(int index) {
+		int offset= fNewPositions.fOffsets[index];
+		int length= fNewPositions.fLengths[index];
+		HighlightingStyle highlighting= fJobHighlightings[fNewPositions.fHighlightings[index]];
+		fAddedPositions.add(fJobPresenter.createHighlightedPosition(offset, length, highlighting));
+		fDamageStart= Math.min(fDamageStart, offset);
+		fDamageEnd= Math.max(fDamageEnd, offset + length);
+	}
+
+	/**
+	 * Removes an old position.
+	 */
+	private void removePosition(HighlightedPosition position) {
+		fRemovedPositions.add(position);
+		int offset= position.getOffset();
+		fDamageStart= Math.min(fDamageStart, offset);
+		fDamageEnd= Math.max(fDamageEnd, offset + position.getLength());
 	}
 
 	/**
@@ -451,8 +911,13 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 	 */
 	private void stopReconcilingPositions() {
 		fRemovedPositions.clear();
-		fNOfRemovedPositions= 0;
+		fOldPositions.clear();
+		fOldOffsets= null;
+		fNewPositions.clear();
 		fAddedPositions.clear();
+		fDeclarations.clear();
+		fMacroDefinitions.clear();
+		fMacroExpansions.clear();
 	}
 
 	/**
@@ -469,6 +934,13 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 		fHighlightings= highlightings;
 
 		fEditor= editor;
+		fSourceViewer= sourceViewer;
+		fIsComplete= false;
+
+		if (fSourceViewer != null) {
+			fSourceViewer.addViewportListener(fViewportListener);
+			updateVisibleRange();
+		}
 
 		if (fEditor != null) {
 			fEditor.addReconcileListener(this);
@@ -487,11 +959,27 @@ public class SemanticHighlightingReconciler implements ICReconcilingListener {
 			fEditor= null;
 		}
 
+		if (fSourceViewer != null) {
+			fSourceViewer.removeViewportListener(fViewportListener);
+			fSourceViewer= null;
+		}
+
 		fSemanticHighlightings= null;
 		fHighlightings= null;
 		fPresenter= null;
 	}
 
+	/**
+	 * Records the range of the document visible in the source viewer, only from UI thread.
+	 */
+	private void updateVisibleRange() {
+		ISourceViewer sourceViewer= fSourceViewer;
+		if (sourceViewer == null || sourceViewer.getTextWidget() == null || sourceViewer.getTextWidget().isDisposed())
+			return;
+		fVisibleStart= sourceViewer.getTopIndexStartOffset();
+		fVisibleEnd= sourceViewer.getBottomIndexEndOffset();
+	}
+
 	/**
 	 * Schedule a background job for retrieving the AST and reconciling the Semantic Highlighting model.
 	 */
@@ -829,8 +829,7 @@ public class SemanticHighlightings {
 							&& !(binding instanceof IParameter)
 							&& !(binding instanceof IProblemBinding)) {
 						try {
-							IScope scope= binding.getScope();
-							if (LocalVariableHighlighting.isLocalScope(scope)) {
+							if (LocalVariableHighlighting.isLocalBinding(token)) {
 								return true;
 							}
 						} catch (DOMException exc) {
@@ -912,8 +911,7 @@ public class SemanticHighlightings {
 							&& !(binding instanceof IParameter)
 							&& !(binding instanceof IProblemBinding)) {
 						try {
-							IScope scope= binding.getScope();
-							if (isLocalScope(scope)) {
+							if (isLocalBinding(token)) {
 								return true;
 							}
 						} catch (DOMException exc) {
@@ -925,6 +923,19 @@ public class SemanticHighlightings {
 			return false;
 		}
 
+		/**
+		 * Returns whether the binding of the given token is declared in a local scope. The
+		 * result is shared by all references to the binding highlighted with the token.
+		 */
+		static boolean isLocalBinding(SemanticToken token) throws DOMException {
+			Boolean isLocal= token.getBindingProperty(SemanticToken.LOCAL_SCOPE);
+			if (isLocal == null) {
+				isLocal= Boolean.valueOf(isLocalScope(token.getBinding().getScope()));
+				token.setBindingProperty(SemanticToken.LOCAL_SCOPE, isLocal.booleanValue());
+			}
+			return isLocal.booleanValue();
+		}
+
 	    public static boolean isLocalScope(IScope scope) {
 	        while (scope != null) {
 	            if (scope instanceof ICPPFunctionScope ||
@@ -1013,8 +1024,7 @@ public class SemanticHighlightings {
 						&& !(binding instanceof ICPPTemplateNonTypeParameter)
 						&& !(binding instanceof IProblemBinding)) {
 					try {
-						IScope scope= binding.getScope();
-						if (!LocalVariableHighlighting.isLocalScope(scope)) {
+						if (!LocalVariableHighlighting.isLocalBinding(token)) {
 							return true;
 						}
 					} catch (DOMException exc) {
@@ -1873,9 +1883,14 @@ public class SemanticHighlightings {
 					return false;
 				}
 				if (name.isReference()) {
-					IBinding binding= token.getBinding();
-					IIndex index= token.getRoot().getIndex();
-					return isExternalSDKReference(binding, index);
+					Boolean isExternal= token.getBindingProperty(SemanticToken.EXTERNAL_SDK);
+					if (isExternal == null) {
+						IBinding binding= token.getBinding();
+						IIndex index= token.getRoot().getIndex();
+						isExternal= Boolean.valueOf(isExternalSDKReference(binding, index));
+						token.setBindingProperty(SemanticToken.EXTERNAL_SDK, isExternal.booleanValue());
+					}
+					return isExternal.booleanValue();
 				}
 			}
 			return false;
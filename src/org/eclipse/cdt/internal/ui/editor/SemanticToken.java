@@ -12,6 +12,9 @@
 
 package org.eclipse.cdt.internal.ui.editor;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.dom.ast.IASTNode;
 import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
@@ -25,6 +28,13 @@ import org.eclipse.cdt.core.dom.ast.IBinding;
  */
 public final class SemanticToken {
 
+	/** Binding property: the binding is declared in a function or block scope */
+	static final int LOCAL_SCOPE= 0x1;
+	/** Binding property: the binding is a function declared in an external SDK only */
+	static final int EXTERNAL_SDK= 0x2;
+	/** Shift of the bits recording that a property is known */
+	private static final int KNOWN_SHIFT= 16;
+
 	/** AST node */
 	private IASTNode fNode;
 
@@ -37,6 +47,13 @@ public final class SemanticToken {
 	private IASTTranslationUnit fRoot;
 	private boolean fIsRootResolved= false;
 
+	/** Properties of bindings, shared by the nodes this token is updated with */
+	private final Map<IBinding, Integer> fBindingProperties= new HashMap<IBinding, Integer>();
+	/** Number of binding properties found in {@link #fBindingProperties} */
+	private int fPropertyHits;
+	/** Number of binding properties not found in {@link #fBindingProperties} */
+	private int fPropertyMisses;
+
 	/**
 	 * @return Returns the binding, can be <code>null</code>.
 	 */
@@ -50,6 +67,58 @@ public final class SemanticToken {
 		return fBinding;
 	}
 
+	/**
+	 * Returns a property of the binding of this token recorded while highlighting
+	 * another reference to the binding.
+	 *
+	 * @param property {@link #LOCAL_SCOPE} or {@link #EXTERNAL_SDK}
+	 * @return the value of the property or <code>null</code>, if it is not known yet
+	 */
+	Boolean getBindingProperty(int property) {
+		IBinding binding= getBinding();
+		if (binding != null) {
+			Integer properties= fBindingProperties.get(binding);
+			if (properties != null && (properties.intValue() & property << KNOWN_SHIFT) != 0) {
+				fPropertyHits++;
+				return Boolean.valueOf((properties.intValue() & property) != 0);
+			}
+		}
+		fPropertyMisses++;
+		return null;
+	}
+
+	/**
+	 * Records a property of the binding of this token for other references to the binding.
+	 *
+	 * @param property {@link #LOCAL_SCOPE} or {@link #EXTERNAL_SDK}
+	 * @param value the value of the property
+	 */
+	void setBindingProperty(int property, boolean value) {
+		IBinding binding= getBinding();
+		if (binding != null) {
+			Integer properties= fBindingProperties.get(binding);
+			int bits= properties != null ? properties.intValue() : 0;
+			bits|= property << KNOWN_SHIFT;
+			if (value)
+				bits|= property;
+			fBindingProperties.put(binding, Integer.valueOf(bits));
+		}
+	}
+
+	/**
+	 * @return the number of binding properties looked up and found recorded
+	 */
+	int getBindingPropertyHits() {
+		return fPropertyHits;
+	}
+
+	/**
+	 * @return the number of binding properties looked up and not found recorded
+	 */
+	int getBindingPropertyMisses() {
+		return fPropertyMisses;
+	}
+
 	/**
 	 * @return the AST node
 	 */
@@ -84,7 +153,7 @@ public final class SemanticToken {
 	}
 
 	/**
-	 * Clears this token.
+	 * Clears this token, recorded binding properties are kept.
 	 * <p>
 	 * NOTE: Allowed to be used by {@link SemanticHighlightingReconciler} only.
 	 * </p>
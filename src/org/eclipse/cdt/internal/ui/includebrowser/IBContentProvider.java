@@ -42,7 +42,7 @@ public class IBContentProvider extends AsyncTreeContentProvider {
 	 * Constructs the content provider.
 	 */
 	public IBContentProvider(Display disp) {
-		super(disp);
+		super(disp, PARALLEL_WORKERS, true);
 	}
 
 	@Override
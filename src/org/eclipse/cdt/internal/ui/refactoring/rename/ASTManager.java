@@ -15,12 +15,21 @@ package org.eclipse.cdt.internal.ui.refactoring.rename;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.Assert;
@@ -129,9 +138,21 @@ public class ASTManager implements IDisposable {
     public final static int FALSE= 0;
     public final static int UNKNOWN= -1;
     
+	private static final ThreadFactory THREAD_FACTORY= new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Rename Refactoring Analysis"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	/** Guards the shared ASTs and {@link #fDisposed}, the analysis threads acquire shared ASTs */
+	private final Object fSharedASTLock= new Object();
 	private IASTTranslationUnit fSharedAST;
+	/** Shared ASTs acquired before {@link #fSharedAST}, they may still be analyzed by another thread */
+	private final List<IASTTranslationUnit> fPreviousSharedASTs= new ArrayList<IASTTranslationUnit>();
     private Map<IFile, IASTTranslationUnit> fTranslationUnits= new HashMap<IFile, IASTTranslationUnit>();
-    private HashSet<String> fProblemUnits= new HashSet<String>();
+    private Set<String> fProblemUnits= Collections.synchronizedSet(new HashSet<String>());
     private CRefactoringArgument fArgument;
     private IBinding[] fValidBindings;
     private String fRenameTo;
@@ -788,14 +809,32 @@ public class ASTManager implements IDisposable {
         fArgument= arg;
     }
 
+    /**
+     * Creates a manager for analyzing the text matches of a single file on behalf of the
+     * given one, such that the known and conflicting bindings stay confined to one thread.
+     */
+    private ASTManager(ASTManager parent) {
+        fArgument= parent.fArgument;
+        fValidBindings= parent.fValidBindings;
+        fRenameTo= parent.fRenameTo;
+        fProblemUnits= parent.fProblemUnits;
+    }
+
 	/**
 	 * @see IDisposable#dispose()
 	 */
 	public void dispose() {
-        Assert.isTrue(!fDisposed, "ASTManager.dispose() called more than once"); //$NON-NLS-1$
-		fDisposed = true;
-		if (fSharedAST != null) {
-			ASTProvider.getASTProvider().releaseSharedAST(fSharedAST);
+		synchronized (fSharedASTLock) {
+			Assert.isTrue(!fDisposed, "ASTManager.dispose() called more than once"); //$NON-NLS-1$
+			fDisposed = true;
+			if (fSharedAST != null) {
+				ASTProvider.getASTProvider().releaseSharedAST(fSharedAST);
+				fSharedAST = null;
+			}
+			for (IASTTranslationUnit ast : fPreviousSharedASTs) {
+				ASTProvider.getASTProvider().releaseSharedAST(ast);
+			}
+			fPreviousSharedASTs.clear();
 		}
 	}
 
@@ -905,36 +944,47 @@ public class ASTManager implements IDisposable {
             ICElement celem= CoreModel.getDefault().create(sourceFile);
             if (celem instanceof ITranslationUnit) {
             	ITranslationUnit tu= CModelUtil.toWorkingCopy((ITranslationUnit) celem);
-        		if (fSharedAST != null && tu.equals(fSharedAST.getOriginatingTranslationUnit())) {
-        			ast = fSharedAST;
-        		} else {
-                	// Try to get a shared AST before creating our own.
-    	        	ast = ASTProvider.getASTProvider().acquireSharedAST(tu, index,
-    	        			ASTProvider.WAIT_ACTIVE_ONLY, null);
-    	        	if (ast == null) {
-    					try {
-							ast= tu.getAST(index, PARSE_MODE);
-						} catch (CoreException e) {
-		            		status.addError(e.getMessage());
-						}
-    	            	if (cacheit) {
-    	            		fTranslationUnits.put(sourceFile, ast);
-    	            	}
-    	        	} else {
-    	        		if (fSharedAST != null) {
-    	        			ASTProvider.getASTProvider().releaseSharedAST(fSharedAST);
-    	        		}
-    	        		fSharedAST = ast;
-    	        	}
-        		}
+            	// Try to get a shared AST before creating our own.
+            	ast = getSharedAST(tu, index);
+	        	if (ast == null) {
+					try {
+						ast= tu.getAST(index, PARSE_MODE);
+					} catch (CoreException e) {
+	            		status.addError(e.getMessage());
+					}
+	            	if (cacheit) {
+	            		fTranslationUnits.put(sourceFile, ast);
+	            	}
+	        	}
             }
         }
         return ast;
     }
 
-    public void analyzeTextMatches(IIndex index, Collection<CRefactoringMatch> matches,
+	private IASTTranslationUnit getSharedAST(ITranslationUnit tu, IIndex index) {
+		synchronized (fSharedASTLock) {
+			if (fDisposed) {
+				// a shared AST acquired now would never be released
+				return null;
+			}
+			if (fSharedAST != null && tu.equals(fSharedAST.getOriginatingTranslationUnit())) {
+				return fSharedAST;
+			}
+			IASTTranslationUnit ast = ASTProvider.getASTProvider().acquireSharedAST(tu, index,
+					ASTProvider.WAIT_ACTIVE_ONLY, null);
+			if (ast != null) {
+				if (fSharedAST != null) {
+					fPreviousSharedASTs.add(fSharedAST);
+				}
+				fSharedAST = ast;
+			}
+			return ast;
+		}
+	}
+
+    public void analyzeTextMatches(final IIndex index, Collection<CRefactoringMatch> matches,
     		IProgressMonitor monitor, RefactoringStatus status) {
-        CRefactoringMatchStore store= new CRefactoringMatchStore();
+        final CRefactoringMatchStore store= new CRefactoringMatchStore();
         for (CRefactoringMatch match : matches) {
             store.addMatch(match);
         }
@@ -944,54 +994,166 @@ public class ASTManager implements IDisposable {
         monitor.beginTask(taskName, 2 * count);
         monitor.setTaskName(taskName);
 
+        // the files are parsed and analyzed concurrently, the results are merged in order
         List<IFile> files= store.getFileList();
-        int cc= 0;
-        long now= System.currentTimeMillis();
-        long update= now;
-        for (IFile file : files) {
-            cc++;
-            if (store.contains(file)) {
-                if ((now = System.currentTimeMillis()) > update) {
-                    String nofm= nth_of_m(cc, count);
-                    String taskname= NLS.bind(RenameMessages.ASTManager_subtask_analyzing, nofm);
-                    monitor.subTask(taskname); 
-                    update= now + 1000;
-                }
-                boolean doParse= false;
-                Collection<CRefactoringMatch> fm= store.getMatchesForFile(file);
-                for (Iterator<CRefactoringMatch> iterator = fm.iterator(); !doParse && iterator.hasNext();) {
-                    CRefactoringMatch match = iterator.next();
-                    switch (match.getLocation()) {
-                    case CRefactory.OPTION_IN_COMMENT:
-                    case CRefactory.OPTION_IN_INCLUDE_DIRECTIVE:
-                    case CRefactory.OPTION_IN_STRING_LITERAL:
-                        break;
-                    default:
-                        doParse= true;
+        List<FutureTask<RefactoringStatus>> tasks= new ArrayList<FutureTask<RefactoringStatus>>(files.size());
+        final AtomicBoolean stop= new AtomicBoolean();
+        int parseCount= 0;
+        for (final IFile file : files) {
+            FutureTask<RefactoringStatus> task= null;
+            if (store.contains(file) && needsParsing(store.getMatchesForFile(file))) {
+                task= new FutureTask<RefactoringStatus>(new Callable<RefactoringStatus>() {
+                    public RefactoringStatus call() {
+                        RefactoringStatus fileStatus= new RefactoringStatus();
+                        // matches of the file may have been analyzed with another file
+                        if (!stop.get() && store.contains(file)) {
+                            IASTTranslationUnit tu= getTranslationUnit(index, file, false, fileStatus);
+                            if (tu != null) {
+                                ASTManager analysis= new ASTManager(ASTManager.this);
+                                try {
+                                    analysis.analyzeTextMatchesOfTranslationUnit(tu, store, fileStatus);
+                                } finally {
+                                    analysis.dispose();
+                                }
+                            }
+                            if (fileStatus.hasFatalError()) {
+                                stop.set(true);
+                            }
+                        }
+                        return fileStatus;
                     }
-                }
+                });
+                parseCount++;
+            }
+            tasks.add(task);
+        }
 
-                if (doParse) {
-                    IASTTranslationUnit tu= getTranslationUnit(index, file, false, status);
-                    monitor.worked(1);
-                    analyzeTextMatchesOfTranslationUnit(tu, store, status);
-                    if (status.hasFatalError()) {
-                        return;
+        final int threads= Math.min(Runtime.getRuntime().availableProcessors(), parseCount);
+        ExecutorService executor= null;
+        try {
+            if (threads > 1) {
+                executor= Executors.newFixedThreadPool(threads, THREAD_FACTORY);
+                for (FutureTask<RefactoringStatus> task : tasks) {
+                    if (task != null) {
+                        executor.execute(task);
                     }
-                    monitor.worked(1);
-                } else {
-                    monitor.worked(2);
                 }
+            }
+            int cc= 0;
+            long now= System.currentTimeMillis();
+            long update= now;
+            for (FutureTask<RefactoringStatus> task : tasks) {
+                cc++;
+                if (task != null) {
+                    if ((now = System.currentTimeMillis()) > update) {
+                        String nofm= nth_of_m(cc, count);
+                        String taskname= NLS.bind(RenameMessages.ASTManager_subtask_analyzing, nofm);
+                        monitor.subTask(taskname); 
+                        update= now + 1000;
+                    }
+                    if (executor == null) {
+                        task.run();
+                    }
+                    RefactoringStatus fileStatus= waitFor(task, monitor);
+                    if (fileStatus != null) {
+                        mergeStatus(status, fileStatus);
+                        if (fileStatus.hasFatalError()) {
+                            return;
+                        }
+                    }
+                }
+                monitor.worked(2);
                 if (monitor.isCanceled()) {
                     throw new OperationCanceledException();
                 }
-            } else {
-                monitor.worked(2);
+            }
+        } finally {
+            stop.set(true);
+            if (executor != null) {
+                // the analysis threads use the shared ASTs released by dispose()
+                shutdown(executor);
             }
         }
         monitor.done();
     }
 
+    /**
+     * Stops the analysis threads and waits until they have finished.
+     */
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+        boolean interrupted= false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted= true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean needsParsing(Collection<CRefactoringMatch> matches) {
+        for (CRefactoringMatch match : matches) {
+            switch (match.getLocation()) {
+            case CRefactory.OPTION_IN_COMMENT:
+            case CRefactory.OPTION_IN_INCLUDE_DIRECTIVE:
+            case CRefactory.OPTION_IN_STRING_LITERAL:
+                break;
+            default:
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RefactoringStatus waitFor(FutureTask<RefactoringStatus> task, IProgressMonitor monitor) {
+        while (true) {
+            if (monitor.isCanceled()) {
+                throw new OperationCanceledException();
+            }
+            try {
+                return task.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // check for cancellation
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OperationCanceledException();
+            } catch (ExecutionException e) {
+                Throwable cause= e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                CUIPlugin.log(cause);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Adds the entries of the status of a file, conflicts reported for several files are
+     * added once.
+     */
+    private static void mergeStatus(RefactoringStatus status, RefactoringStatus fileStatus) {
+        for (RefactoringStatusEntry entry : fileStatus.getEntries()) {
+            boolean known= false;
+            for (RefactoringStatusEntry other : status.getEntries()) {
+                if (other.getSeverity() == entry.getSeverity() && other.getMessage().equals(entry.getMessage())) {
+                    known= true;
+                    break;
+                }
+            }
+            if (!known) {
+                status.addEntry(entry);
+            }
+        }
+    }
+
     private void analyzeTextMatchesOfTranslationUnit(IASTTranslationUnit tu, 
             final CRefactoringMatchStore store, final RefactoringStatus status) {
         fKnownBindings= new HashMap<IBinding, Integer>();
@@ -1015,7 +1177,10 @@ public class ASTManager implements IDisposable {
                 store.removePath(path);
             }
         }
-        handleConflictingBindings(tu, status);
+        synchronized (fArgument) {
+            // the argument's AST is shared with the analysis of the other files
+            handleConflictingBindings(tu, status);
+        }
         fKnownBindings= null;
         fConflictingBinding= null;
     }
@@ -1191,18 +1356,20 @@ public class ASTManager implements IDisposable {
         	if (problemInQualifier) {
         		cmp= UNKNOWN;
         	} else {
-        		for (IBinding renameBinding : fValidBindings) {
-        			try {
-        				int cmp0= isSameBinding(binding, renameBinding);
-        				if (cmp0 != FALSE) {
-        					cmp= cmp0;
-        				}
-        				if (cmp0 == TRUE) {
-        					break;
+        		synchronized (fArgument) {
+        			for (IBinding renameBinding : fValidBindings) {
+        				try {
+        					int cmp0= isSameBinding(binding, renameBinding);
+        					if (cmp0 != FALSE) {
+        						cmp= cmp0;
+        					}
+        					if (cmp0 == TRUE) {
+        						break;
+        					}
+        				} catch (DOMException e) {
+        					handleDOMException(name.getTranslationUnit(), e, status);
+        					cmp= UNKNOWN;
         				}
-        			} catch (DOMException e) {
-        				handleDOMException(name.getTranslationUnit(), e, status);
-        				cmp= UNKNOWN;
         			}
         		}
         	}
@@ -39,7 +39,7 @@ public class CRefactoringMatchStore {
         };
     }
     
-    public void addMatch(CRefactoringMatch match) {
+    public synchronized void addMatch(CRefactoringMatch match) {
         IPath path= resolvePath(match.getFile());
         if (path != null) {
             Map<CRefactoringMatch, CRefactoringMatch> matchesForPath= getMapForPath(path, true);
@@ -68,23 +68,23 @@ public class CRefactoringMatchStore {
         return path;
     }
 
-    public int getFileCount() {
+    public synchronized int getFileCount() {
         return fFileToPathMap.size();
     }
 
-    public List<IFile> getFileList() {
+    public synchronized List<IFile> getFileList() {
         return new ArrayList<IFile>(fFileToPathMap.keySet());
     }
 
-    public boolean contains(IResource file) {
+    public synchronized boolean contains(IResource file) {
         return fFileToPathMap.containsKey(file);
     }
 
-    public Collection<CRefactoringMatch> getMatchesForFile(IResource file) {
+    public synchronized Collection<CRefactoringMatch> getMatchesForFile(IResource file) {
         return getMatchesForPath(fFileToPathMap.get(file));
     }
 
-    public Collection<CRefactoringMatch> getMatchesForPath(IPath path) {
+    public synchronized Collection<CRefactoringMatch> getMatchesForPath(IPath path) {
         if (path != null) {
             Map<CRefactoringMatch, CRefactoringMatch> map= fPathToMatches.get(path);
             if (map != null) {
@@ -94,7 +94,7 @@ public class CRefactoringMatchStore {
         return Collections.emptySet();
     }
 
-    public CRefactoringMatch findMatch(IPath path, int nodeOffset) {
+    public synchronized CRefactoringMatch findMatch(IPath path, int nodeOffset) {
         Map<CRefactoringMatch, CRefactoringMatch> map= fPathToMatches.get(path);
         if (map != null) {
             return map.get(new CRefactoringMatch(null, nodeOffset, 0, 0));
@@ -102,7 +102,7 @@ public class CRefactoringMatchStore {
         return null;
     }
 
-    public void removePath(IPath path) {
+    public synchronized void removePath(IPath path) {
         Map<CRefactoringMatch, CRefactoringMatch> map= fPathToMatches.remove(path);
         if (map != null && !map.isEmpty()) {
             IFile file= (map.values().iterator().next()).getFile();
@@ -110,7 +110,7 @@ public class CRefactoringMatchStore {
         }
     }
 
-    public Collection<CRefactoringMatch> findMatchesInRange(Path path, int offset, int end) {
+    public synchronized Collection<CRefactoringMatch> findMatchesInRange(Path path, int offset, int end) {
         if (path != null) {
             SortedMap<CRefactoringMatch, CRefactoringMatch> map= fPathToMatches.get(path);
             if (map != null) {
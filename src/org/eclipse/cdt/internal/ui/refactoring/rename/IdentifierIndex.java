@@ -0,0 +1,594 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.refactoring.rename;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * The identifiers of the translation units of the workspace, used to find the files
+ * containing a word without reading all of the files in the scope of a rename refactoring.
+ * <p>
+ * For each file the hash codes of the words it contains are kept, together with the
+ * modification stamp of the file they were computed for. Files that have been changed
+ * are read again when they are searched, the index is also brought up to date in the
+ * background from resource deltas. The index is stored per project in the state location
+ * of the plugin, a while after it has changed. When the index grows too large, the projects
+ * that have not been searched recently are dropped from memory.
+ */
+public final class IdentifierIndex implements IResourceChangeListener {
+	private static final int MAGIC= 0x43494458;
+	private static final int VERSION= 1;
+	private static final String STORE_FOLDER= "identifierIndex"; //$NON-NLS-1$
+	private static final String STORE_EXT= ".idx"; //$NON-NLS-1$
+	private static final int[] NO_HASHES= {};
+	/** Delay in milliseconds after which changes to the index are stored */
+	private static final long STORE_DELAY= 60000;
+	/** Number of hash codes kept in memory before projects are dropped, 16 MB */
+	private static final int MAX_HASHES= 4 * 1024 * 1024;
+
+	private static IdentifierIndex fgInstance;
+
+	/**
+	 * The words of a file at a given modification stamp.
+	 */
+	private static final class FileEntry {
+		final long fStamp;
+		final long fTimeStamp;
+		/** The sorted hash codes of the words of the file */
+		final int[] fHashes;
+
+		FileEntry(long stamp, long timeStamp, int[] hashes) {
+			fStamp= stamp;
+			fTimeStamp= timeStamp;
+			fHashes= hashes;
+		}
+
+		boolean isCurrent(IFile file) {
+			return fStamp == file.getModificationStamp() && fTimeStamp == file.getLocalTimeStamp();
+		}
+
+		boolean contains(int hash) {
+			return Arrays.binarySearch(fHashes, hash) >= 0;
+		}
+	}
+
+	private final HashMap<IFile, FileEntry> fFiles= new HashMap<IFile, FileEntry>();
+	/** The total number of hash codes in {@link #fFiles} */
+	private int fHashCount;
+	/** Names of the projects whose stored index has been read, the least recently searched first */
+	private final LinkedHashSet<String> fLoadedProjects= new LinkedHashSet<String>();
+	/** Names of the projects whose index has changed since it was stored */
+	private final HashSet<String> fChangedProjects= new HashSet<String>();
+	/** Files changed in the workspace that are indexed in the background */
+	private final LinkedHashSet<IFile> fOutdated= new LinkedHashSet<IFile>();
+	private final Job fJob= new Job(RenameMessages.IdentifierIndex_jobName) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return updateOutdated(monitor);
+		}
+	};
+	private final Job fStoreJob= new Job(RenameMessages.IdentifierIndex_jobName) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			store();
+			return Status.OK_STATUS;
+		}
+	};
+	/** Whether the store job has been scheduled for the changes made */
+	private boolean fStorePending;
+
+	static synchronized IdentifierIndex getInstance() {
+		if (fgInstance == null) {
+			fgInstance= new IdentifierIndex();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fgInstance, IResourceChangeEvent.POST_CHANGE);
+		}
+		return fgInstance;
+	}
+
+	/**
+	 * Stores the index, called when the plugin is stopped.
+	 */
+	public static synchronized void shutdown() {
+		if (fgInstance != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(fgInstance);
+			fgInstance.fJob.cancel();
+			fgInstance.fStoreJob.cancel();
+			fgInstance.store();
+			fgInstance= null;
+		}
+	}
+
+	private IdentifierIndex() {
+		fJob.setSystem(true);
+		fJob.setPriority(Job.DECORATE);
+		fStoreJob.setSystem(true);
+		fStoreJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Returns whether the word consists of the characters of an identifier, such that it
+	 * can be searched for in the index.
+	 */
+	static boolean isIdentifier(String word) {
+		if (word.length() == 0 || isDigit(word.charAt(0)))
+			return false;
+		for (int i= 0; i < word.length(); i++) {
+			if (!isWordCharacter(word.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the occurrences of the word in the given files to the target list. Only the
+	 * files containing the word according to the index are read.
+	 *
+	 * @param word an identifier, see {@link #isIdentifier(String)}.
+	 */
+	void searchWord(IFile[] files, String word, IProgressMonitor monitor, List<CRefactoringMatch> target) {
+		monitor.beginTask(RenameMessages.TextSearch_monitor_searchFiles, files.length);
+		final int hash= word.hashCode();
+		for (IFile file : files) {
+			if (monitor.isCanceled()) {
+				break;
+			}
+			if (CoreModel.getDefault().create(file) instanceof ITranslationUnit) {
+				char[] content= getDirtyContent(file);
+				if (content == null) {
+					FileEntry entry= getEntry(file);
+					if (entry == null || entry.contains(hash)) {
+						// a change made while the file is read invalidates the entry
+						final long stamp= file.getModificationStamp();
+						final long timeStamp= file.getLocalTimeStamp();
+						content= readContent(file);
+						if (content != null && entry == null) {
+							putEntry(file, stamp, timeStamp, computeHashes(content));
+						}
+					}
+				}
+				if (content != null) {
+					findWord(file, content, word, target);
+				}
+			}
+			monitor.worked(1);
+		}
+		monitor.done();
+	}
+
+	private static void findWord(IFile file, char[] content, String word, List<CRefactoringMatch> target) {
+		ArrayList<int[]> locations= null;
+		final int length= word.length();
+		int i= 0;
+		while (i < content.length) {
+			if (!isWordCharacter(content[i])) {
+				i++;
+				continue;
+			}
+			final int start= i;
+			while (i < content.length && isWordCharacter(content[i])) {
+				i++;
+			}
+			if (i - start == length && regionMatches(content, start, word)) {
+				if (locations == null) {
+					locations= new ArrayList<int[]>();
+					TextSearchWrapper.computeLocations(new CharArrayReader(content), locations);
+				}
+				int location= TextSearchWrapper.findLocation(start, length, locations);
+				target.add(new CRefactoringMatch(file, start, length, location));
+			}
+		}
+	}
+
+	private static boolean regionMatches(char[] content, int start, String word) {
+		for (int j= 0; j < word.length(); j++) {
+			if (content[start + j] != word.charAt(j))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the sorted hash codes of the identifiers in the content. Words starting with a
+	 * digit are skipped, they cannot contain an identifier as a whole word.
+	 */
+	private static int[] computeHashes(char[] content) {
+		int[] hashes= new int[64];
+		int count= 0;
+		int i= 0;
+		while (i < content.length) {
+			if (!isWordCharacter(content[i])) {
+				i++;
+				continue;
+			}
+			final boolean isIdentifier= !isDigit(content[i]);
+			int hash= 0;
+			while (i < content.length && isWordCharacter(content[i])) {
+				// same as String.hashCode()
+				hash= 31 * hash + content[i];
+				i++;
+			}
+			if (isIdentifier) {
+				if (count == hashes.length) {
+					hashes= resize(hashes, count * 2);
+				}
+				hashes[count++]= hash;
+			}
+		}
+		if (count == 0)
+			return NO_HASHES;
+		Arrays.sort(hashes, 0, count);
+		int distinct= 1;
+		for (int j= 1; j < count; j++) {
+			if (hashes[j] != hashes[distinct - 1]) {
+				hashes[distinct++]= hashes[j];
+			}
+		}
+		return resize(hashes, distinct);
+	}
+
+	private static int[] resize(int[] array, int length) {
+		int[] result= new int[length];
+		System.arraycopy(array, 0, result, 0, Math.min(length, array.length));
+		return result;
+	}
+
+	private static boolean isWordCharacter(char c) {
+		// the characters matched by \w in a regular expression
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Returns the content of the file if it is modified in an editor, or <code>null</code>.
+	 */
+	private static char[] getDirtyContent(IFile file) {
+		ITextFileBuffer buffer= FileBuffers.getTextFileBufferManager().getTextFileBuffer(file.getFullPath(),
+				LocationKind.IFILE);
+		if (buffer != null && buffer.isDirty()) {
+			return buffer.getDocument().get().toCharArray();
+		}
+		return null;
+	}
+
+	private static char[] readContent(IFile file) {
+		try {
+			Reader reader= new BufferedReader(new InputStreamReader(file.getContents(), file.getCharset()));
+			try {
+				char[] buffer= new char[4096];
+				int length= 0;
+				int n;
+				while ((n= reader.read(buffer, length, buffer.length - length)) > 0) {
+					length += n;
+					if (length == buffer.length) {
+						char[] newBuffer= new char[length * 2];
+						System.arraycopy(buffer, 0, newBuffer, 0, length);
+						buffer= newBuffer;
+					}
+				}
+				if (length == buffer.length)
+					return buffer;
+				char[] result= new char[length];
+				System.arraycopy(buffer, 0, result, 0, length);
+				return result;
+			} finally {
+				reader.close();
+			}
+		} catch (CoreException e) {
+			// the file is not accessible
+		} catch (IOException e) {
+			// the file is not readable
+		}
+		return null;
+	}
+
+	private synchronized FileEntry getEntry(IFile file) {
+		loadProject(file.getProject());
+		trimToSize(file.getProject().getName());
+		FileEntry entry= fFiles.get(file);
+		if (entry != null && !entry.isCurrent(file)) {
+			removeEntry(file);
+			setChanged(file.getProject().getName());
+			entry= null;
+		}
+		return entry;
+	}
+
+	private synchronized void putEntry(IFile file, long stamp, long timeStamp, int[] hashes) {
+		final String projectName= file.getProject().getName();
+		loadProject(file.getProject());
+		removeEntry(file);
+		fFiles.put(file, new FileEntry(stamp, timeStamp, hashes));
+		fHashCount += hashes.length;
+		setChanged(projectName);
+		trimToSize(projectName);
+	}
+
+	private void removeEntry(IFile file) {
+		FileEntry entry= fFiles.remove(file);
+		if (entry != null) {
+			fHashCount -= entry.fHashes.length;
+		}
+	}
+
+	/**
+	 * Marks the index of the project as changed and schedules storing it.
+	 */
+	private void setChanged(String projectName) {
+		fChangedProjects.add(projectName);
+		if (!fStorePending) {
+			fStorePending= true;
+			fStoreJob.schedule(STORE_DELAY);
+		}
+	}
+
+	/**
+	 * Drops the least recently searched projects from memory until the number of hash codes
+	 * is within {@link #MAX_HASHES}. The given project is kept.
+	 */
+	private void trimToSize(String projectName) {
+		while (fHashCount > MAX_HASHES) {
+			final String eldest= fLoadedProjects.iterator().next();
+			if (eldest.equals(projectName))
+				break;
+			removeProject(eldest);
+		}
+	}
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta= event.getDelta();
+		if (delta == null)
+			return;
+		final List<IResource> changed= new ArrayList<IResource>();
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta delta) {
+					final IResource res= delta.getResource();
+					final int flags= delta.getFlags();
+					switch (delta.getKind()) {
+					case IResourceDelta.ADDED:
+					case IResourceDelta.REMOVED:
+						changed.add(res);
+						return res.getType() != IResource.FILE;
+					case IResourceDelta.CHANGED:
+						if ((flags & (IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING)) != 0) {
+							changed.add(res);
+						}
+						return true;
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			CUIPlugin.log(e);
+		}
+		if (!changed.isEmpty()) {
+			invalidate(changed);
+		}
+	}
+
+	private synchronized void invalidate(List<IResource> changed) {
+		boolean schedule= false;
+		for (IResource res : changed) {
+			final String projectName= res.getProject() == null ? null : res.getProject().getName();
+			if (projectName == null || !fLoadedProjects.contains(projectName))
+				continue;
+			if (res.getType() == IResource.FILE) {
+				IFile file= (IFile) res;
+				removeEntry(file);
+				setChanged(projectName);
+				if (file.exists()) {
+					schedule |= fOutdated.add(file);
+				}
+			} else if (res.getType() == IResource.PROJECT && !res.isAccessible()) {
+				// closed or removed projects are read again when they are searched
+				removeProject(projectName);
+			} else if (res.getType() != IResource.FILE && !res.exists()) {
+				final IPath path= res.getFullPath();
+				for (Iterator<Map.Entry<IFile, FileEntry>> iter= fFiles.entrySet().iterator(); iter.hasNext();) {
+					Map.Entry<IFile, FileEntry> entry= iter.next();
+					if (path.isPrefixOf(entry.getKey().getFullPath())) {
+						fHashCount -= entry.getValue().fHashes.length;
+						iter.remove();
+					}
+				}
+				setChanged(projectName);
+			}
+		}
+		if (schedule) {
+			fJob.schedule();
+		}
+	}
+
+	private IStatus updateOutdated(IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			IFile file;
+			synchronized (this) {
+				if (fOutdated.isEmpty()) {
+					break;
+				}
+				file= fOutdated.iterator().next();
+				fOutdated.remove(file);
+				if (fFiles.containsKey(file) || !fLoadedProjects.contains(file.getProject().getName())) {
+					continue;
+				}
+			}
+			if (file.isAccessible() && CoreModel.getDefault().create(file) instanceof ITranslationUnit) {
+				final long stamp= file.getModificationStamp();
+				final long timeStamp= file.getLocalTimeStamp();
+				char[] content= readContent(file);
+				if (content != null) {
+					putEntry(file, stamp, timeStamp, computeHashes(content));
+				}
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void removeProject(String projectName) {
+		HashMap<IFile, FileEntry> files= new HashMap<IFile, FileEntry>();
+		for (Iterator<Map.Entry<IFile, FileEntry>> iter= fFiles.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IFile, FileEntry> entry= iter.next();
+			if (entry.getKey().getProject().getName().equals(projectName)) {
+				files.put(entry.getKey(), entry.getValue());
+				fHashCount -= entry.getValue().fHashes.length;
+				iter.remove();
+			}
+		}
+		if (fChangedProjects.remove(projectName)) {
+			// the stored entries are checked against the files when the project is read again
+			store(projectName, files);
+		}
+		fLoadedProjects.remove(projectName);
+	}
+
+	private void loadProject(IProject project) {
+		final String name= project.getName();
+		if (fLoadedProjects.remove(name)) {
+			// keep the projects in the order they were searched in
+			fLoadedProjects.add(name);
+			return;
+		}
+		fLoadedProjects.add(name);
+		File file= getStoreFile(name);
+		if (file == null || !file.isFile())
+			return;
+		try {
+			DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION || !name.equals(in.readUTF()))
+					return;
+				final int count= in.readInt();
+				for (int i= 0; i < count; i++) {
+					IFile ifile= project.getFile(new Path(in.readUTF()));
+					final long stamp= in.readLong();
+					final long timeStamp= in.readLong();
+					int[] hashes= new int[in.readInt()];
+					for (int j= 0; j < hashes.length; j++) {
+						hashes[j]= in.readInt();
+					}
+					fFiles.put(ifile, new FileEntry(stamp, timeStamp, hashes));
+					fHashCount += hashes.length;
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			// the files are read again
+			file.delete();
+		}
+	}
+
+	private synchronized void store() {
+		fStorePending= false;
+		Map<String, Map<IFile, FileEntry>> projects= new HashMap<String, Map<IFile, FileEntry>>();
+		for (String name : fChangedProjects) {
+			projects.put(name, new HashMap<IFile, FileEntry>());
+		}
+		for (Map.Entry<IFile, FileEntry> entry : fFiles.entrySet()) {
+			Map<IFile, FileEntry> files= projects.get(entry.getKey().getProject().getName());
+			if (files != null) {
+				files.put(entry.getKey(), entry.getValue());
+			}
+		}
+		for (Map.Entry<String, Map<IFile, FileEntry>> entry : projects.entrySet()) {
+			store(entry.getKey(), entry.getValue());
+		}
+		fChangedProjects.clear();
+	}
+
+	private static void store(String projectName, Map<IFile, FileEntry> files) {
+		File file= getStoreFile(projectName);
+		if (file == null)
+			return;
+		File folder= file.getParentFile();
+		try {
+			folder.mkdirs();
+			File tmpFile= File.createTempFile("index", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+			DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(projectName);
+				out.writeInt(files.size());
+				for (Map.Entry<IFile, FileEntry> entry : files.entrySet()) {
+					final FileEntry fileEntry= entry.getValue();
+					out.writeUTF(entry.getKey().getProjectRelativePath().toPortableString());
+					out.writeLong(fileEntry.fStamp);
+					out.writeLong(fileEntry.fTimeStamp);
+					out.writeInt(fileEntry.fHashes.length);
+					for (int hash : fileEntry.fHashes) {
+						out.writeInt(hash);
+					}
+				}
+			} finally {
+				out.close();
+			}
+			file.delete();
+			if (!tmpFile.renameTo(file))
+				tmpFile.delete();
+		} catch (IOException e) {
+			CUIPlugin.log(e);
+		}
+	}
+
+	private static File getStoreFile(String projectName) {
+		CUIPlugin plugin= CUIPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		String name= Integer.toHexString(projectName.hashCode()) + '_' + Integer.toHexString(projectName.length()) + STORE_EXT;
+		return plugin.getStateLocation().append(STORE_FOLDER).append(name).toFile();
+	}
+}
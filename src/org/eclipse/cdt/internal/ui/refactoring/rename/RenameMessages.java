@@ -118,6 +118,9 @@ public class RenameMessages extends NLS {
 	public static String RenameSupport_not_available;
 	public static String RenameSupport_dialog_title;
 	public static String TextSearch_monitor_categorizeMatches;
+	public static String TextSearch_monitor_searchFiles;
+	public static String TextSearch_error_searchFiles;
+	public static String IdentifierIndex_jobName;
 
 	static {
 		NLS.initializeMessages(RenameMessages.class.getName(), RenameMessages.class);
@@ -36,6 +36,7 @@ import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.search.core.text.TextSearchEngine;
 import org.eclipse.search.core.text.TextSearchMatchAccess;
@@ -48,6 +49,7 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.ICElement;
 import org.eclipse.cdt.core.model.ITranslationUnit;
+import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.utils.PathUtil;
 
 import org.eclipse.cdt.internal.formatter.scanner.SimpleScanner;
@@ -55,7 +57,8 @@ import org.eclipse.cdt.internal.formatter.scanner.Token;
 
 /**
  * Wraps the platform text search and uses a scanner to categorize the text-matches
- * by location (comments, string-literals, etc.).
+ * by location (comments, string-literals, etc.). Identifiers are searched for in the
+ * files they occur in according to the {@link IdentifierIndex}.
  */
 public class TextSearchWrapper {
     public final static int SCOPE_FILE = 1;
@@ -268,6 +271,16 @@ public class TextSearchWrapper {
      */
     public IStatus searchWord(int scope, IFile file, String workingSet, IResource[] filter, String[] patterns,
             String word, IProgressMonitor monitor, final List<CRefactoringMatch> target) {
+        TextSearchScope searchscope= createSearchScope(file, scope, workingSet, filter, patterns);
+        if (IdentifierIndex.isIdentifier(word)) {
+            // only the files containing the word according to the index are read
+            MultiStatus status= new MultiStatus(CUIPlugin.PLUGIN_ID, 0,
+                    RenameMessages.TextSearch_error_searchFiles, null);
+            IFile[] files= searchscope.evaluateFilesInScope(status);
+            IdentifierIndex.getInstance().searchWord(files, word, new SubProgressMonitor(monitor, 100), target);
+            return status;
+        }
+
         int startPos= target.size();
         TextSearchEngine engine= TextSearchEngine.create();
         StringBuilder searchPattern= new StringBuilder(word.length() + 8);
@@ -279,7 +292,6 @@ public class TextSearchWrapper {
 
         Pattern pattern= Pattern.compile(searchPattern.toString());
         
-        TextSearchScope searchscope= createSearchScope(file, scope, workingSet, filter, patterns);
         TextSearchRequestor requestor= new TextSearchRequestor() {
             @Override
 			public boolean acceptPatternMatch(TextSearchMatchAccess access) {
@@ -312,7 +324,7 @@ public class TextSearchWrapper {
                 locations= new ArrayList<int[]>(); 
                 computeLocations(file, locations);                
             }
-            match.setLocation(findLocation(match, locations));            
+            match.setLocation(findLocation(match.getOffset(), match.getLength(), locations));            
             monitor.worked(1);
         }
     }
@@ -323,15 +335,15 @@ public class TextSearchWrapper {
         }
     };
 
-    private int findLocation(CRefactoringMatch match, ArrayList<int[]> states) {
-        int pos = Collections.binarySearch(states, new int[] {match.getOffset()}, COMPARE_FIRST_INTEGER);
+    static int findLocation(int offset, int length, ArrayList<int[]> states) {
+        int pos = Collections.binarySearch(states, new int[] {offset}, COMPARE_FIRST_INTEGER);
         if (pos < 0) {
             pos= -pos - 2;
             if (pos < 0) {
                 pos = 0;
             }
         }
-        int endOffset= match.getOffset() + match.getLength();
+        int endOffset= offset + length;
         int location= 0;
         while (pos < states.size()) {
             int[] info= states.get(pos);
@@ -346,7 +358,6 @@ public class TextSearchWrapper {
 
     private void computeLocations(IFile file, ArrayList<int[]> locations) {
         Reader reader;
-        SimpleScanner scanner= new SimpleScanner();
         try {
             reader = new BufferedReader(new InputStreamReader(file.getContents(), file.getCharset()));
         } catch (CoreException e) {
@@ -354,6 +365,14 @@ public class TextSearchWrapper {
         } catch (UnsupportedEncodingException e) {
             return;
         }
+        computeLocations(reader, locations);
+    }
+
+    /**
+     * Computes the locations of the content, the reader is closed.
+     */
+    static void computeLocations(Reader reader, ArrayList<int[]> locations) {
+        SimpleScanner scanner= new SimpleScanner();
         try {
             scanner.initialize(reader, null);
             scanner.setReuseToken(true);
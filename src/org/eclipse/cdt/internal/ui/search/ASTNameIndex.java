@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.cdt.core.dom.ast.ASTVisitor;
+import org.eclipse.cdt.core.dom.ast.IASTName;
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.IBinding;
+import org.eclipse.cdt.core.dom.ast.IMacroBinding;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPASTQualifiedName;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPClassType;
+import org.eclipse.cdt.core.dom.ast.cpp.ICPPUsingDeclaration;
+
+import org.eclipse.cdt.internal.ui.editor.ASTProvider;
+
+/**
+ * Index of the names of an AST by their lookup key. The AST is traversed once, on the
+ * first query, later queries for declarations and references of a binding resolve only
+ * the names having the name of the binding.
+ * <p>
+ * The index of the shared AST is obtained via {@link ASTProvider#getNameIndex(IASTTranslationUnit)}.
+ * Macros are looked up in the AST, their references are not part of the tree.
+ */
+public final class ASTNameIndex {
+	private static final IASTName[] NO_NAMES = {};
+
+	private final IASTTranslationUnit fRoot;
+	private Map<String, List<IASTName>> fNames;
+	private ICPPClassType[] fClassTypes;
+
+	public ASTNameIndex(IASTTranslationUnit root) {
+		fRoot = root;
+	}
+
+	public IASTTranslationUnit getTranslationUnit() {
+		return fRoot;
+	}
+
+	/**
+	 * Returns the declarations of the given binding, see
+	 * {@link IASTTranslationUnit#getDeclarationsInAST(IBinding)}.
+	 */
+	public synchronized IASTName[] getDeclarationsInAST(IBinding binding) {
+		if (!isIndexed(binding))
+			return fRoot.getDeclarationsInAST(binding);
+		return findNames(binding, true);
+	}
+
+	/**
+	 * Returns the references to the given binding, see
+	 * {@link IASTTranslationUnit#getReferences(IBinding)}.
+	 */
+	public synchronized IASTName[] getReferences(IBinding binding) {
+		if (!isIndexed(binding))
+			return fRoot.getReferences(binding);
+		return findNames(binding, false);
+	}
+
+	/**
+	 * Returns the classes referenced by the AST.
+	 */
+	public synchronized ICPPClassType[] getClassTypes() {
+		if (fClassTypes == null) {
+			Set<ICPPClassType> classTypes = new LinkedHashSet<ICPPClassType>();
+			for (List<IASTName> names : getNames().values()) {
+				for (IASTName name : names) {
+					IBinding binding = name.resolveBinding();
+					if (binding instanceof ICPPClassType) {
+						classTypes.add((ICPPClassType) binding);
+					}
+				}
+			}
+			fClassTypes = classTypes.toArray(new ICPPClassType[classTypes.size()]);
+		}
+		return fClassTypes;
+	}
+
+	private static boolean isIndexed(IBinding binding) {
+		return !(binding instanceof IMacroBinding) && !(binding instanceof ICPPUsingDeclaration);
+	}
+
+	private IASTName[] findNames(IBinding binding, boolean declarations) {
+		List<IASTName> candidates = getNames().get(new String(binding.getNameCharArray()));
+		if (candidates == null)
+			return NO_NAMES;
+		List<IASTName> result = new ArrayList<IASTName>();
+		for (IASTName name : candidates) {
+			if (declarations ? name.isDeclaration() : name.isReference()) {
+				if (isBinding(name.resolveBinding(), binding, declarations)) {
+					result.add(name);
+				}
+			}
+		}
+		return result.toArray(new IASTName[result.size()]);
+	}
+
+	private static boolean isBinding(IBinding candidate, IBinding binding, boolean declarations) {
+		if (candidate == null)
+			return false;
+		if (candidate.equals(binding))
+			return true;
+		if (!declarations && candidate instanceof ICPPUsingDeclaration) {
+			// the name of a using declaration refers to the declarations it nominates
+			for (IBinding delegate : ((ICPPUsingDeclaration) candidate).getDelegates()) {
+				if (binding.equals(delegate))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private Map<String, List<IASTName>> getNames() {
+		if (fNames == null) {
+			final Map<String, List<IASTName>> names = new HashMap<String, List<IASTName>>();
+			fRoot.accept(new ASTVisitor() {
+				{
+					shouldVisitNames = true;
+				}
+
+				@Override
+				public int visit(IASTName name) {
+					// the last segment of a qualified name is visited on its own
+					if (!(name instanceof ICPPASTQualifiedName)) {
+						String key = new String(name.getLookupKey());
+						List<IASTName> list = names.get(key);
+						if (list == null) {
+							list = new ArrayList<IASTName>(2);
+							names.put(key, list);
+						}
+						list.add(name);
+					}
+					return PROCESS_CONTINUE;
+				}
+			});
+			fNames = names;
+		}
+		return fNames;
+	}
+}
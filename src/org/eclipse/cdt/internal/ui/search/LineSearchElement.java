@@ -12,6 +12,9 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.search;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -155,16 +158,84 @@ public class LineSearchElement extends PDOMSearchElement {
 		Arrays.sort(matches, MATCHES_COMPARATOR);
 		LineSearchElement[] result = {};
 		
+		// read the lines of the matches using the line starts of a previous search
+		File file = LineStartTable.getLocalFile(fileLocation);
+		if (file != null) {
+			LineStartTable table = LineStartTable.load(fileLocation, file);
+			if (table != null) {
+				result = collectLineElements(table, matches, fileLocation);
+				if (result != null)
+					return result;
+				result = new LineSearchElement[0];
+			}
+		}
+
 		// read the content of file
 		FileContent content = FileContent.create(fileLocation);
 		if (content != null) {
 			AbstractCharArray buf = ((InternalFileContent) content).getSource();
-			if (buf != null)
+			if (buf != null) {
 				result = collectLineElements(buf, matches, fileLocation);
+				if (file != null)
+					LineStartTable.store(fileLocation, file, buf);
+			}
 		}
 		return result;
 	}
 
+	/**
+	 * Groups the sorted matches by lines and reads only the lines with matches.
+	 * @return the line elements or <code>null</code> if the lines can't be read.
+	 */
+	private static LineSearchElement[] collectLineElements(LineStartTable table, Match[] matches,
+			IIndexFileLocation fileLocation) {
+		List<LineSearchElement> result = new ArrayList<LineSearchElement>();
+		List<Match> matchCollector= new ArrayList<Match>();
+		int length = table.getLength();
+		int line = -1;
+		int minOffset = 0;
+		try {
+			RandomAccessFile file = table.open();
+			try {
+				for (Match match : matches) {
+					int offset = match.getOffset();
+					if (offset >= length) {
+						// the table is out of date, the file is read instead
+						return null;
+					}
+					if (offset < minOffset) {
+						// Match is overlapped by the previous one.
+						continue;
+					}
+					int matchLine = table.getLineOfOffset(offset);
+					if (matchLine != line && !matchCollector.isEmpty()) {
+						result.add(createElement(table, file, line, matchCollector, fileLocation));
+						matchCollector.clear();
+					}
+					line = matchLine;
+					matchCollector.add(match);
+					minOffset = offset + match.getLength();
+				}
+				if (!matchCollector.isEmpty()) {
+					result.add(createElement(table, file, line, matchCollector, fileLocation));
+				}
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		return result.toArray(new LineSearchElement[result.size()]);
+	}
+
+	private static LineSearchElement createElement(LineStartTable table, RandomAccessFile file, int line,
+			List<Match> matchCollector, IIndexFileLocation fileLocation) throws IOException {
+		String lineContent = table.readLine(file, line);
+		Match[] lineMatches= matchCollector.toArray(new Match[matchCollector.size()]);
+		return new LineSearchElement(fileLocation, lineMatches, line + 1, lineContent,
+				table.getLineOffset(line));
+	}
+
 	public static LineSearchElement[] createElements(IIndexFileLocation fileLocation, Match[] matches,
 			IDocument document) {
 		// Sort matches according to their offsets
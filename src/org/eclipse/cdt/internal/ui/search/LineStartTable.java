@@ -0,0 +1,338 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.cdt.core.index.IIndexFileLocation;
+import org.eclipse.cdt.core.index.IndexLocationFactory;
+import org.eclipse.cdt.ui.CUIPlugin;
+
+import org.eclipse.cdt.internal.core.parser.scanner.AbstractCharArray;
+
+/**
+ * Line start offsets of a file, in characters and in bytes, so that single lines can be
+ * read without reading the whole file.
+ * <p>
+ * Tables are kept in the state location of the plugin, one file per source file, and are
+ * valid as long as the source file keeps its modification time, length and encoding. Tables are
+ * created only for encodings whose byte offsets can be computed from the characters and
+ * only if the byte offsets add up to the length of the file.
+ */
+final class LineStartTable {
+
+	private static final int VERSION = 1;
+	private static final String CACHE_FOLDER = "searchLines"; //$NON-NLS-1$
+	private static final String CACHE_EXT = ".lines"; //$NON-NLS-1$
+	/** Number of tables kept before the least recently written half is removed */
+	private static final int MAX_TABLES = 4096;
+	/** Number of tables written between checks of {@link #MAX_TABLES} */
+	private static final int PRUNE_INTERVAL = 256;
+
+	private static final AtomicInteger fgWritten = new AtomicInteger();
+
+	private final File fFile;
+	private final String fCharset;
+	/** Character offsets of the line starts, followed by the length of the text */
+	private final int[] fCharStarts;
+	/** Byte offsets of the line starts, followed by the length of the file */
+	private final int[] fByteStarts;
+
+	private LineStartTable(File file, String charset, int[] charStarts, int[] byteStarts) {
+		fFile = file;
+		fCharset = charset;
+		fCharStarts = charStarts;
+		fByteStarts = byteStarts;
+	}
+
+	/**
+	 * Returns the local file for the given location or <code>null</code>.
+	 */
+	static File getLocalFile(IIndexFileLocation fileLocation) {
+		IPath path = IndexLocationFactory.getAbsolutePath(fileLocation);
+		return path != null ? path.toFile() : null;
+	}
+
+	/**
+	 * Returns the table of the given file if it has been stored for the current
+	 * state and encoding of the file or <code>null</code>.
+	 *
+	 * @param fileLocation - location of the file.
+	 * @param file - the local file.
+	 */
+	static LineStartTable load(IIndexFileLocation fileLocation, File file) {
+		File tableFile = getTableFile(file);
+		if (!tableFile.isFile())
+			return null;
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(tableFile)));
+			try {
+				if (in.readInt() != VERSION || !in.readUTF().equals(file.getAbsolutePath())
+						|| in.readLong() != file.lastModified() || in.readLong() != file.length()) {
+					return null;
+				}
+				String charset = in.readUTF();
+				if (!charset.equals(getCharset(fileLocation))) {
+					// the encoding of the file has been changed
+					return null;
+				}
+				int count = in.readInt();
+				int[] charStarts = new int[count];
+				int[] byteStarts = new int[count];
+				for (int i = 0; i < count; i++) {
+					charStarts[i] = in.readInt();
+				}
+				for (int i = 0; i < count; i++) {
+					byteStarts[i] = in.readInt();
+				}
+				return new LineStartTable(file, charset, charStarts, byteStarts);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			// the table is replaced when the file is read
+			return null;
+		}
+	}
+
+	/**
+	 * Computes and stores the table of the given file from its content.
+	 *
+	 * @param fileLocation - location of the file.
+	 * @param file - the local file.
+	 * @param buf - content of the file.
+	 */
+	static void store(IIndexFileLocation fileLocation, File file, AbstractCharArray buf) {
+		long lastModified = file.lastModified();
+		long fileLength = file.length();
+		String charset = getCharset(fileLocation);
+		if (charset == null || fileLength > Integer.MAX_VALUE)
+			return;
+		boolean utf8;
+		try {
+			Charset cs = Charset.forName(charset);
+			utf8 = cs.name().equals("UTF-8"); //$NON-NLS-1$
+			if (!utf8 && (!cs.canEncode() || cs.newEncoder().maxBytesPerChar() != 1))
+				return;
+		} catch (IllegalArgumentException e) {
+			return;
+		}
+
+		int[] charStarts = new int[256];
+		int[] byteStarts = new int[256];
+		int count = 1;
+		int bytes = 0;
+		int pos = 0;
+		for (; buf.isValidOffset(pos); pos++) {
+			char c = buf.get(pos);
+			if (!utf8 || c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+				// a surrogate pair is encoded in four bytes
+				bytes += 2;
+			} else {
+				bytes += 3;
+			}
+			boolean lineEnd = c == '\n' || (c == '\r' && !(buf.isValidOffset(pos + 1) && buf.get(pos + 1) == '\n'));
+			if (lineEnd) {
+				if (count == charStarts.length) {
+					charStarts = copyOf(charStarts, count * 2);
+					byteStarts = copyOf(byteStarts, count * 2);
+				}
+				charStarts[count] = pos + 1;
+				byteStarts[count] = bytes;
+				count++;
+			}
+		}
+		if (bytes != fileLength || file.lastModified() != lastModified) {
+			// the content was decoded differently or the file has changed
+			return;
+		}
+		if (count == charStarts.length) {
+			charStarts = copyOf(charStarts, count + 1);
+			byteStarts = copyOf(byteStarts, count + 1);
+		}
+		charStarts[count] = pos;
+		byteStarts[count] = bytes;
+		count++;
+
+		File tableFile = getTableFile(file);
+		File folder = tableFile.getParentFile();
+		try {
+			folder.mkdirs();
+			File tmpFile = File.createTempFile("lines", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			try {
+				out.writeInt(VERSION);
+				out.writeUTF(file.getAbsolutePath());
+				out.writeLong(lastModified);
+				out.writeLong(fileLength);
+				out.writeUTF(charset);
+				out.writeInt(count);
+				for (int i = 0; i < count; i++) {
+					out.writeInt(charStarts[i]);
+				}
+				for (int i = 0; i < count; i++) {
+					out.writeInt(byteStarts[i]);
+				}
+			} finally {
+				out.close();
+			}
+			replace(tmpFile, tableFile);
+		} catch (IOException e) {
+			CUIPlugin.log(e);
+			return;
+		}
+		if (fgWritten.incrementAndGet() % PRUNE_INTERVAL == 0)
+			prune(folder);
+	}
+
+	/**
+	 * Replaces the table file by the given new one. Renaming over the old table is atomic
+	 * where supported, so that concurrent searches read either the old or the new table.
+	 * Elsewhere the old table is deleted first, searches not finding a table read the file.
+	 */
+	private static void replace(File tmpFile, File tableFile) {
+		if (tmpFile.renameTo(tableFile))
+			return;
+		tableFile.delete();
+		if (!tmpFile.renameTo(tableFile))
+			tmpFile.delete();
+	}
+
+	/**
+	 * Returns the number of characters of the file.
+	 */
+	int getLength() {
+		return fCharStarts[fCharStarts.length - 1];
+	}
+
+	/**
+	 * Returns the zero-based line containing the given character offset.
+	 */
+	int getLineOfOffset(int offset) {
+		int low = 0;
+		int high = fCharStarts.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (fCharStarts[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the character offset of the given zero-based line.
+	 */
+	int getLineOffset(int line) {
+		return fCharStarts[line];
+	}
+
+	/**
+	 * Opens the file to read lines from.
+	 */
+	RandomAccessFile open() throws IOException {
+		return new RandomAccessFile(fFile, "r"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Reads the given zero-based line without its delimiter.
+	 *
+	 * @param file - the file returned by {@link #open()}.
+	 * @throws IOException if the line can't be read or is not made up of the expected characters.
+	 */
+	String readLine(RandomAccessFile file, int line) throws IOException {
+		int start = fByteStarts[line];
+		byte[] bytes = new byte[fByteStarts[line + 1] - start];
+		file.seek(start);
+		file.readFully(bytes);
+		String content = new String(bytes, fCharset);
+		if (content.length() != fCharStarts[line + 1] - fCharStarts[line])
+			throw new IOException(fFile.getPath());
+		int length = content.length();
+		while (length > 0 && (content.charAt(length - 1) == '\n' || content.charAt(length - 1) == '\r')) {
+			length--;
+		}
+		return content.substring(0, length);
+	}
+
+	/**
+	 * Returns the encoding used for reading the file at the given location
+	 * or <code>null</code> if it is unknown.
+	 */
+	private static String getCharset(IIndexFileLocation fileLocation) {
+		String fullPath = fileLocation.getFullPath();
+		if (fullPath != null) {
+			IResource res = ResourcesPlugin.getWorkspace().getRoot().findMember(fullPath);
+			if (res instanceof IFile) {
+				try {
+					return ((IFile) res).getCharset();
+				} catch (CoreException e) {
+					return null;
+				}
+			}
+		}
+		return System.getProperty("file.encoding"); //$NON-NLS-1$
+	}
+
+	private static File getTableFile(File file) {
+		String path = file.getAbsolutePath();
+		String name = Integer.toHexString(path.hashCode()) + '_' + Integer.toHexString(path.length()) + CACHE_EXT;
+		return CUIPlugin.getDefault().getStateLocation().append(CACHE_FOLDER).append(name).toFile();
+	}
+
+	/**
+	 * Removes the least recently written half of the tables if there are too many.
+	 */
+	private static void prune(File folder) {
+		File[] tables = folder.listFiles();
+		if (tables == null || tables.length <= MAX_TABLES)
+			return;
+		Arrays.sort(tables, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				long diff = f1.lastModified() - f2.lastModified();
+				return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+			}
+		});
+		for (int i = 0; i < tables.length / 2; i++) {
+			tables[i].delete();
+		}
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+}
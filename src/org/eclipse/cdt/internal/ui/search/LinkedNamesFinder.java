@@ -12,14 +12,11 @@ package org.eclipse.cdt.internal.ui.search;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Region;
 
-import org.eclipse.cdt.core.dom.ast.ASTVisitor;
 import org.eclipse.cdt.core.dom.ast.DOMException;
 import org.eclipse.cdt.core.dom.ast.IASTComment;
 import org.eclipse.cdt.core.dom.ast.IASTFileLocation;
@@ -43,6 +40,8 @@ import org.eclipse.cdt.core.dom.ast.cpp.ICPPMethod;
 import org.eclipse.cdt.internal.core.dom.parser.ASTTranslationUnit;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.ClassTypeHelper;
 
+import org.eclipse.cdt.internal.ui.editor.ASTProvider;
+
 /**
  * Finds locations of linked names. Used by Rename in File and Rename in Workspace.
  */
@@ -58,17 +57,19 @@ public class LinkedNamesFinder {
 		if (target == null) {
 			return EMPTY_LOCATIONS_ARRAY;
 		}
-		BindingFinder bindingFinder = new BindingFinder(root);
+		BindingFinder bindingFinder = new BindingFinder(ASTProvider.getASTProvider().getNameIndex(root));
 		bindingFinder.find(target);
 		return bindingFinder.getLocations();
 	}
 
 	private static class BindingFinder {
 		private final IASTTranslationUnit root;
+		private final ASTNameIndex nameIndex;
 		private final List<IRegion> locations;
 
-		public BindingFinder(IASTTranslationUnit root) {
-			this.root = root;
+		public BindingFinder(ASTNameIndex nameIndex) {
+			this.root = nameIndex.getTranslationUnit();
+			this.nameIndex = nameIndex;
 			locations = new ArrayList<IRegion>();
 		}
 
@@ -120,9 +121,13 @@ public class LinkedNamesFinder {
 			if (ownerClass  == null) 
 				return ICPPMethod.EMPTY_CPPMETHOD_ARRAY;
 
-			SubclassFinder subclassFinder = new SubclassFinder(ownerClass);
-			root.accept(subclassFinder);
-			return ClassTypeHelper.findOverriders(subclassFinder.getSubclasses(), method);
+			List<ICPPClassType> subclasses = new ArrayList<ICPPClassType>();
+			for (ICPPClassType candidate : nameIndex.getClassTypes()) {
+				if (ClassTypeHelper.isSubclass(candidate, ownerClass)) {
+					subclasses.add(candidate);
+				}
+			}
+			return ClassTypeHelper.findOverriders(subclasses.toArray(new ICPPClassType[subclasses.size()]), method);
 		}
 
 		public IRegion[] getLocations() {
@@ -133,13 +138,13 @@ public class LinkedNamesFinder {
 		}
 
 		private void findBinding(IBinding target) {
-			IASTName[] names= root.getDeclarationsInAST(target);
+			IASTName[] names= nameIndex.getDeclarationsInAST(target);
 			for (IASTName candidate : names) {
 				if (candidate.isPartOfTranslationUnitFile()) {
 					addLocation(candidate);
 				}
 			}
-			names= root.getReferences(target);
+			names= nameIndex.getReferences(target);
 			for (IASTName candidate : names) {
 				if (candidate.isPartOfTranslationUnitFile()) {
 					addLocation(candidate);
@@ -291,39 +296,4 @@ public class LinkedNamesFinder {
 	    	}
 		}
 	}
-
-	/**
-	 * Finds subclasses of the given class referenced by the AST.
-	 */
-	static class SubclassFinder extends ASTVisitor {
-		{
-			shouldVisitNames= true;
-		}
-
-		private final ICPPClassType baseClass;
-		private Set<ICPPClassType> subclasses = new HashSet<ICPPClassType>();
-		private Set<IBinding> seenClasses = new HashSet<IBinding>();
-		
-		SubclassFinder(ICPPClassType baseClass) {
-			this.baseClass = baseClass;
-		}
-
-		@Override
-		public int visit(IASTName name) {
-			IBinding binding = name.resolveBinding();
-			if (binding instanceof ICPPClassType) {
-				if (seenClasses.add(binding)) {
-					ICPPClassType candidate = (ICPPClassType) binding;
-					if (ClassTypeHelper.isSubclass(candidate, baseClass)) {
-						subclasses.add(candidate);
-					}
-				}
-			}
-			return PROCESS_CONTINUE;
-		}
-
-		public ICPPClassType[] getSubclasses() {
-			return subclasses.toArray(new ICPPClassType[subclasses.size()]);
-		}
-	}
 }
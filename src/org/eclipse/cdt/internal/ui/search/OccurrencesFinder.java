@@ -27,6 +27,7 @@ import org.eclipse.cdt.core.parser.util.CharArrayUtils;
 
 import org.eclipse.cdt.internal.core.dom.parser.cpp.semantics.CPPVisitor;
 
+import org.eclipse.cdt.internal.ui.editor.ASTProvider;
 import org.eclipse.cdt.internal.ui.util.Messages;
 
 public class OccurrencesFinder implements IOccurrencesFinder {
@@ -39,6 +40,7 @@ public class OccurrencesFinder implements IOccurrencesFinder {
 	public static final int OPTION_EXCLUDE_IMPLICIT_REFERENCES = 1;
 	
 	private IASTTranslationUnit fRoot;
+	private ASTNameIndex fNameIndex;
 	private IASTName fSelectedNode;
 	private IBinding fTarget;
 
@@ -57,6 +59,7 @@ public class OccurrencesFinder implements IOccurrencesFinder {
 		if (!(node instanceof IASTName))
 			return CSearchMessages.OccurrencesFinder_no_element; 
 		fRoot= root;
+		fNameIndex= ASTProvider.getASTProvider().getNameIndex(root);
 		fSelectedNode= (IASTName)node;
 		fTarget= fSelectedNode.resolveBinding();
 		if (fTarget == null)
@@ -79,13 +82,13 @@ public class OccurrencesFinder implements IOccurrencesFinder {
 	private void performSearch() {
 		if (fResult == null) {
 			fResult= new ArrayList<OccurrenceLocation>();
-			IASTName[] names= fRoot.getDeclarationsInAST(fTarget);
+			IASTName[] names= fNameIndex.getDeclarationsInAST(fTarget);
 			for (IASTName candidate : names) {
 				if (candidate.isPartOfTranslationUnitFile()) {
 					addUsage(candidate, candidate.resolveBinding());
 				}
 			}
-			names= fRoot.getReferences(fTarget);
+			names= fNameIndex.getReferences(fTarget);
 			for (IASTName candidate : names) {
 				if (candidate.isPartOfTranslationUnitFile()) {
 					addUsage(candidate, candidate.resolveBinding());
@@ -23,6 +23,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -92,6 +98,44 @@ public abstract class PDOMSearchQuery implements ISearchQuery {
 	protected ICElement[] scope;
 	protected ICProject[] projects;
 	private Set<String> fullPathFilter;
+	/** Files whose matches are added to the result once the index is released, see {@link #run(IProgressMonitor)} */
+	private List<FileMatches> pendingFiles;
+
+	/**
+	 * Matches of a file, added to the result after reading the lines of the matches.
+	 * Reads the file or the document of a dirty editor and does not access the index.
+	 */
+	private class FileMatches implements Runnable {
+		private final IIndexFileLocation location;
+		private final Match[] matches;
+		private final IDocument document;
+
+		FileMatches(IIndexFileLocation location, Match[] matches, IDocument document) {
+			this.location = location;
+			this.matches = matches;
+			this.document = document;
+		}
+
+		public void run() {
+			LineSearchElement[] lineElements;
+			if (document != null) {
+				lineElements = LineSearchElement.createElements(location, matches, document);
+			} else {
+				lineElements = LineSearchElement.createElements(location, matches);
+			}
+			// create real PDOMSearchMatch with corresponding line elements 
+			for (LineSearchElement searchElement : lineElements) {
+				for (Match lineMatch : searchElement.getMatches()) {
+					int offset = lineMatch.getOffset();
+					int length = lineMatch.getLength();
+					PDOMSearchMatch match = new PDOMSearchMatch(searchElement, offset, length);
+					if (lineMatch.isPolymorphicCall())
+						match.setIsPolymorphicCall();
+					result.addMatch(match);
+				}
+			}
+		}
+	}
 
 	protected PDOMSearchQuery(ICElement[] scope, int flags) {
 		result = new PDOMSearchResult(this);
@@ -290,11 +334,11 @@ public abstract class PDOMSearchQuery implements ISearchQuery {
 				}
 			}
 		}
-		// for each file with matches create line elements with matches
+		// for each file with matches create line elements with matches, once the index is released
 		for (Entry<IIndexFile, Set<Match>> entry : fileMatches.entrySet()) {
 			IIndexFile file = entry.getKey();
 			Set<Match> matches = entry.getValue();
-			LineSearchElement[] lineElements = {};
+			IDocument document = null;
 			// check if there is dirty text editor corresponding to file and convert matches
 			IPath absolutePath = IndexLocationFactory.getAbsolutePath(file.getLocation());
 			if (pathsDirtyEditors.containsKey(absolutePath)) {
@@ -302,24 +346,14 @@ public abstract class PDOMSearchQuery implements ISearchQuery {
 				// scan dirty editor and group matches by line elements
 				ITextEditor textEditor = pathsDirtyEditors.get(absolutePath);
 				IEditorInput input = textEditor.getEditorInput(); 
-				IDocument document = textEditor.getDocumentProvider().getDocument(input);
-				Match[] matchesArray = matches.toArray(new Match[matches.size()]);
-				lineElements = LineSearchElement.createElements(file.getLocation(), matchesArray, document);
-			} else {
-				// scan file and group matches by line elements
-				Match[] matchesArray = matches.toArray(new Match[matches.size()]);
-				lineElements = LineSearchElement.createElements(file.getLocation(), matchesArray);
+				document = textEditor.getDocumentProvider().getDocument(input);
 			}
-			// create real PDOMSearchMatch with corresponding line elements 
-			for (LineSearchElement searchElement : lineElements) {
-				for (Match lineMatch : searchElement.getMatches()) {
-					int offset = lineMatch.getOffset();
-					int length = lineMatch.getLength();
-					PDOMSearchMatch match = new PDOMSearchMatch(searchElement, offset, length);
-					if (lineMatch.isPolymorphicCall())
-						match.setIsPolymorphicCall();
-					result.addMatch(match);
-				}
+			Match[] matchesArray = matches.toArray(new Match[matches.size()]);
+			FileMatches pending = new FileMatches(file.getLocation(), matchesArray, document);
+			if (pendingFiles != null) {
+				pendingFiles.add(pending);
+			} else {
+				pending.run();
 			}
 		}
 	}
@@ -487,6 +521,7 @@ public abstract class PDOMSearchQuery implements ISearchQuery {
 		
 		result.setIndexerBusy(!CCorePlugin.getIndexManager().isIndexerIdle());
 		
+		pendingFiles= new ArrayList<FileMatches>();
 		try {
 			IIndex index= CCorePlugin.getIndexManager().getIndex(projects, 0);
 			try {
@@ -494,13 +529,65 @@ public abstract class PDOMSearchQuery implements ISearchQuery {
 			} catch (InterruptedException e) {
 				return Status.CANCEL_STATUS;
 			}
+			IStatus status;
 			try {
-				return runWithIndex(index, monitor);
+				status= runWithIndex(index, monitor);
 			} finally {
 				index.releaseReadLock();
 			}
+			if (!addPendingMatches(monitor))
+				return Status.CANCEL_STATUS;
+			return status;
 		} catch (CoreException e) {
 			return e.getStatus();
+		} finally {
+			pendingFiles= null;
+		}
+	}
+
+	/**
+	 * Reads the files with matches found in the index in parallel and adds the matches
+	 * of each file to the result as soon as the file has been read.
+	 * @return <code>false</code> if the search has been canceled
+	 */
+	private boolean addPendingMatches(IProgressMonitor monitor) {
+		List<FileMatches> files= pendingFiles;
+		int threads= Math.min(Runtime.getRuntime().availableProcessors(), files.size());
+		if (threads <= 1) {
+			for (FileMatches file : files) {
+				if (monitor.isCanceled())
+					return false;
+				file.run();
+			}
+			return true;
+		}
+
+		ExecutorService executor= Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures= new ArrayList<Future<?>>(files.size());
+			for (FileMatches file : files) {
+				futures.add(executor.submit(file));
+			}
+			for (Future<?> future : futures) {
+				while (true) {
+					if (monitor.isCanceled())
+						return false;
+					try {
+						future.get(100, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						// check for cancellation
+					} catch (ExecutionException e) {
+						CUIPlugin.log(e.getCause());
+						break;
+					} catch (InterruptedException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		} finally {
+			executor.shutdownNow();
 		}
 	}
 
@@ -16,6 +16,7 @@ package org.eclipse.cdt.internal.ui.text.contentassist;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferenceConverter;
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.BadPositionCategoryException;
 import org.eclipse.jface.text.DefaultPositionUpdater;
@@ -48,6 +49,7 @@ import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.texteditor.link.EditorLinkedModeUI;
 
 import org.eclipse.cdt.ui.CUIPlugin;
@@ -56,6 +58,7 @@ import org.eclipse.cdt.ui.text.ICCompletionProposal;
 import org.eclipse.cdt.internal.core.parser.util.ContentAssistMatcherFactory;
 
 import org.eclipse.cdt.internal.ui.text.CTextTools;
+import org.eclipse.cdt.internal.ui.util.ImageDescriptorRegistry;
 
 
 public class CCompletionProposal implements ICCompletionProposal, ICompletionProposalExtension, ICompletionProposalExtension2, ICompletionProposalExtension3 {
@@ -67,6 +70,7 @@ public class CCompletionProposal implements ICCompletionProposal, ICompletionPro
 	private int fReplacementLength;
 	private int fCursorPosition;
 	private Image fImage;
+	private ImageDescriptor fImageDescriptor;
 	private IContextInformation fContextInformation;
 	private int fContextInformationPosition;
 	private String fProposalInfo;
@@ -467,6 +471,36 @@ public class CCompletionProposal implements ICCompletionProposal, ICompletionPro
 	 */
 	public void setImage(Image image) {
 		fImage= image;
+		fImageDescriptor= null;
+	}
+
+	/**
+	 * Sets the image by its descriptor. Outside of the UI thread an image that has not been
+	 * created yet is not waited for, it is created by {@link #createImage()} later on.
+	 * @param descriptor The descriptor of the image to set, may be <code>null</code>
+	 */
+	public void setImageDescriptor(ImageDescriptor descriptor) {
+		fImage= null;
+		fImageDescriptor= null;
+		if (descriptor != null) {
+			ImageDescriptorRegistry registry= CUIPlugin.getImageDescriptorRegistry();
+			fImage= Display.getCurrent() != null ? registry.get(descriptor) : registry.lookup(descriptor);
+			if (fImage == null)
+				fImageDescriptor= descriptor;
+		}
+	}
+
+	/**
+	 * Creates the images set by their descriptors outside of the UI thread, must be called
+	 * in the UI thread.
+	 */
+	public void createImage() {
+		if (fImageDescriptor != null) {
+			fImage= CUIPlugin.getImageDescriptorRegistry().get(fImageDescriptor);
+			fImageDescriptor= null;
+		}
+		if (fContextInformation instanceof CProposalContextInformation)
+			((CProposalContextInformation) fContextInformation).createImage();
 	}
 
 	/*
@@ -36,6 +36,10 @@ import org.eclipse.cdt.internal.ui.text.Symbols;
 /**
  * Describes the context of a content assist invocation in a C/C++ editor.
  * <p>
+ * The context may be used by multiple threads, the completion node is computed
+ * only once.
+ * </p>
+ * <p>
  * Clients may use but not subclass this class.
  * </p>
  * 
@@ -92,7 +96,7 @@ public class CContentAssistInvocationContext extends ContentAssistInvocationCont
 	 * 
 	 * @return the translation unit that content assist is invoked in, possibly <code>null</code>
 	 */
-	public ITranslationUnit getTranslationUnit() {
+	public synchronized ITranslationUnit getTranslationUnit() {
 		if (!fTUComputed) {
 			fTUComputed= true;
 			fTU= CUIPlugin.getDefault().getWorkingCopyManager().getWorkingCopy(fEditor.getEditorInput());
@@ -111,7 +115,7 @@ public class CContentAssistInvocationContext extends ContentAssistInvocationCont
 		return unit == null ? null : unit.getCProject();
 	}
 		
-	public IASTCompletionNode getCompletionNode() {
+	public synchronized IASTCompletionNode getCompletionNode() {
 		
 		//for scalability
 		if (fEditor != null && fEditor instanceof CEditor) {
@@ -164,7 +168,7 @@ public class CContentAssistInvocationContext extends ContentAssistInvocationCont
 		return fCN;
 	}
 	
-	public int getParseOffset() {
+	public synchronized int getParseOffset() {
 		if (!fParseOffsetComputed) {
 			fParseOffsetComputed= true;
 			fContextInfoPosition= guessContextInformationPosition();
@@ -183,7 +187,7 @@ public class CContentAssistInvocationContext extends ContentAssistInvocationCont
 	/**
 	 * @return the offset where context information (parameter hints) starts.
 	 */
-	public int getContextInformationOffset() {
+	public synchronized int getContextInformationOffset() {
 		getParseOffset();
 		return fContextInfoPosition;
 	}
@@ -283,7 +287,7 @@ public class CContentAssistInvocationContext extends ContentAssistInvocationCont
 	}
 
 	@Override
-	public void dispose() {
+	public synchronized void dispose() {
 		if (fIndex != null) {
 			fIndex.releaseReadLock();
 		}
@@ -306,6 +306,10 @@ public class CContentAssistProcessor extends ContentAssistProcessor {
 				context = null;
 			}
 		}
+		if (context != null) {
+			// the working copy is looked up via the editor, proposals may be computed in the background
+			context.getTranslationUnit();
+		}
 
 		return context;
 	}
@@ -13,9 +13,15 @@
  */
 package org.eclipse.cdt.internal.ui.text.contentassist;
 
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.eclipse.jface.text.contentassist.IContextInformationExtension;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.cdt.ui.CUIPlugin;
+
+import org.eclipse.cdt.internal.ui.util.ImageDescriptorRegistry;
 
 /**
  * @author aniefer
@@ -29,6 +35,8 @@ public class CProposalContextInformation implements IContextInformation, IContex
 	private int fInformationPosition;
 	/** The image to be displayed */
 	private Image fImage;
+	/** The descriptor of the image if it has not been created yet */
+	private ImageDescriptor fImageDescriptor;
 
 	/**
 	 * Creates a new context information without an image.
@@ -102,4 +110,32 @@ public class CProposalContextInformation implements IContextInformation, IContex
 	public void setContextInformationPosition( int pos ){
 		fInformationPosition = pos;
 	}
+
+	/**
+	 * Sets the image by its descriptor. Outside of the UI thread an image that has not been
+	 * created yet is not waited for, it is created by {@link #createImage()} later on.
+	 *
+	 * @param descriptor the descriptor of the image, may be <code>null</code>
+	 */
+	public void setImageDescriptor(ImageDescriptor descriptor) {
+		fImage= null;
+		fImageDescriptor= null;
+		if (descriptor != null) {
+			ImageDescriptorRegistry registry= CUIPlugin.getImageDescriptorRegistry();
+			fImage= Display.getCurrent() != null ? registry.get(descriptor) : registry.lookup(descriptor);
+			if (fImage == null)
+				fImageDescriptor= descriptor;
+		}
+	}
+
+	/**
+	 * Creates the image set by its descriptor outside of the UI thread, must be called in
+	 * the UI thread.
+	 */
+	public void createImage() {
+		if (fImageDescriptor != null) {
+			fImage= CUIPlugin.getImageDescriptorRegistry().get(fImageDescriptor);
+			fImageDescriptor= null;
+		}
+	}
 }
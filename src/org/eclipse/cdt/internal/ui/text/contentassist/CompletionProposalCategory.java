@@ -241,6 +241,25 @@ public final class CompletionProposalCategory {
 		fSortOrder= sortOrder;
 	}
 
+	/**
+	 * Returns whether the proposals of this category can be computed outside of the UI thread,
+	 * that is whether all of its computers for the given partition allow for it.
+	 *
+	 * @param partition the partition type where to invocation occurred
+	 * @return <code>true</code> if the proposals can be computed in the background
+	 */
+	public boolean isComputedInBackground(String partition) {
+		boolean result= false;
+		for (CompletionProposalComputerDescriptor desc : fRegistry.getProposalComputerDescriptors(partition)) {
+			if (desc.getCategory() == this) {
+				if (!desc.isComputedInBackground())
+					return false;
+				result= true;
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Safely computes completion proposals of all computers of this category through their
 	 * extension. If an extension is disabled, throws an exception or otherwise does not adhere to
@@ -28,17 +28,21 @@ import org.eclipse.core.runtime.InvalidRegistryObjectException;
 import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.osgi.framework.Bundle;
 
+import org.eclipse.cdt.core.parser.ast.ASTAccessVisibility;
 import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.ui.text.ICPartitions;
 import org.eclipse.cdt.ui.text.contentassist.ContentAssistInvocationContext;
 import org.eclipse.cdt.ui.text.contentassist.ICompletionProposalComputer;
 
+import org.eclipse.cdt.internal.ui.util.ImageDescriptorRegistry;
 import org.eclipse.cdt.internal.ui.util.Messages;
+import org.eclipse.cdt.internal.ui.viewsupport.CElementImageProvider;
 
 /**
  * The description of an extension to the
@@ -83,6 +87,19 @@ final class CompletionProposalComputerDescriptor {
 	private static final String COMPUTE_CONTEXT_INFORMATION= "computeContextInformation()"; //$NON-NLS-1$
 	private static final String SESSION_STARTED= "sessionStarted()"; //$NON-NLS-1$
 	private static final String SESSION_ENDED= "sessionEnded()"; //$NON-NLS-1$
+	/**
+	 * Computers of this plugin that do not access the UI and can be run outside of the
+	 * UI thread. The common images of their proposals are allocated beforehand, see
+	 * {@link #allocateBackgroundImages()}, others are created by
+	 * {@link CCompletionProposal#createImage()} once the proposals are collected.
+	 */
+	private static final Set<String> BACKGROUND_COMPUTERS= new HashSet<String>(Arrays.asList(
+			DOMCompletionProposalComputer.class.getName(),
+			InclusionProposalComputer.class.getName(),
+			KeywordCompletionProposalComputer.class.getName(),
+			HelpCompletionProposalComputer.class.getName()));
+	/** The registry the images of the background computers have been allocated in */
+	private static ImageDescriptorRegistry fgAllocatedRegistry;
 	
 	static {
 		Set<String> partitions= new HashSet<String>();
@@ -117,9 +134,7 @@ final class CompletionProposalComputerDescriptor {
 	 * We start timing execution after the first session because the first may take
 	 * longer due to plug-in activation and initialization.
 	 */
-	private boolean fIsReportingDelay= false;
-	/** The start of the last operation. */
-	private long fStart;
+	private volatile boolean fIsReportingDelay= false;
 
 	/**
 	 * Creates a new descriptor.
@@ -296,9 +311,10 @@ final class CompletionProposalComputerDescriptor {
 				return Collections.emptyList();
 			
 			try {
+				long start= System.currentTimeMillis();
 				PerformanceStats stats= startMeter(context, computer);
 				List<ICompletionProposal> proposals= computer.computeCompletionProposals(context, monitor);
-				stopMeter(stats, COMPUTE_COMPLETION_PROPOSALS);
+				stopMeter(stats, start, COMPUTE_COMPLETION_PROPOSALS);
 				
 				if (proposals != null) {
 					fLastError= computer.getErrorMessage();
@@ -343,9 +359,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return Collections.emptyList();
 
+			long start= System.currentTimeMillis();
 			PerformanceStats stats= startMeter(context, computer);
 			List<IContextInformation> proposals= computer.computeContextInformation(context, monitor);
-			stopMeter(stats, COMPUTE_CONTEXT_INFORMATION);
+			stopMeter(stats, start, COMPUTE_CONTEXT_INFORMATION);
 			
 			if (proposals != null) {
 				fLastError= computer.getErrorMessage();
@@ -386,9 +403,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return;
 			
+			long start= System.currentTimeMillis();
 			PerformanceStats stats= startMeter(SESSION_STARTED, computer);
 			computer.sessionStarted();
-			stopMeter(stats, SESSION_ENDED);
+			stopMeter(stats, start, SESSION_ENDED);
 			
 			return;
 		} catch (InvalidRegistryObjectException x) {
@@ -419,9 +437,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return;
 
+			long start= System.currentTimeMillis();
 			PerformanceStats stats= startMeter(SESSION_ENDED, computer);
 			computer.sessionEnded();
-			stopMeter(stats, SESSION_ENDED);
+			stopMeter(stats, start, SESSION_ENDED);
 
 			return;
 		} catch (InvalidRegistryObjectException x) {
@@ -444,14 +463,10 @@ final class CompletionProposalComputerDescriptor {
 			stats= null;
 		}
 		
-		if (fIsReportingDelay) {
-			fStart= System.currentTimeMillis();
-		}
-		
 		return stats;
 	}
 
-	private void stopMeter(final PerformanceStats stats, String operation) {
+	private void stopMeter(final PerformanceStats stats, long start, String operation) {
 		if (MEASURE_PERFORMANCE) {
 			stats.endRun();
 			if (stats.isFailure()) {
@@ -463,7 +478,7 @@ final class CompletionProposalComputerDescriptor {
 		
 		if (fIsReportingDelay) {
 			long current= System.currentTimeMillis();
-			if (current - fStart > MAX_DELAY) {
+			if (current - start > MAX_DELAY) {
 				IStatus status= createPerformanceStatus(operation);
 				fRegistry.informUser(this, status);
 			}
@@ -545,5 +560,52 @@ final class CompletionProposalComputerDescriptor {
         	return null;
         }	    
     }
+
+	/**
+	 * Returns whether the described computer may be called outside of the UI thread.
+	 * 
+	 * @return <code>true</code> if the computer is known not to access the UI
+	 */
+	boolean isComputedInBackground() {
+		IContributor contributor= getContributor();
+		return contributor != null && CUIPlugin.PLUGIN_ID.equals(contributor.getName())
+				&& BACKGROUND_COMPUTERS.contains(fClass);
+	}
+
+	/**
+	 * Allocates the images of the proposals of the {@link #BACKGROUND_COMPUTERS} in the
+	 * image descriptor registry, such that the computers find them without creating images
+	 * outside of the UI thread. Must be called in the UI thread.
+	 */
+	static void allocateBackgroundImages() {
+		ImageDescriptorRegistry registry= CUIPlugin.getImageDescriptorRegistry();
+		if (registry == fgAllocatedRegistry)
+			return;
+		ImageDescriptor[] descriptors= {
+				ImageDescriptor.getMissingImageDescriptor(),
+				CElementImageProvider.getIncludeImageDescriptor(),
+				CElementImageProvider.getKeywordImageDescriptor(),
+				CElementImageProvider.getMacroImageDescriptor(),
+				CElementImageProvider.getTypedefImageDescriptor(),
+				CElementImageProvider.getClassImageDescriptor(),
+				CElementImageProvider.getStructImageDescriptor(),
+				CElementImageProvider.getUnionImageDescriptor(),
+				CElementImageProvider.getMethodImageDescriptor(ASTAccessVisibility.PRIVATE),
+				CElementImageProvider.getMethodImageDescriptor(ASTAccessVisibility.PROTECTED),
+				CElementImageProvider.getMethodImageDescriptor(ASTAccessVisibility.PUBLIC),
+				CElementImageProvider.getFunctionImageDescriptor(),
+				CElementImageProvider.getFieldImageDescriptor(ASTAccessVisibility.PRIVATE),
+				CElementImageProvider.getFieldImageDescriptor(ASTAccessVisibility.PROTECTED),
+				CElementImageProvider.getFieldImageDescriptor(ASTAccessVisibility.PUBLIC),
+				CElementImageProvider.getVariableImageDescriptor(),
+				CElementImageProvider.getEnumerationImageDescriptor(),
+				CElementImageProvider.getEnumeratorImageDescriptor(),
+				CElementImageProvider.getNamespaceImageDescriptor() };
+		for (ImageDescriptor descriptor : descriptors) {
+			if (descriptor != null)
+				registry.get(descriptor);
+		}
+		fgAllocatedRegistry= registry;
+	}
 	
 }
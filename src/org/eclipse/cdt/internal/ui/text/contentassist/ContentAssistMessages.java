@@ -55,4 +55,6 @@ final class ContentAssistMessages extends NLS {
 	public static String ContentAssistProcessor_toggle_affordance_click_gesture;
 	public static String ContentAssistProcessor_toggle_affordance_update_message;
 	public static String ContentAssistProcessor_empty_message;
+	public static String IncludeDirectoryCache_jobName;
+	public static String IncludeDirectoryCache_prescanJobName;
 }
@@ -18,6 +18,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -100,6 +109,18 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 	};
 
 	private static final ICompletionProposal[] NO_PROPOSALS= {};
+
+	/**
+	 * Computes the proposals of the categories that do not need the UI thread, see
+	 * {@link CompletionProposalCategory#isComputedInBackground(String)}.
+	 */
+	private static final ExecutorService fgExecutor= Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "C/C++ Content Assist"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
 	
 	private final List<CompletionProposalCategory> fCategories;
 	private final String fPartition;
@@ -216,11 +237,13 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		if (context == null)
 			return null;
 
+		// computations in the background may outlive this call, the last user disposes the context
+		AtomicInteger contextUsers= new AtomicInteger(1);
 		try {
 			long setup= DEBUG ? System.currentTimeMillis() : 0;
 			
 			monitor.subTask(ContentAssistMessages.ContentAssistProcessor_collecting_proposals);
-			List<ICompletionProposal> proposals= collectProposals(viewer, offset, monitor, context);
+			List<ICompletionProposal> proposals= collectProposals(viewer, offset, monitor, context, contextUsers);
 			long collect= DEBUG ? System.currentTimeMillis() : 0;
 
 			monitor.subTask(ContentAssistMessages.ContentAssistProcessor_sorting_proposals);
@@ -240,7 +263,7 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			
 			return result;
 		} finally {
-			context.dispose();
+			releaseContext(context, contextUsers);
 		}
 	}
 
@@ -263,19 +286,117 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		fNumberOfComputedResults= 0;
 	}
 
-	private List<ICompletionProposal> collectProposals(ITextViewer viewer, int offset, IProgressMonitor monitor, ContentAssistInvocationContext context) {
-		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>();
+	/**
+	 * Collects the proposals of all categories. Categories that do not need the UI thread are
+	 * computed in the background while the others are computed by the caller. The background
+	 * computations are awaited until the timeout configured by
+	 * {@link PreferenceConstants#CODEASSIST_PROPOSALS_TIMEOUT}, proposals computed later on
+	 * are dropped.
+	 */
+	private List<ICompletionProposal> collectProposals(ITextViewer viewer, int offset, IProgressMonitor monitor,
+			final ContentAssistInvocationContext context, final AtomicInteger contextUsers) {
+		final long deadline= System.currentTimeMillis() + getProposalsTimeout();
 		List<CompletionProposalCategory> providers= getCategories();
-		for (CompletionProposalCategory cat : providers) {
-			List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
-			proposals.addAll(computed);
-			if (fErrorMessage == null)
-				fErrorMessage= cat.getErrorMessage();
+		List<List<ICompletionProposal>> results= new ArrayList<List<ICompletionProposal>>(providers.size());
+		List<Future<List<ICompletionProposal>>> futures= new ArrayList<Future<List<ICompletionProposal>>>(providers.size());
+		final IProgressMonitor backgroundMonitor= new NullProgressMonitor();
+		for (final CompletionProposalCategory cat : providers) {
+			Future<List<ICompletionProposal>> future= null;
+			if (cat.isComputedInBackground(fPartition)) {
+				CompletionProposalComputerDescriptor.allocateBackgroundImages();
+				contextUsers.incrementAndGet();
+				future= fgExecutor.submit(new Callable<List<ICompletionProposal>>() {
+					public List<ICompletionProposal> call() {
+						try {
+							// a computation dropped before may still be running
+							synchronized (cat) {
+								if (backgroundMonitor.isCanceled())
+									return Collections.emptyList();
+								return cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(backgroundMonitor, 1));
+							}
+						} finally {
+							releaseContext(context, contextUsers);
+						}
+					}
+				});
+			}
+			futures.add(future);
+			results.add(null);
+		}
+		for (int i= 0; i < providers.size(); i++) {
+			if (futures.get(i) == null) {
+				CompletionProposalCategory cat= providers.get(i);
+				results.set(i, cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1)));
+			}
+		}
+		for (int i= 0; i < providers.size(); i++) {
+			Future<List<ICompletionProposal>> future= futures.get(i);
+			if (future != null) {
+				List<ICompletionProposal> computed= getResult(future, deadline);
+				results.set(i, computed);
+				if (computed == null) {
+					backgroundMonitor.setCanceled(true);
+					if (DEBUG) {
+						System.err.println("Code Assist (dropped):\t" + toString(providers.get(i))); //$NON-NLS-1$
+					}
+				} else {
+					createImages(computed);
+				}
+				monitor.worked(1);
+			}
+		}
+
+		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>();
+		for (int i= 0; i < providers.size(); i++) {
+			List<ICompletionProposal> computed= results.get(i);
+			if (computed != null) {
+				proposals.addAll(computed);
+				if (fErrorMessage == null)
+					fErrorMessage= providers.get(i).getErrorMessage();
+			}
 		}
 		
 		return proposals;
 	}
 
+	/**
+	 * Waits for the given computation until the deadline, returns <code>null</code> if the
+	 * proposals are not available in time.
+	 */
+	private static List<ICompletionProposal> getResult(Future<List<ICompletionProposal>> future, long deadline) {
+		try {
+			return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			CUIPlugin.log(e.getCause());
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Creates the images of the given proposals that could not be created by the background
+	 * computation, as images are allocated in the UI thread only.
+	 */
+	private static void createImages(List<ICompletionProposal> proposals) {
+		for (ICompletionProposal proposal : proposals) {
+			if (proposal instanceof CCompletionProposal)
+				((CCompletionProposal) proposal).createImage();
+		}
+	}
+
+	private static void releaseContext(ContentAssistInvocationContext context, AtomicInteger contextUsers) {
+		if (contextUsers.decrementAndGet() == 0)
+			context.dispose();
+	}
+
+	private static long getProposalsTimeout() {
+		return CUIPlugin.getDefault().getPreferenceStore().getInt(PreferenceConstants.CODEASSIST_PROPOSALS_TIMEOUT);
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
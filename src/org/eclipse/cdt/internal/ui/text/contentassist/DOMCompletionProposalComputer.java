@@ -23,7 +23,6 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
-import org.eclipse.swt.graphics.Image;
 
 import org.eclipse.cdt.core.dom.ast.ASTTypeUtil;
 import org.eclipse.cdt.core.dom.ast.DOMException;
@@ -237,7 +236,7 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		final String macroName = macro.getName().toString();
 		final int baseRelevance= computeBaseRelevance(prefix, macroName);
 
-		Image image = getImage(CElementImageProvider.getMacroImageDescriptor());
+		ImageDescriptor image = CElementImageProvider.getMacroImageDescriptor();
 		
 		if (macro instanceof IASTPreprocessorFunctionStyleMacroDefinition) {
 			IASTPreprocessorFunctionStyleMacroDefinition functionMacro =
@@ -278,7 +277,8 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 			}
 			
 			if (argString.length() > 0) {
-				CProposalContextInformation info = new CProposalContextInformation(image, descString, argString);
+				CProposalContextInformation info = new CProposalContextInformation(descString, argString);
+				info.setImageDescriptor(image);
 				info.setContextInformationPosition(context.getContextInformationOffset());
 				proposal.setContextInformation(info);
 			}
@@ -315,18 +315,18 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 				handleVariable((IVariable) binding, cContext, baseRelevance, proposals);
 			} else if (!cContext.isContextInformationStyle()) {
 				if (binding instanceof ITypedef) {
-					proposals.add(createProposal(name, name, getImage(binding),
+					proposals.add(createProposal(name, name, getImageDescriptor(binding),
 							baseRelevance + RelevanceConstants.TYPEDEF_TYPE_RELEVANCE, cContext));
 				} else if (binding instanceof ICPPNamespace) {
 					handleNamespace((ICPPNamespace) binding, astContext, cContext, baseRelevance, proposals);
 				} else if (binding instanceof IEnumeration) {
-					proposals.add(createProposal(name, name, getImage(binding),
+					proposals.add(createProposal(name, name, getImageDescriptor(binding),
 							baseRelevance + RelevanceConstants.ENUMERATION_TYPE_RELEVANCE, cContext));
 				} else if (binding instanceof IEnumerator) {
-					proposals.add(createProposal(name, name, getImage(binding),
+					proposals.add(createProposal(name, name, getImageDescriptor(binding),
 							baseRelevance + RelevanceConstants.ENUMERATOR_TYPE_RELEVANCE, cContext));
 				} else {
-					proposals.add(createProposal(name, name, getImage(binding),
+					proposals.add(createProposal(name, name, getImageDescriptor(binding),
 							baseRelevance + RelevanceConstants.DEFAULT_TYPE_RELEVANCE, cContext));
 				}
 			}
@@ -362,17 +362,17 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 				IASTName name= (IASTName)astContext;
 				if (name.getParent() instanceof IASTDeclarator) {
 					proposals.add(createProposal(classType.getName() + "::", classType.getName(), //$NON-NLS-1$
-							getImage(classType), baseRelevance + relevance, context));
+							getImageDescriptor(classType), baseRelevance + relevance, context));
 				}
 			}
-			proposals.add(createProposal(classType.getName(), classType.getName(), getImage(classType),
+			proposals.add(createProposal(classType.getName(), classType.getName(), getImageDescriptor(classType),
 					baseRelevance + RelevanceConstants.CLASS_TYPE_RELEVANCE, context));
 		}
 	}
 	
 	private void handleFunction(IFunction function, CContentAssistInvocationContext context,
 			int baseRelevance, List<ICompletionProposal> proposals) {	
-		Image image = getImage(function);
+		ImageDescriptor image = getImageDescriptor(function);
 		
 		StringBuilder repStringBuff = new StringBuilder();
 		repStringBuff.append(function.getName());
@@ -452,7 +452,8 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		
 		if (contextDispargString != null) {
 			CProposalContextInformation info =
-					new CProposalContextInformation(image, dispString, contextDispargString);
+					new CProposalContextInformation(dispString, contextDispargString);
+			info.setImageDescriptor(image);
 			info.setContextInformationPosition(context.getContextInformationOffset());
 			proposal.setContextInformation(info);
 		}
@@ -495,7 +496,7 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		
         String repString = repStringBuff.toString();
 
-		Image image = getImage(variable);
+		ImageDescriptor image = getImageDescriptor(variable);
 		final int relevance = isLocalVariable(variable) 
 			? RelevanceConstants.LOCAL_VARIABLE_TYPE_RELEVANCE
 			: isField(variable) 
@@ -563,23 +564,23 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		}
 		
 		String repString = repStringBuff.toString();
-		proposals.add(createProposal(repString, namespace.getName(), getImage(namespace),
+		proposals.add(createProposal(repString, namespace.getName(), getImageDescriptor(namespace),
 				baseRelevance + RelevanceConstants.NAMESPACE_TYPE_RELEVANCE, cContext));
 	}
 	
-	private CCompletionProposal createProposal(String repString, String dispString, Image image,
+	private CCompletionProposal createProposal(String repString, String dispString, ImageDescriptor image,
 			int relevance, CContentAssistInvocationContext context) {
 		return createProposal(repString, dispString, null, context.getCompletionNode().getLength(), image,
 				relevance, context);
 	}
 	
 	private CCompletionProposal createProposal(String repString, String dispString, int prefixLength,
-			Image image, int relevance, CContentAssistInvocationContext context) {
+			ImageDescriptor image, int relevance, CContentAssistInvocationContext context) {
 		return createProposal(repString, dispString, null, prefixLength, image, relevance, context);
 	}
 
 	private CCompletionProposal createProposal(String repString, String dispString, String idString,
-			int prefixLength, Image image, int relevance, CContentAssistInvocationContext context) {
+			int prefixLength, ImageDescriptor image, int relevance, CContentAssistInvocationContext context) {
 		int parseOffset = context.getParseOffset();
 		int invocationOffset = context.getInvocationOffset();
 		boolean doReplacement = !context.isContextInformationStyle();
@@ -588,15 +589,13 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		int repOffset = doReplacement ? parseOffset - repLength : invocationOffset;
 		repString = doReplacement ? repString : ""; //$NON-NLS-1$
 		
-		return new CCompletionProposal(repString, repOffset, repLength, image, dispString, idString,
-				relevance, context.getViewer());
+		CCompletionProposal proposal = new CCompletionProposal(repString, repOffset, repLength, null,
+				dispString, idString, relevance, context.getViewer());
+		proposal.setImageDescriptor(image);
+		return proposal;
 	}
 
-	private Image getImage(ImageDescriptor desc) {
-		return desc != null ? CUIPlugin.getImageDescriptorRegistry().get(desc) : null;
-	}
-	
-	private Image getImage(IBinding binding) {
+	private ImageDescriptor getImageDescriptor(IBinding binding) {
 		ImageDescriptor imageDescriptor = null;
 		
 		if (binding instanceof ITypedef) {
@@ -649,11 +648,9 @@ public class DOMCompletionProposalComputer extends ParsingBasedProposalComputer
 		} else if (binding instanceof ICPPUsingDeclaration) {
 			IBinding[] delegates = ((ICPPUsingDeclaration) binding).getDelegates();
 			if (delegates.length > 0)
-				return getImage(delegates[0]);
+				return getImageDescriptor(delegates[0]);
 		}
 		
-		return imageDescriptor != null
-			? CUIPlugin.getImageDescriptorRegistry().get(imageDescriptor)
-			: null;
+		return imageDescriptor;
 	}
 }
@@ -17,14 +17,13 @@ import java.util.List;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
-import org.eclipse.swt.graphics.Image;
 
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
 import org.eclipse.cdt.core.dom.ast.IASTFieldReference;
 import org.eclipse.cdt.core.dom.ast.IASTName;
 import org.eclipse.cdt.core.model.ITranslationUnit;
-import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.ui.IFunctionSummary;
 import org.eclipse.cdt.ui.text.ICHelpInvocationContext;
 import org.eclipse.cdt.ui.text.IContentAssistHelpInvocationContext;
@@ -94,8 +93,7 @@ public class HelpCompletionProposalComputer extends ParsingBasedProposalComputer
 
 		int repOffset = cContext.getInvocationOffset() - prefix.length();
 		int repLength = prefix.length();
-		Image image = CUIPlugin.getImageDescriptorRegistry().get(
-				CElementImageProvider.getFunctionImageDescriptor());
+		ImageDescriptor image = CElementImageProvider.getFunctionImageDescriptor();
 
 		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
 
@@ -112,10 +110,11 @@ public class HelpCompletionProposalComputer extends ParsingBasedProposalComputer
 					fname,
 					repOffset,
 					repLength,
-					image,
+					null,
 					fproto.getPrototypeString(true),
 					relevance,
 					cContext.getViewer());
+			proposal.setImageDescriptor(image);
 
 			if (fdesc != null) {
 				proposal.setAdditionalProposalInfo(fdesc);
@@ -132,7 +131,8 @@ public class HelpCompletionProposalComputer extends ParsingBasedProposalComputer
 			}
 			
 			if (fargs != null && fargs.length() > 0) {
-				CProposalContextInformation info = new CProposalContextInformation(image, fname, fargs);
+				CProposalContextInformation info = new CProposalContextInformation(fname, fargs);
+				info.setImageDescriptor(image);
 				info.setContextInformationPosition(cContext.getContextInformationOffset());
 				proposal.setContextInformation(info);
 
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.text.contentassist;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.cdt.core.CCorePlugin;
+import org.eclipse.cdt.core.model.CoreModel;
+import org.eclipse.cdt.core.model.ICProject;
+import org.eclipse.cdt.core.parser.IExtendedScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfo;
+import org.eclipse.cdt.core.parser.IScannerInfoProvider;
+import org.eclipse.cdt.core.settings.model.CProjectDescriptionEvent;
+import org.eclipse.cdt.core.settings.model.ICProjectDescriptionListener;
+
+/**
+ * Listings of the file system directories searched for include files. Completing an
+ * include directive reads the listings from memory, directories are read from disk only
+ * the first time they are needed. Listings are checked against the modification time
+ * of their directory in the background, such that slow file systems do not delay
+ * content assist.
+ * <p>
+ * The include directories of the scanner info of a project are read in the background
+ * when the project description is loaded or changed, such that even the first completion
+ * in a project finds their listings in memory.
+ */
+public final class IncludeDirectoryCache {
+	/** Time in milliseconds after which a listing is checked against the file system */
+	private static final long CHECK_INTERVAL = 5000;
+	private static final int MAX_DIRECTORIES = 2000;
+	private static final IncludeDirectoryCache INSTANCE = new IncludeDirectoryCache();
+	private static final String[] NO_NAMES = new String[0];
+	private static final boolean[] NO_FLAGS = new boolean[0];
+
+	/**
+	 * The entries of one directory.
+	 */
+	static final class Listing {
+		final String[] fNames;
+		final boolean[] fIsDirectory;
+		private final long fLastModified;
+		private volatile long fCheckTime;
+		/** Flags for the names denoting header files, by project */
+		private final Map<String, boolean[]> fIsHeader= new HashMap<String, boolean[]>();
+
+		private Listing(long lastModified, String[] names, boolean[] isDirectory) {
+			fLastModified= lastModified;
+			fNames= names;
+			fIsDirectory= isDirectory;
+			fCheckTime= System.currentTimeMillis();
+		}
+
+		/**
+		 * Returns for each entry whether it is a header file for the given project.
+		 */
+		synchronized boolean[] getHeaderFlags(IProject project) {
+			boolean[] isHeader= fIsHeader.get(project.getName());
+			if (isHeader == null) {
+				isHeader= new boolean[fNames.length];
+				for (int i= 0; i < fNames.length; i++) {
+					final String name= fNames[i];
+					isHeader[i]= !fIsDirectory[i] && (CoreModel.isValidCXXHeaderUnitName(project, name)
+							|| CoreModel.isValidCHeaderUnitName(project, name));
+				}
+				fIsHeader.put(project.getName(), isHeader);
+			}
+			return isHeader;
+		}
+
+		/**
+		 * Drops the header flags for the project with the given name, or for all projects
+		 * if the name is <code>null</code>.
+		 */
+		synchronized void clearHeaderFlags(String projectName) {
+			if (projectName == null) {
+				fIsHeader.clear();
+			} else {
+				fIsHeader.remove(projectName);
+			}
+		}
+	}
+
+	static IncludeDirectoryCache getInstance() {
+		return INSTANCE;
+	}
+
+	private final LinkedHashMap<String, Listing> fListings= new LinkedHashMap<String, Listing>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+			return size() > MAX_DIRECTORIES;
+		}
+	};
+	private final LinkedHashSet<File> fOutdated= new LinkedHashSet<File>();
+	private final Job fJob= new Job(ContentAssistMessages.IncludeDirectoryCache_jobName) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return checkListings(monitor);
+		}
+	};
+
+	/** Projects whose include directories are read in the background */
+	private final LinkedHashSet<IProject> fPrescanProjects= new LinkedHashSet<IProject>();
+	/** Whether the open projects are to be added to {@link #fPrescanProjects} */
+	private boolean fPrescanOpenProjects;
+	private final Job fPrescanJob= new Job(ContentAssistMessages.IncludeDirectoryCache_prescanJobName) {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return prescanProjects(monitor);
+		}
+	};
+	private final ICProjectDescriptionListener fDescriptionListener= new ICProjectDescriptionListener() {
+		public void handleEvent(CProjectDescriptionEvent event) {
+			final IProject project= event.getProject();
+			if (project != null) {
+				if (event.getEventType() == CProjectDescriptionEvent.APPLIED) {
+					// the header extensions may be set per project
+					clearHeaderFlags(project.getName());
+				}
+				schedulePrescan(project);
+			}
+		}
+	};
+	private final IContentTypeChangeListener fContentTypeListener= new IContentTypeChangeListener() {
+		public void contentTypeChanged(ContentTypeChangeEvent event) {
+			clearHeaderFlags(null);
+		}
+	};
+
+	private IncludeDirectoryCache() {
+		fJob.setSystem(true);
+		fPrescanJob.setSystem(true);
+		fPrescanJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Starts listening to project description and content type changes and reads the
+	 * include directories of the open projects in the background.
+	 */
+	public static void startup() {
+		CoreModel.getDefault().getProjectDescriptionManager().addCProjectDescriptionListener(
+				INSTANCE.fDescriptionListener, CProjectDescriptionEvent.LOADED | CProjectDescriptionEvent.APPLIED);
+		Platform.getContentTypeManager().addContentTypeChangeListener(INSTANCE.fContentTypeListener);
+		synchronized (INSTANCE.fPrescanProjects) {
+			INSTANCE.fPrescanOpenProjects= true;
+		}
+		INSTANCE.fPrescanJob.schedule();
+	}
+
+	public static void shutdown() {
+		CoreModel.getDefault().getProjectDescriptionManager().removeCProjectDescriptionListener(
+				INSTANCE.fDescriptionListener);
+		IContentTypeManager contentTypeManager= Platform.getContentTypeManager();
+		if (contentTypeManager != null) {
+			contentTypeManager.removeContentTypeChangeListener(INSTANCE.fContentTypeListener);
+		}
+		INSTANCE.fPrescanJob.cancel();
+		INSTANCE.fJob.cancel();
+	}
+
+	/**
+	 * Returns the listing of the given directory, which is empty if the directory does
+	 * not exist. The directory is read only if it is not known, yet.
+	 */
+	Listing getListing(File directory) {
+		final String key= directory.getPath();
+		Listing listing;
+		synchronized (fListings) {
+			listing= fListings.get(key);
+			if (listing != null) {
+				if (System.currentTimeMillis() - listing.fCheckTime > CHECK_INTERVAL && fOutdated.add(directory)) {
+					fJob.schedule();
+				}
+				return listing;
+			}
+		}
+		listing= readListing(directory);
+		synchronized (fListings) {
+			fListings.put(key, listing);
+		}
+		return listing;
+	}
+
+	private void clearHeaderFlags(String projectName) {
+		synchronized (fListings) {
+			for (Listing listing : fListings.values()) {
+				listing.clearHeaderFlags(projectName);
+			}
+		}
+	}
+
+	private void schedulePrescan(IProject project) {
+		synchronized (fPrescanProjects) {
+			if (fPrescanProjects.add(project)) {
+				fPrescanJob.schedule();
+			}
+		}
+	}
+
+	/**
+	 * Reads the include directories of the scanner info of the scheduled projects that
+	 * are not known, yet, and checks the known ones.
+	 */
+	private IStatus prescanProjects(IProgressMonitor monitor) {
+		boolean prescanOpenProjects;
+		synchronized (fPrescanProjects) {
+			prescanOpenProjects= fPrescanOpenProjects;
+			fPrescanOpenProjects= false;
+		}
+		if (prescanOpenProjects) {
+			try {
+				for (ICProject project : CoreModel.getDefault().getCModel().getCProjects()) {
+					synchronized (fPrescanProjects) {
+						fPrescanProjects.add(project.getProject());
+					}
+				}
+			} catch (CoreException e) {
+				// the directories are read when a project description is loaded
+			}
+		}
+		while (!monitor.isCanceled()) {
+			IProject project;
+			synchronized (fPrescanProjects) {
+				if (fPrescanProjects.isEmpty()) {
+					break;
+				}
+				project= fPrescanProjects.iterator().next();
+				fPrescanProjects.remove(project);
+			}
+			if (!project.isOpen()) {
+				continue;
+			}
+			IScannerInfoProvider provider= CCorePlugin.getDefault().getScannerInfoProvider(project);
+			IScannerInfo info= provider != null ? provider.getScannerInformation(project) : null;
+			if (info == null) {
+				continue;
+			}
+			LinkedHashSet<String> directories= new LinkedHashSet<String>();
+			if (info instanceof IExtendedScannerInfo) {
+				String[] localIncludes= ((IExtendedScannerInfo) info).getLocalIncludePath();
+				if (localIncludes != null) {
+					directories.addAll(Arrays.asList(localIncludes));
+				}
+			}
+			String[] includes= info.getIncludePaths();
+			if (includes != null) {
+				directories.addAll(Arrays.asList(includes));
+			}
+			for (String directory : directories) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				updateListing(new File(directory));
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+	private IStatus checkListings(IProgressMonitor monitor) {
+		while (!monitor.isCanceled()) {
+			File directory;
+			synchronized (fListings) {
+				if (fOutdated.isEmpty()) {
+					break;
+				}
+				directory= fOutdated.iterator().next();
+				fOutdated.remove(directory);
+				if (!fListings.containsKey(directory.getPath())) {
+					continue;
+				}
+			}
+			updateListing(directory);
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Reads the listing of the given directory unless it is known and the directory has
+	 * not been modified since.
+	 */
+	private void updateListing(File directory) {
+		final String key= directory.getPath();
+		Listing listing;
+		synchronized (fListings) {
+			listing= fListings.get(key);
+		}
+		if (listing != null && directory.lastModified() == listing.fLastModified) {
+			listing.fCheckTime= System.currentTimeMillis();
+			return;
+		}
+		Listing newListing= readListing(directory);
+		synchronized (fListings) {
+			fListings.put(key, newListing);
+		}
+	}
+
+	private static Listing readListing(File directory) {
+		final long lastModified= directory.lastModified();
+		File[] files= directory.listFiles();
+		if (files == null) {
+			// the directory does not exist or cannot be read
+			return new Listing(lastModified, NO_NAMES, NO_FLAGS);
+		}
+		ArrayList<String> names= new ArrayList<String>(files.length);
+		boolean[] isDirectory= new boolean[files.length];
+		for (File file : files) {
+			if (file.isFile()) {
+				names.add(file.getName());
+			} else if (file.isDirectory()) {
+				isDirectory[names.size()]= true;
+				names.add(file.getName());
+			}
+		}
+		boolean[] flags= new boolean[names.size()];
+		System.arraycopy(isDirectory, 0, flags, 0, flags.length);
+		return new Listing(lastModified, names.toArray(new String[names.size()]), flags);
+	}
+}
@@ -11,7 +11,6 @@
  *******************************************************************************/
 package org.eclipse.cdt.internal.ui.text.contentassist;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -35,7 +34,6 @@ import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
-import org.eclipse.swt.graphics.Image;
 
 import org.eclipse.cdt.core.model.CoreModel;
 import org.eclipse.cdt.core.model.IInclude;
@@ -143,7 +141,7 @@ public class InclusionProposalComputer implements ICompletionProposalComputer {
 			for (IInclude includeDirective : includes) {
 				alreadyIncluded.add(includeDirective.getElementName());
 			}
-			Image image = getImage(CElementImageProvider.getIncludeImageDescriptor());
+			ImageDescriptor image = CElementImageProvider.getIncludeImageDescriptor();
 			for (String include : potentialIncludes) {
 				if (alreadyIncluded.add(include)) {
 					final char openingBracket= angleBrackets ? '<' : '"';
@@ -228,7 +226,8 @@ public class InclusionProposalComputer implements ICompletionProposalComputer {
 	}
 
 	/**
-	 * Collect include files from the given file system directory.
+	 * Collect include files from the given file system directory. The listing of the
+	 * directory is taken from the {@link IncludeDirectoryCache}.
 	 * 
 	 * @param tu  the translation unit to include the file
 	 * @param directory  the file system path of the directory
@@ -250,22 +249,20 @@ public class InclusionProposalComputer implements ICompletionProposalComputer {
 				directory= directory.append(prefixPath);
 			}
 		}
-		final File fileDir = directory.toFile();
-		if (!fileDir.exists()) {
+		final IncludeDirectoryCache.Listing listing= IncludeDirectoryCache.getInstance().getListing(directory.toFile());
+		if (listing.fNames.length == 0) {
 			return;
 		}
 		final int prefixLength = namePrefix.length();
 		final IProject project= tu.getCProject().getProject();
-		File[] files= fileDir.listFiles();
+		final boolean[] isHeader= listing.getHeaderFlags(project);
 		IContentAssistMatcher matcher = ContentAssistMatcherFactory.getInstance().createMatcher(namePrefix);
-		for (File file : files) {
-			final String name= file.getName();
+		for (int i = 0; i < listing.fNames.length; i++) {
+			final String name= listing.fNames[i];
 			if (name.length() >= prefixLength && matcher.match(name.toCharArray())) {
-				if (file.isFile()) {
-					if (CoreModel.isValidCXXHeaderUnitName(project, name) || CoreModel.isValidCHeaderUnitName(project, name)) {
-						includeFiles.add(prefixPath.append(name).toString());
-					}
-				} else if (file.isDirectory()) {
+				if (isHeader[i]) {
+					includeFiles.add(prefixPath.append(name).toString());
+				} else if (listing.fIsDirectory[i]) {
 					includeFiles.add(prefixPath.append(name).addTrailingSeparator().toString());
 				}
 			}
@@ -369,12 +366,10 @@ public class InclusionProposalComputer implements ICompletionProposalComputer {
 		return baseRelevance;
 	}
 
-	private CCompletionProposal createProposal(int repOffset, int repLength, String repString, String dispString, Image image, int relevance, CContentAssistInvocationContext context) {
-		return new CCompletionProposal(repString, repOffset, repLength, image, dispString, dispString, relevance, context.getViewer());
-	}
-
-	private Image getImage(ImageDescriptor desc) {
-		return desc != null ? CUIPlugin.getImageDescriptorRegistry().get(desc) : null;
+	private CCompletionProposal createProposal(int repOffset, int repLength, String repString, String dispString, ImageDescriptor image, int relevance, CContentAssistInvocationContext context) {
+		CCompletionProposal proposal= new CCompletionProposal(repString, repOffset, repLength, null, dispString, dispString, relevance, context.getViewer());
+		proposal.setImageDescriptor(image);
+		return proposal;
 	}
 	
 }
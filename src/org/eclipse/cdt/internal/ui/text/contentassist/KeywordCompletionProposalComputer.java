@@ -22,7 +22,6 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
-import org.eclipse.swt.graphics.Image;
 
 import org.eclipse.cdt.core.dom.ast.IASTCompletionNode;
 import org.eclipse.cdt.core.dom.ast.IASTFieldReference;
@@ -80,7 +79,6 @@ public class KeywordCompletionProposalComputer extends ParsingBasedProposalCompu
 
 			// add matching preprocessor keyword proposals
 			ImageDescriptor imagedesc = CElementImageProvider.getKeywordImageDescriptor();
-			Image image = imagedesc != null ? CUIPlugin.getImageDescriptorRegistry().get(imagedesc) : null;
 			
 			for(String keyword : languageKeywords.getPreprocessorKeywords()) {
 				if (keyword.startsWith(prefix) && keyword.length() > prefixLength) {
@@ -95,8 +93,10 @@ public class KeywordCompletionProposalComputer extends ParsingBasedProposalCompu
 					} else if (needDirectiveKeyword) {
 						continue;
 					}
-					proposals.add(new CCompletionProposal(repString, repOffset,
-							repLength, image, keyword, relevance, context.getViewer()));
+					CCompletionProposal proposal = new CCompletionProposal(repString, repOffset,
+							repLength, null, keyword, relevance, context.getViewer());
+					proposal.setImageDescriptor(imagedesc);
+					proposals.add(proposal);
 				}
 			}
 		} else {
@@ -105,14 +105,15 @@ public class KeywordCompletionProposalComputer extends ParsingBasedProposalCompu
 	        
 			// add matching keyword proposals
 	        ImageDescriptor imagedesc = CElementImageProvider.getKeywordImageDescriptor();
-	        Image image = imagedesc != null ? CUIPlugin.getImageDescriptorRegistry().get(imagedesc) : null;
 	        
 	        for(String keyword : languageKeywords.getKeywords()) {
 	            if (keyword.startsWith(prefix) && keyword.length() > prefixLength && keyword.length() >= MIN_KEYWORD_LENGTH) {
 	                int repLength = prefixLength;
 	                int repOffset = context.getInvocationOffset() - repLength;
-	                proposals.add(new CCompletionProposal(keyword, repOffset,
-							repLength, image, keyword, relevance, context.getViewer()));
+	                CCompletionProposal proposal = new CCompletionProposal(keyword, repOffset,
+							repLength, null, keyword, relevance, context.getViewer());
+	                proposal.setImageDescriptor(imagedesc);
+	                proposals.add(proposal);
 	            }
 	        }
 		}
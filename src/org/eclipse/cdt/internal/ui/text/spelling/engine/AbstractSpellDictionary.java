@@ -13,6 +13,7 @@
 package org.eclipse.cdt.internal.ui.text.spelling.engine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,6 +21,7 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
@@ -28,6 +30,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -60,8 +63,14 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The phonetic distance algorithm */
 	private IPhoneticDistanceAlgorithm fDistanceAlgorithm= new DefaultPhoneticDistanceAlgorithm();
 
-	/** The mapping from phonetic hashes to word lists */
-	private final Map<String, Serializable> fHashBuckets= new HashMap<String, Serializable>(HASH_CAPACITY);
+	/** The words loaded from the word list, or <code>null</code> */
+	private WordTable fWords;
+
+	/** Collects the words while the word list is loaded, or <code>null</code> */
+	private WordTable.Builder fBuilder;
+
+	/** The mapping from phonetic hashes to word lists for words added to the loaded dictionary */
+	private final Map<String, Serializable> fHashBuckets= new HashMap<String, Serializable>();
 
 	/** The phonetic hash provider */
 	private IPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
@@ -79,14 +88,31 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	boolean fIsStrippingNonLetters= true;
 
 	/**
-	 * Returns all candidates with the same phonetic hash.
+	 * Adds all candidates with the same phonetic hash to the given list.
 	 *
 	 * @param hash
 	 *                   The hash to retrieve the candidates of
-	 * @return Array of candidates for the phonetic hash
+	 * @param candidates
+	 *                   The list to add the candidates to
 	 */
-	protected final Object getCandidates(final String hash) {
-		return fHashBuckets.get(hash);
+	protected final void getCandidates(final String hash, final List<String> candidates) {
+		final WordTable words= fWords;
+		if (words != null) {
+			final int bucket= words.findBucket(hash);
+			if (bucket >= 0) {
+				for (int index= words.getFirstWord(bucket); index < words.getEndWord(bucket); index++)
+					candidates.add(words.getWord(index));
+			}
+		}
+
+		final Object added= fHashBuckets.get(hash);
+		if (added instanceof String) {
+			candidates.add((String)added);
+		} else if (added != null) {
+			@SuppressWarnings("unchecked")
+			final ArrayList<String> addedList= (ArrayList<String>)added;
+			candidates.addAll(addedList);
+		}
 	}
 
 	/**
@@ -107,46 +133,22 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		int distance= 0;
 		String hash= null;
 
-		final StringBuffer buffer= new StringBuffer(BUFFER_CAPACITY);
 		final HashSet<RankedWordProposal> result= new HashSet<RankedWordProposal>(BUCKET_CAPACITY * hashs.size());
+		final ArrayList<String> candidateList= new ArrayList<String>(BUCKET_CAPACITY);
 
 		for (int index= 0; index < hashs.size(); index++) {
 
 			hash= hashs.get(index);
 
-			final Object candidates= getCandidates(hash);
-			if (candidates == null)
-				continue;
-			else if (candidates instanceof String) {
-				String candidate= (String)candidates;
-				distance= fDistanceAlgorithm.getDistance(word, candidate);
-				if (distance < DISTANCE_THRESHOLD) {
-					buffer.setLength(0);
-					buffer.append(candidate);
-					if (sentence)
-						buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-					result.add(new RankedWordProposal(buffer.toString(), -distance));
-				}
-				continue;
-			}
-
-			@SuppressWarnings("unchecked")
-			final ArrayList<String> candidateList= (ArrayList<String>)candidates;
+			candidateList.clear();
+			getCandidates(hash, candidateList);
 			for (int offset= 0; offset < candidateList.size(); offset++) {
 
 				String candidate= candidateList.get(offset);
 				distance= fDistanceAlgorithm.getDistance(word, candidate);
 
-				if (distance < DISTANCE_THRESHOLD) {
-
-					buffer.setLength(0);
-					buffer.append(candidate);
-
-					if (sentence)
-						buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-
-					result.add(new RankedWordProposal(buffer.toString(), -distance));
-				}
+				if (distance < DISTANCE_THRESHOLD)
+					result.add(new RankedWordProposal(sentence ? capitalize(candidate) : candidate, -distance));
 			}
 		}
 		return result;
@@ -170,23 +172,11 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		int distance= 0;
 		int minimum= Integer.MAX_VALUE;
 
-		StringBuffer buffer= new StringBuffer(BUFFER_CAPACITY);
-
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return;
-		else if (candidates instanceof String) {
-			String candidate= (String)candidates;
-			distance= fDistanceAlgorithm.getDistance(word, candidate);
-			buffer.append(candidate);
-			if (sentence)
-				buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-			result.add(new RankedWordProposal(buffer.toString(), -distance));
+		final ArrayList<String> candidateList= new ArrayList<String>(BUCKET_CAPACITY);
+		getCandidates(fHashProvider.getHash(word), candidateList);
+		if (candidateList.isEmpty())
 			return;
-		}
 
-		@SuppressWarnings("unchecked")
-		final ArrayList<String> candidateList= (ArrayList<String>)candidates;
 		final ArrayList<RankedWordProposal> matches= new ArrayList<RankedWordProposal>(candidateList.size());
 
 		for (int index= 0; index < candidateList.size(); index++) {
@@ -198,19 +188,28 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 				if (distance < minimum)
 					matches.clear();
 
-				buffer.setLength(0);
-				buffer.append(candidate);
-
-				if (sentence)
-					buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-
-				matches.add(new RankedWordProposal(buffer.toString(), -distance));
+				matches.add(new RankedWordProposal(sentence ? capitalize(candidate) : candidate, -distance));
 				minimum= distance;
 			}
 		}
 
 		result.addAll(matches);
 	}
+
+	/**
+	 * Returns the word with its first character converted to upper case.
+	 *
+	 * @param word
+	 *                   The word to capitalize
+	 * @return The capitalized word
+	 */
+	private static String capitalize(final String word) {
+		final char first= word.charAt(0);
+		final char upper= Character.toUpperCase(first);
+		if (first == upper)
+			return word;
+		return upper + word.substring(1);
+	}
 	
 	/**
 	 * Tells whether this dictionary is empty.
@@ -218,7 +217,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @return <code>true</code> if this dictionary is empty
 	 */
 	protected boolean isEmpty() {
-		return fHashBuckets.size() == 0;
+		return (fWords == null || fWords.size() == 0) && fHashBuckets.size() == 0;
 	}
 
 	/**
@@ -370,6 +369,11 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	protected final void hashWord(final String word) {
 
 		final String hash= fHashProvider.getHash(word);
+		if (fBuilder != null) {
+			fBuilder.add(hash, word);
+			return;
+		}
+
 		Object bucket= fHashBuckets.get(hash);
 
 		if (bucket == null) {
@@ -405,7 +409,20 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			// Do nothing
 		}
 
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
+		final String hash= fHashProvider.getHash(word);
+		final WordTable words= fWords;
+		if (words != null) {
+			final int bucket= words.findBucket(hash);
+			if (bucket >= 0) {
+				final int end= words.getEndWord(bucket);
+				for (int index= words.getFirstWord(bucket); index < end; index++) {
+					if (words.isWord(index, word, false) || words.isWord(index, word, true))
+						return true;
+				}
+			}
+		}
+
+		final Object candidates= fHashBuckets.get(hash);
 		if (candidates == null)
 			return false;
 		else if (candidates instanceof String) {
@@ -459,11 +476,12 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @see org.eclipse.cdt.ui.text.spelling.engine.ISpellDictionary#isLoaded()
 	 */
 	public final synchronized boolean isLoaded() {
-		return fLoaded || fHashBuckets.size() > 0;
+		return fLoaded || fWords != null || fHashBuckets.size() > 0;
 	}
 
 	/**
-	 * Loads a dictionary word list from disk.
+	 * Loads a dictionary word list from disk. The words are read from the table stored
+	 * for the word list when it was loaded before, the table is created otherwise.
 	 *
 	 * @param url
 	 *                   The URL of the word list to load
@@ -475,11 +493,22 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			 return fLoaded;
 
 		if (url != null) {
+			final String key= getTableKey(url);
+			if (key != null) {
+				final WordTable words= WordTable.load(key);
+				if (words != null) {
+					fWords= words;
+					fMustLoad= false;
+					return true;
+				}
+			}
+
 			InputStream stream= null;
 			int line= 0;
 			try {
 				stream= url.openStream();
 				if (stream != null) {
+					fBuilder= new WordTable.Builder();
 					String word= null;
 					
 					// Setup a reader with a decoder in order to read over malformed input if needed.
@@ -511,6 +540,9 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 						if (doRead)
 							hashWord(word);
 					}
+					fWords= fBuilder.build();
+					if (key != null)
+						fWords.store(key, getListKey(url));
 					return true;
 				}
 			} catch (FileNotFoundException e) {
@@ -535,6 +567,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 					CUIPlugin.log(exception);
 				}
 			} finally {
+				fBuilder= null;
 				fMustLoad= false;
 				try {
 					if (stream != null)
@@ -546,6 +579,48 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		return false;
 	}
 
+	/**
+	 * Returns the key of the table stored for the given word list, or <code>null</code> if
+	 * the word list cannot be identified.
+	 *
+	 * @param url
+	 *                   The URL of the word list
+	 * @return The key identifying the word list, its version and how it is hashed
+	 */
+	private String getTableKey(final URL url) {
+		long lastModified;
+		long length;
+		if ("file".equals(url.getProtocol())) { //$NON-NLS-1$
+			final File file= new File(url.getPath());
+			lastModified= file.lastModified();
+			length= file.length();
+		} else {
+			try {
+				final URLConnection connection= url.openConnection();
+				lastModified= connection.getLastModified();
+				length= connection.getContentLength();
+				connection.getInputStream().close();
+			} catch (IOException exception) {
+				return null;
+			}
+		}
+		if (lastModified == 0)
+			return null;
+
+		return getListKey(url) + '|' + lastModified + '|' + length;
+	}
+
+	/**
+	 * Returns the part of the table key identifying the word list regardless of its version.
+	 *
+	 * @param url
+	 *                   The URL of the word list
+	 * @return The prefix of the keys of the tables stored for the word list
+	 */
+	private String getListKey(final URL url) {
+		return url.toString() + '|' + getEncoding() + '|' + fHashProvider.getClass().getName();
+	}
+
 	/**
 	 * Compacts the dictionary.
 	 */
@@ -584,6 +659,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	public synchronized void unload() {
 		fLoaded= false;
 		fMustLoad= true;
+		fWords= null;
 		fHashBuckets.clear();
 	}
 
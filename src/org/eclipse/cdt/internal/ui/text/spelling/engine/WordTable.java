@@ -0,0 +1,409 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.cdt.ui.CUIPlugin;
+
+/**
+ * An immutable word list grouped by phonetic hashes, stored in packed arrays.
+ * <p>
+ * A table can be written to the state location of the plugin, later on it is mapped into
+ * memory instead of being built from the word list again.
+ */
+final class WordTable {
+	private static final int MAGIC= 0x43445754;
+	private static final int VERSION= 1;
+	private static final String CACHE_FOLDER= "spellingDictionaries"; //$NON-NLS-1$
+	private static final String CACHE_EXT= ".words"; //$NON-NLS-1$
+
+	/**
+	 * Collects the words of a table.
+	 */
+	static final class Builder {
+		private final ArrayList<String> fHashes= new ArrayList<String>();
+		private final ArrayList<String> fWords= new ArrayList<String>();
+
+		void add(String hash, String word) {
+			fHashes.add(hash);
+			fWords.add(word);
+		}
+
+		WordTable build() {
+			final int wordCount= fWords.size();
+			Integer[] order= new Integer[wordCount];
+			for (int i= 0; i < wordCount; i++) {
+				order[i]= i;
+			}
+			// stable, words of a bucket keep the order of the list
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					return fHashes.get(i1).compareTo(fHashes.get(i2));
+				}
+			});
+
+			int bucketCount= 0;
+			int hashCharCount= 0;
+			int wordCharCount= 0;
+			String last= null;
+			for (Integer i : order) {
+				String hash= fHashes.get(i);
+				if (!hash.equals(last)) {
+					bucketCount++;
+					hashCharCount += hash.length();
+					last= hash;
+				}
+				wordCharCount += fWords.get(i).length();
+			}
+
+			int[] slots= new int[getTableSize(bucketCount)];
+			int[] hashStarts= new int[bucketCount + 1];
+			int[] firstWords= new int[bucketCount + 1];
+			int[] wordStarts= new int[wordCount + 1];
+			char[] hashChars= new char[hashCharCount];
+			char[] wordChars= new char[wordCharCount];
+			int bucket= -1;
+			int hashPos= 0;
+			int wordPos= 0;
+			last= null;
+			for (int w= 0; w < wordCount; w++) {
+				final int i= order[w];
+				String hash= fHashes.get(i);
+				if (!hash.equals(last)) {
+					bucket++;
+					hashStarts[bucket]= hashPos;
+					firstWords[bucket]= w;
+					hash.getChars(0, hash.length(), hashChars, hashPos);
+					hashPos += hash.length();
+					insert(slots, hash.hashCode(), bucket);
+					last= hash;
+				}
+				String word= fWords.get(i);
+				wordStarts[w]= wordPos;
+				word.getChars(0, word.length(), wordChars, wordPos);
+				wordPos += word.length();
+			}
+			hashStarts[bucketCount]= hashPos;
+			firstWords[bucketCount]= wordCount;
+			wordStarts[wordCount]= wordPos;
+			return new WordTable(IntBuffer.wrap(slots), IntBuffer.wrap(hashStarts), IntBuffer.wrap(firstWords),
+					IntBuffer.wrap(wordStarts), CharBuffer.wrap(hashChars), CharBuffer.wrap(wordChars));
+		}
+
+		private static int getTableSize(int bucketCount) {
+			int size= 16;
+			while (size < bucketCount * 2) {
+				size <<= 1;
+			}
+			return size;
+		}
+
+		private static void insert(int[] slots, int hashCode, int bucket) {
+			final int mask= slots.length - 1;
+			int i= mix(hashCode) & mask;
+			while (slots[i] != 0) {
+				i= (i + 1) & mask;
+			}
+			slots[i]= bucket + 1;
+		}
+	}
+
+	/** Bucket index plus one for each slot of the hash table, 0 for free slots */
+	private final IntBuffer fSlots;
+	/** Offsets of the phonetic hashes in {@link #fHashChars}, followed by the total length */
+	private final IntBuffer fHashStarts;
+	/** Index of the first word of each bucket, followed by the number of words */
+	private final IntBuffer fFirstWords;
+	/** Offsets of the words in {@link #fWordChars}, followed by the total length */
+	private final IntBuffer fWordStarts;
+	private final CharBuffer fHashChars;
+	private final CharBuffer fWordChars;
+
+	private WordTable(IntBuffer slots, IntBuffer hashStarts, IntBuffer firstWords, IntBuffer wordStarts,
+			CharBuffer hashChars, CharBuffer wordChars) {
+		fSlots= slots;
+		fHashStarts= hashStarts;
+		fFirstWords= firstWords;
+		fWordStarts= wordStarts;
+		fHashChars= hashChars;
+		fWordChars= wordChars;
+	}
+
+	/**
+	 * Returns the number of words.
+	 */
+	int size() {
+		return fWordStarts.capacity() - 1;
+	}
+
+	/**
+	 * Returns the bucket of the given phonetic hash or <code>-1</code>.
+	 */
+	int findBucket(String hash) {
+		final int mask= fSlots.capacity() - 1;
+		for (int i= mix(hash.hashCode()) & mask; ; i= (i + 1) & mask) {
+			final int slot= fSlots.get(i);
+			if (slot == 0)
+				return -1;
+			if (equals(fHashChars, fHashStarts.get(slot - 1), fHashStarts.get(slot), hash, false))
+				return slot - 1;
+		}
+	}
+
+	/**
+	 * Returns the index of the first word of the given bucket.
+	 */
+	int getFirstWord(int bucket) {
+		return fFirstWords.get(bucket);
+	}
+
+	/**
+	 * Returns the index after the last word of the given bucket.
+	 */
+	int getEndWord(int bucket) {
+		return fFirstWords.get(bucket + 1);
+	}
+
+	String getWord(int word) {
+		final int start= fWordStarts.get(word);
+		final int end= fWordStarts.get(word + 1);
+		char[] chars= new char[end - start];
+		for (int i= 0; i < chars.length; i++) {
+			chars[i]= fWordChars.get(start + i);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Compares a word of the table with the given one.
+	 *
+	 * @param toLowerCase whether the characters of <code>other</code> are converted to
+	 *     lower case before they are compared.
+	 */
+	boolean isWord(int word, String other, boolean toLowerCase) {
+		return equals(fWordChars, fWordStarts.get(word), fWordStarts.get(word + 1), other, toLowerCase);
+	}
+
+	private static boolean equals(CharBuffer chars, int start, int end, String other, boolean toLowerCase) {
+		if (end - start != other.length())
+			return false;
+		for (int i= start; i < end; i++) {
+			char c= other.charAt(i - start);
+			if (toLowerCase)
+				c= Character.toLowerCase(c);
+			if (chars.get(i) != c)
+				return false;
+		}
+		return true;
+	}
+
+	private static int mix(int hashCode) {
+		int h= hashCode * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the table stored for the given key or <code>null</code>.
+	 *
+	 * @param key - identifies the word list and the way it was hashed.
+	 */
+	static WordTable load(String key) {
+		File file= getTableFile(key);
+		if (file == null || !file.isFile())
+			return null;
+		try {
+			RandomAccessFile raf= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+			try {
+				FileChannel channel= raf.getChannel();
+				// the mapping stays valid after the channel is closed
+				ByteBuffer buf= channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+					return null;
+				int keyLength= buf.getInt();
+				if (keyLength != key.length())
+					return null;
+				for (int i= 0; i < keyLength; i++) {
+					if (buf.getChar() != key.charAt(i))
+						return null;
+				}
+				final int slotCount= buf.getInt();
+				final int bucketCount= buf.getInt();
+				final int wordCount= buf.getInt();
+				final int hashCharCount= buf.getInt();
+				final int wordCharCount= buf.getInt();
+				IntBuffer slots= slice(buf, slotCount * 4).asIntBuffer();
+				IntBuffer hashStarts= slice(buf, (bucketCount + 1) * 4).asIntBuffer();
+				IntBuffer firstWords= slice(buf, (bucketCount + 1) * 4).asIntBuffer();
+				IntBuffer wordStarts= slice(buf, (wordCount + 1) * 4).asIntBuffer();
+				CharBuffer hashChars= slice(buf, hashCharCount * 2).asCharBuffer();
+				CharBuffer wordChars= slice(buf, wordCharCount * 2).asCharBuffer();
+				return new WordTable(slots, hashStarts, firstWords, wordStarts, hashChars, wordChars);
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			// the table is built from the word list
+		} catch (RuntimeException e) {
+			// truncated file, the table is built from the word list
+		}
+		file.delete();
+		return null;
+	}
+
+	private static ByteBuffer slice(ByteBuffer buf, int length) {
+		ByteBuffer result= buf.slice();
+		result.limit(length);
+		buf.position(buf.position() + length);
+		return result;
+	}
+
+	/**
+	 * Stores the table for the given key, such that it can be loaded instead of being
+	 * built again. The tables stored for previous versions of the word list are deleted.
+	 *
+	 * @param key - identifies the word list and the way it was hashed.
+	 * @param listKey - the prefix of the keys of all versions of the word list.
+	 */
+	void store(String key, String listKey) {
+		File file= getTableFile(key);
+		if (file == null)
+			return;
+		File folder= file.getParentFile();
+		try {
+			folder.mkdirs();
+			File tmpFile= File.createTempFile("words", ".tmp", folder); //$NON-NLS-1$ //$NON-NLS-2$
+			DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(key.length());
+				out.writeChars(key);
+				out.writeInt(fSlots.capacity());
+				out.writeInt(fHashStarts.capacity() - 1);
+				out.writeInt(size());
+				out.writeInt(fHashChars.capacity());
+				out.writeInt(fWordChars.capacity());
+				write(out, fSlots);
+				write(out, fHashStarts);
+				write(out, fFirstWords);
+				write(out, fWordStarts);
+				write(out, fHashChars);
+				write(out, fWordChars);
+			} finally {
+				out.close();
+			}
+			file.delete();
+			if (!tmpFile.renameTo(file))
+				tmpFile.delete();
+		} catch (IOException e) {
+			CUIPlugin.log(e);
+			return;
+		}
+		deleteOutdated(folder, file, listKey + '|');
+	}
+
+	/**
+	 * Deletes the tables of the folder stored for other versions of a word list, and the
+	 * tables of word list files that no longer exist.
+	 *
+	 * @param current - the table of the current version of the word list.
+	 * @param keyPrefix - the prefix of the keys of all versions of the word list.
+	 */
+	private static void deleteOutdated(File folder, File current, String keyPrefix) {
+		File[] files= folder.listFiles();
+		if (files == null)
+			return;
+		for (File file : files) {
+			if (file.equals(current) || !file.getName().endsWith(CACHE_EXT))
+				continue;
+			String key= readKey(file);
+			if (key == null || key.startsWith(keyPrefix) || isMissingFile(key)) {
+				// tables still mapped by a dictionary are deleted on a later attempt
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the key stored in the given table or <code>null</code> if it cannot be read.
+	 */
+	private static String readKey(File file) {
+		try {
+			DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION)
+					return null;
+				char[] key= new char[in.readInt()];
+				for (int i= 0; i < key.length; i++) {
+					key[i]= in.readChar();
+				}
+				return new String(key);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the key denotes a word list file that does not exist anymore.
+	 */
+	private static boolean isMissingFile(String key) {
+		int end= key.indexOf('|');
+		if (end < 0)
+			return false;
+		try {
+			URL url= new URL(key.substring(0, end));
+			return "file".equals(url.getProtocol()) && !new File(url.getPath()).exists(); //$NON-NLS-1$
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+
+	private static void write(DataOutputStream out, IntBuffer buf) throws IOException {
+		for (int i= 0; i < buf.capacity(); i++) {
+			out.writeInt(buf.get(i));
+		}
+	}
+
+	private static void write(DataOutputStream out, CharBuffer buf) throws IOException {
+		for (int i= 0; i < buf.capacity(); i++) {
+			out.writeChar(buf.get(i));
+		}
+	}
+
+	private static File getTableFile(String key) {
+		CUIPlugin plugin= CUIPlugin.getDefault();
+		if (plugin == null)
+			return null;
+		String name= Integer.toHexString(key.hashCode()) + '_' + Integer.toHexString(key.length()) + CACHE_EXT;
+		return plugin.getStateLocation().append(CACHE_FOLDER).append(name).toFile();
+	}
+}
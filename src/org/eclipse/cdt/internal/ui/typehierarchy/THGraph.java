@@ -11,10 +11,21 @@
 package org.eclipse.cdt.internal.ui.typehierarchy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -40,11 +51,27 @@ import org.eclipse.cdt.internal.ui.viewsupport.IndexUI;
 
 class THGraph {
 	private static final ICElement[] NO_MEMBERS = new ICElement[0];
+	private static final Comparator<THGraphNode> ORDER_COMPARATOR= new Comparator<THGraphNode>() {
+		public int compare(THGraphNode n1, THGraphNode n2) {
+			return n1.getOrder() < n2.getOrder() ? -1 : n1.getOrder() > n2.getOrder() ? 1 : 0;
+		}
+	};
+	private static final ThreadFactory THREAD_FACTORY= new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread= new Thread(r, "Type Hierarchy Subclass Search"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
 	private THGraphNode fInputNode= null;
 	private HashSet<THGraphNode> fRootNodes= new HashSet<THGraphNode>();
 	private HashSet<THGraphNode> fLeaveNodes= new HashSet<THGraphNode>();
 	private HashMap<ICElement, THGraphNode> fNodes= new HashMap<ICElement, THGraphNode>();
+	private HashSet<THGraphEdge> fEdges= new HashSet<THGraphEdge>();
 	private boolean fFileIsIndexed;
+	private int fMinOrder= 0;
+	private int fMaxOrder= 0;
+	private int fMark= 0;
 	
 	public THGraph() {
 	}
@@ -62,6 +89,7 @@ class THGraph {
 
 		if (node == null) {
 			node= new THGraphNode(input);
+			node.setOrder(++fMaxOrder);
 			fNodes.put(input, node);
 			fRootNodes.add(node);
 			fLeaveNodes.add(node);
@@ -70,10 +98,14 @@ class THGraph {
 	}
 	
 	private THGraphEdge addEdge(THGraphNode from, THGraphNode to) {
-		if (createsLoopOrIsDuplicate(from, to)) {
+		if (from == to) {
 			return null;
 		}
 		THGraphEdge edge= new THGraphEdge(from, to);
+		if (fEdges.contains(edge) || !updateOrder(from, to)) {
+			return null;
+		}
+		fEdges.add(edge);
 		from.startEdge(edge);
 		to.endEdge(edge);
 		fRootNodes.remove(to);
@@ -81,39 +113,85 @@ class THGraph {
 		return edge;
 	}
 
-	private boolean createsLoopOrIsDuplicate(THGraphNode from, THGraphNode to) {
-		if (from == to) {
+	/**
+	 * Maintains the topological order of the nodes for a new edge, such that only
+	 * the nodes between the two ends of the edge in the current order need to be
+	 * visited to detect a loop.
+	 * @return <code>false</code> if the edge would create a loop.
+	 */
+	private boolean updateOrder(THGraphNode from, THGraphNode to) {
+		if (from.getOutgoing().isEmpty() && from.getIncoming().isEmpty()) {
+			from.setOrder(--fMinOrder);
 			return true;
 		}
-		if (to.getOutgoing().isEmpty() || from.getIncoming().isEmpty()) {
-			return false;
+		if (to.getOutgoing().isEmpty() && to.getIncoming().isEmpty()) {
+			to.setOrder(++fMaxOrder);
+			return true;
 		}
-		
-		HashSet<THGraphNode> checked= new HashSet<THGraphNode>();
+		final int lowerBound= to.getOrder();
+		final int upperBound= from.getOrder();
+		if (upperBound < lowerBound) {
+			return true;
+		}
+
+		// nodes reachable from 'to' that are not behind 'from'
+		ArrayList<THGraphNode> forward= new ArrayList<THGraphNode>();
 		ArrayList<THGraphNode> stack= new ArrayList<THGraphNode>();
+		int mark= ++fMark;
+		to.setMark(mark);
 		stack.add(to);
-		
 		while (!stack.isEmpty()) {
 			THGraphNode node= stack.remove(stack.size()-1);
-			List<THGraphEdge> out= node.getOutgoing();
-			for (THGraphEdge edge : out) {
-				node= edge.getEndNode();
-				if (node == from) {
-					return true;
+			forward.add(node);
+			for (THGraphEdge edge : node.getOutgoing()) {
+				THGraphNode next= edge.getEndNode();
+				if (next == from) {
+					return false;
 				}
-				if (checked.add(node)) {
-					stack.add(node);
+				if (next.getMark() != mark && next.getOrder() < upperBound) {
+					next.setMark(mark);
+					stack.add(next);
 				}
 			}
 		}
-		// check if edge is already there.
-		List<THGraphEdge> out= from.getOutgoing();
-		for (THGraphEdge edge : out) {
-			if (edge.getEndNode() == to) {
-				return true;
+
+		// nodes reaching 'from' that are not in front of 'to'
+		ArrayList<THGraphNode> backward= new ArrayList<THGraphNode>();
+		mark= ++fMark;
+		from.setMark(mark);
+		stack.add(from);
+		while (!stack.isEmpty()) {
+			THGraphNode node= stack.remove(stack.size()-1);
+			backward.add(node);
+			for (THGraphEdge edge : node.getIncoming()) {
+				THGraphNode next= edge.getStartNode();
+				if (next.getMark() != mark && next.getOrder() > lowerBound) {
+					next.setMark(mark);
+					stack.add(next);
+				}
 			}
 		}
-		return false;
+
+		// reuse the positions of the visited nodes, placing the backward nodes first
+		Collections.sort(forward, ORDER_COMPARATOR);
+		Collections.sort(backward, ORDER_COMPARATOR);
+		int[] orders= new int[forward.size() + backward.size()];
+		int i= 0;
+		for (THGraphNode node : backward) {
+			orders[i++]= node.getOrder();
+		}
+		for (THGraphNode node : forward) {
+			orders[i++]= node.getOrder();
+		}
+		Arrays.sort(orders);
+		i= 0;
+		for (THGraphNode node : backward) {
+			node.setOrder(orders[i++]);
+		}
+		for (THGraphNode node : forward) {
+			node.setOrder(orders[i++]);
+		}
+		return true;
 	}
 
 	public Collection<THGraphNode> getRootNodes() {
@@ -154,9 +232,6 @@ class THGraph {
 			THGraphNode graphNode= addNode(elem);
 			try {
 				IIndexBinding binding = IndexUI.elementToBinding(index, elem);
-				if (binding != null) {
-					addMembers(index, graphNode, binding);
-				}
 				if (binding instanceof ICPPClassType) {
 					ICPPClassType ct= (ICPPClassType) binding;
 					ICPPBase[] bases= ct.getBases();
@@ -169,7 +244,6 @@ class THGraph {
 						ICElementHandle[] baseElems= IndexUI.findRepresentative(index, basecl);
 						for (ICElementHandle baseElem : baseElems) {
 							THGraphNode baseGraphNode= addNode(baseElem);
-							addMembers(index, baseGraphNode, basecl);							
 							addEdge(graphNode, baseGraphNode);
 							if (handled.add(baseElem)) {
 								stack.add(baseElem);
@@ -186,7 +260,6 @@ class THGraph {
 						if (baseElems.length > 0) {
 							ICElementHandle baseElem= baseElems[0];
 							THGraphNode baseGraphNode= addNode(baseElem);
-							addMembers(index, baseGraphNode, basecl);							
 							addEdge(graphNode, baseGraphNode);
 							if (handled.add(baseElem)) {
 								stack.add(baseElem);
@@ -200,50 +273,190 @@ class THGraph {
 		}
 	}
 
+	/**
+	 * Adds the subclasses of the input node, one level of the hierarchy after the other.
+	 * The subclasses of the types of a level are searched in parallel, the graph is
+	 * updated by the calling thread only. Members are not loaded, see 
+	 * {@link #loadMembers(IIndex, Collection, IProgressMonitor)}.
+	 */
 	public void addSubClasses(IIndex index, IProgressMonitor monitor) {
 		if (fInputNode == null) {
 			return;
 		}
 		HashSet<ICElement> handled= new HashSet<ICElement>();
-		ArrayList<ICElement> stack= new ArrayList<ICElement>();
+		ArrayList<ICElement> level= new ArrayList<ICElement>();
 		ICElement element = fInputNode.getElement();
-		stack.add(element);
+		level.add(element);
 		handled.add(element);
-		while (!stack.isEmpty()) {
-			if (monitor.isCanceled()) {
-				return;
+		ExecutorService executor= null;
+		try {
+			while (!level.isEmpty()) {
+				List<SubClassFinder> finders= new ArrayList<SubClassFinder>(level.size());
+				for (ICElement elem : level) {
+					finders.add(new SubClassFinder(index, elem, monitor));
+				}
+				final int threads= Runtime.getRuntime().availableProcessors();
+				final boolean parallel= threads > 1 && finders.size() > 1;
+				if (parallel && executor == null) {
+					// the pool is used for all further levels, which may be much larger
+					executor= Executors.newFixedThreadPool(threads, THREAD_FACTORY);
+				}
+				List<Future<List<ICElementHandle>>> futures= null;
+				if (parallel) {
+					futures= new ArrayList<Future<List<ICElementHandle>>>(finders.size());
+					for (SubClassFinder finder : finders) {
+						futures.add(executor.submit(finder));
+					}
+				}
+
+				ArrayList<ICElement> nextLevel= new ArrayList<ICElement>();
+				for (int i= 0; i < finders.size(); i++) {
+					if (monitor.isCanceled()) {
+						return;
+					}
+					List<ICElementHandle> subClassElems;
+					try {
+						subClassElems= futures != null ? getResult(futures.get(i), monitor) : finders.get(i).call();
+					} catch (CoreException e) {
+						CUIPlugin.log(e);
+						subClassElems= null;
+					} catch (InterruptedException e) {
+						return;
+					}
+					if (subClassElems == null) {
+						continue;
+					}
+					THGraphNode graphNode= addNode(level.get(i));
+					for (ICElementHandle subClassElem : subClassElems) {
+						THGraphNode subGraphNode= addNode(subClassElem);
+						addEdge(subGraphNode, graphNode);
+						if (handled.add(subClassElem)) {
+							nextLevel.add(subClassElem);
+						}
+					}
+				}
+				level= nextLevel;
 			}
-			ICElement elem= stack.remove(stack.size()-1);
-			THGraphNode graphNode= addNode(elem);
+		} finally {
+			if (executor != null) {
+				shutdown(executor);
+			}
+		}
+	}
+
+	/**
+	 * Stops the finders and waits for the running ones to return. They use the index
+	 * under the read lock of the caller, which must not be released before.
+	 */
+	private static void shutdown(ExecutorService executor) {
+		executor.shutdownNow();
+		boolean interrupted= false;
+		while (!executor.isTerminated()) {
 			try {
-				IBinding binding = IndexUI.elementToBinding(index, elem);
-				if (binding != null) {
-					IIndexName[] names= index.findNames(binding, IIndex.FIND_REFERENCES | IIndex.FIND_DEFINITIONS);
-					for (IIndexName indexName : names) {
-						if (monitor.isCanceled()) {
-							return;
-						}
-						if (indexName.isBaseSpecifier()) {
-							IIndexName subClassDef= indexName.getEnclosingDefinition();
-							if (subClassDef != null) {
-								IBinding subClass= index.findBinding(subClassDef);
-								ICElementHandle[] subClassElems= IndexUI.findRepresentative(index, subClass);
-								if (subClassElems.length > 0) {
-									ICElementHandle subClassElem= subClassElems[0];
-									THGraphNode subGraphNode= addNode(subClassElem);
-									addMembers(index, subGraphNode, subClass);							
-									addEdge(subGraphNode, graphNode);
-									if (handled.add(subClassElem)) {
-										stack.add(subClassElem);
-									}
-								}
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				interrupted= true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits for the subclasses found by a {@link SubClassFinder}, checking for cancellation.
+	 * @return the subclasses or <code>null</code> if they could not be determined.
+	 */
+	private List<ICElementHandle> getResult(Future<List<ICElementHandle>> future, IProgressMonitor monitor) 
+			throws InterruptedException {
+		while (!monitor.isCanceled()) {
+			try {
+				return future.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation
+			} catch (ExecutionException e) {
+				CUIPlugin.log(e.getCause());
+				return null;
+			}
+		}
+		throw new InterruptedException();
+	}
+
+	/**
+	 * Searches the index for the direct subclasses of a type. The caller of 
+	 * {@link THGraph#addSubClasses(IIndex, IProgressMonitor)} holds the read lock 
+	 * on the index on behalf of all finders.
+	 */
+	private static class SubClassFinder implements Callable<List<ICElementHandle>> {
+		private final IIndex fIndex;
+		private final ICElement fElement;
+		private final IProgressMonitor fMonitor;
+
+		SubClassFinder(IIndex index, ICElement element, IProgressMonitor monitor) {
+			fIndex= index;
+			fElement= element;
+			fMonitor= monitor;
+		}
+
+		public List<ICElementHandle> call() throws CoreException {
+			List<ICElementHandle> result= new ArrayList<ICElementHandle>();
+			IBinding binding = IndexUI.elementToBinding(fIndex, fElement);
+			if (binding != null) {
+				IIndexName[] names= fIndex.findNames(binding, IIndex.FIND_REFERENCES | IIndex.FIND_DEFINITIONS);
+				for (IIndexName indexName : names) {
+					if (fMonitor.isCanceled()) {
+						return result;
+					}
+					if (indexName.isBaseSpecifier()) {
+						IIndexName subClassDef= indexName.getEnclosingDefinition();
+						if (subClassDef != null) {
+							IBinding subClass= fIndex.findBinding(subClassDef);
+							ICElementHandle[] subClassElems= IndexUI.findRepresentative(fIndex, subClass);
+							if (subClassElems.length > 0) {
+								result.add(subClassElems[0]);
 							}
 						}
 					}
 				}
-			} catch (CoreException e) {
-				CUIPlugin.log(e);
 			}
+			return result;
+		}
+	}
+
+	Collection<THGraphNode> getNodes() {
+		return fNodes.values();
+	}
+
+	/**
+	 * Returns the given node together with all of its supertypes.
+	 */
+	Collection<THGraphNode> getSuperTypeClosure(THGraphNode node) {
+		ArrayList<THGraphNode> nodes= new ArrayList<THGraphNode>();
+		int mark= ++fMark;
+		node.setMark(mark);
+		nodes.add(node);
+		for (int i= 0; i < nodes.size(); i++) {
+			for (THGraphEdge edge : nodes.get(i).getOutgoing()) {
+				THGraphNode base= edge.getEndNode();
+				if (base.getMark() != mark) {
+					base.setMark(mark);
+					nodes.add(base);
+				}
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Loads the members of the given nodes, the caller needs to hold a read lock on the index.
+	 */
+	void loadMembers(IIndex index, Collection<THGraphNode> nodes, IProgressMonitor monitor) throws CoreException {
+		for (THGraphNode node : nodes) {
+			if (monitor.isCanceled()) {
+				return;
+			}
+			IIndexBinding binding= IndexUI.elementToBinding(index, node.getElement());
+			addMembers(index, node, binding);
 		}
 	}
 	
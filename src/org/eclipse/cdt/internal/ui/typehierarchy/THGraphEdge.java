@@ -27,4 +27,18 @@ class THGraphEdge {
 	THGraphNode getEndNode() {
 		return fTo;
 	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof THGraphEdge) {
+			THGraphEdge other= (THGraphEdge) obj;
+			return fFrom == other.fFrom && fTo == other.fTo;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(fFrom) + System.identityHashCode(fTo);
+	}
 }
@@ -24,7 +24,10 @@ class THGraphNode {
 	private List<THGraphEdge> fOutgoing= Collections.emptyList();
 	private List<THGraphEdge> fIncoming= Collections.emptyList();
 	private ICElement fElement;
-	private ICElement[] fMembers= null;
+	/** Loaded in a background job, see {@link THGraph#loadMembers} */
+	private volatile ICElement[] fMembers= null;
+	private int fOrder;
+	private int fMark;
 	
 	THGraphNode(ICElement element) {
 		fElement= element;
@@ -42,6 +45,26 @@ class THGraphNode {
 		return fElement;
 	}
 
+	/**
+	 * Position of the node in the topological order of the graph, every edge
+	 * leads from a node to a node with a higher position.
+	 */
+	int getOrder() {
+		return fOrder;
+	}
+
+	void setOrder(int order) {
+		fOrder= order;
+	}
+
+	int getMark() {
+		return fMark;
+	}
+
+	void setMark(int mark) {
+		fMark= mark;
+	}
+
 	private List<THGraphEdge> addElement(List<THGraphEdge> list, THGraphEdge elem) {
 		switch (list.size()) {
 		case 0:
@@ -67,6 +90,10 @@ class THGraphNode {
 		fMembers= array;
 	}
 	
+	/**
+	 * Returns the members of this node, or <code>null</code> if they have not been loaded.
+	 * @see THGraph#loadMembers
+	 */
 	public ICElement[] getMembers(boolean addInherited) {
 		if (!addInherited) {
 			return fMembers;
@@ -13,6 +13,7 @@ package org.eclipse.cdt.internal.ui.typehierarchy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
@@ -45,15 +46,31 @@ class THHierarchyModel {
 			return onComputeGraph(this, monitor);
 		}
 	}
+
+    private class MemberJob extends Job {
+    	private final THGraph fMemberGraph;
+
+		public MemberJob(THGraph graph) {
+			super(Messages.THHierarchyModel_Job_title);
+			fMemberGraph= graph;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			return onLoadMembers(this, fMemberGraph, monitor);
+		}
+	}
     
 	static final int TYPE_HIERARCHY = 0;
     static final int SUB_TYPE_HIERARCHY = 1;
     static final int SUPER_TYPE_HIERARCHY = 2;
 
 	static final int END_OF_COMPUTATION = 0;
+	static final int END_OF_MEMBER_COMPUTATION = 1;
 	
 	private static final ISchedulingRule RULE = new THSchedulingRule();
 	private static final Object[] NO_CHILDREN= new Object[0];
+	private static final Object[] PENDING_MEMBERS= new Object[] {"..."}; //$NON-NLS-1$
 
 	private ICElement fInput;
 	private int fHierarchyKind;
@@ -67,6 +84,9 @@ class THHierarchyModel {
 	private String fMemberSignatureToSelect;
 	
 	private Job fJob;
+	private Job fMemberJob;
+	/** Nodes whose members are to be loaded by {@link #fMemberJob} */
+	private final LinkedHashSet<THGraphNode> fMembersToLoad= new LinkedHashSet<THGraphNode>();
 	private Display fDisplay;
 	private ITHModelPresenter fView;
 	private WorkingSetFilterUI fFilter;
@@ -143,6 +163,99 @@ class THHierarchyModel {
 			fJob.cancel();
 		}
 		fJob= null;
+		stopMemberComputation();
+	}
+
+	synchronized private void stopMemberComputation() {
+		if (fMemberJob != null) {
+			fMemberJob.cancel();
+		}
+		fMemberJob= null;
+		fMembersToLoad.clear();
+	}
+
+	/**
+	 * Returns whether the members of the given nodes have been loaded, otherwise a job
+	 * is scheduled to load them and the view is refreshed when they are available.
+	 */
+	private boolean checkMembersLoaded(Collection<THGraphNode> nodes) {
+		ArrayList<THGraphNode> missing= new ArrayList<THGraphNode>();
+		for (THGraphNode node : nodes) {
+			if (node.getMembers(false) == null) {
+				missing.add(node);
+			}
+		}
+		if (missing.isEmpty()) {
+			return true;
+		}
+		scheduleMemberJob(missing);
+		return false;
+	}
+
+	synchronized private void scheduleMemberJob(Collection<THGraphNode> nodes) {
+		fMembersToLoad.addAll(nodes);
+		if (fMemberJob == null) {
+			fMemberJob= new MemberJob(fGraph);
+			fMemberJob.setRule(RULE);
+			fMemberJob.setSystem(true);
+			fMemberJob.schedule();
+		}
+	}
+
+	protected IStatus onLoadMembers(Job job, final THGraph graph, IProgressMonitor monitor) {
+		try {
+			ICProject[] scope= CoreModel.getDefault().getCModel().getCProjects();
+			IIndex index= CCorePlugin.getIndexManager().getIndex(scope);
+			index.acquireReadLock();
+			try {
+				while (true) {
+					ArrayList<THGraphNode> nodes;
+					synchronized (this) {
+						if (fMemberJob != job) {
+							return Status.CANCEL_STATUS;
+						}
+						if (fMembersToLoad.isEmpty() || monitor.isCanceled()) {
+							fMemberJob= null;
+							fMembersToLoad.clear();
+							break;
+						}
+						nodes= new ArrayList<THGraphNode>(fMembersToLoad);
+						fMembersToLoad.clear();
+					}
+					graph.loadMembers(index, nodes, monitor);
+				}
+			}
+			finally {
+				index.releaseReadLock();
+			}
+		} catch (CoreException e) {
+			// the members are requested again when the selection changes
+			CUIPlugin.log(e);
+			return Status.OK_STATUS;
+		} catch (InterruptedException e) {
+			return Status.CANCEL_STATUS;
+		}
+		finally {
+			synchronized (this) {
+				if (fMemberJob == job) {
+					fMemberJob= null;
+					fMembersToLoad.clear();
+				}
+			}
+		}
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		fDisplay.asyncExec(new Runnable() {
+			public void run() {
+				if (fGraph == graph && fRootNodes != null) {
+					updateSelectedMember();
+					updateImplementors();
+					notifyEvent(END_OF_MEMBER_COMPUTATION);
+				}
+			}
+		});
+		return Status.OK_STATUS;
 	}
 
 	protected IStatus onComputeGraph(Job job, IProgressMonitor monitor) {
@@ -161,6 +274,17 @@ class THHierarchyModel {
 				graph.addSubClasses(index, monitor);
 				if (monitor.isCanceled()) 
 					return Status.CANCEL_STATUS;
+				THGraphNode inputNode= graph.getInputNode();
+				if (inputNode != null) {
+					// marking the implementors of a member requires the members of all types,
+					// otherwise just the members shown for the input are loaded in advance.
+					if (fMemberSignatureToSelect != null) {
+						graph.loadMembers(index, graph.getNodes(), monitor);
+					}
+					else {
+						graph.loadMembers(index, graph.getSuperTypeClosure(inputNode), monitor);
+					}
+				}
 			}
 			finally {
 				index.releaseReadLock(); 
@@ -287,6 +411,11 @@ class THHierarchyModel {
 		if (fSelectedTypeNode != null && fMemberSignatureToSelect != null) {
 			THGraphNode gnode= fGraph.getNode(fSelectedTypeNode.getElement());
 			if (gnode != null) {
+				if (!checkMembersLoaded(getMemberNodes(gnode))) {
+					// the member is selected again when the members have been loaded
+					fSelectedMember= oldSelection;
+					return;
+				}
 				ICElement[] members= gnode.getMembers(fShowInheritedMembers);
 				if (members != null) {
 					for (ICElement member : members) {
@@ -306,6 +435,13 @@ class THHierarchyModel {
 		}	
 	}
 
+	private Collection<THGraphNode> getMemberNodes(THGraphNode gnode) {
+		if (fShowInheritedMembers) {
+			return fGraph.getSuperTypeClosure(gnode);
+		}
+		return Collections.singleton(gnode);
+	}
+
 	private THNode createNode(THNode parent, THGraphNode gnode, THGraphNode inputNode) {
 		ICElement element = gnode.getElement();
 		THNode node= new THNode(parent, element);
@@ -320,6 +456,7 @@ class THHierarchyModel {
 			fJob= null;
 			fDisplay.asyncExec(new Runnable(){
 				public void run() {
+					stopMemberComputation();
 					fGraph= graph;
 					THGraphNode inputNode= fGraph.getInputNode();
 					if (!fGraph.isFileIndexed()) {
@@ -369,6 +506,9 @@ class THHierarchyModel {
 	public Object[] getMembers() {
 		if (fSelectedTypeNode != null) {
 			THGraphNode gnode= fGraph.getNode(fSelectedTypeNode.getElement());
+			if (!checkMembersLoaded(getMemberNodes(gnode))) {
+				return PENDING_MEMBERS;
+			}
 			Object[] result= gnode.getMembers(fShowInheritedMembers);
 			if (result != null) {
 				return result;
@@ -387,6 +527,10 @@ class THHierarchyModel {
 
 	private void updateImplementors() {
 		if (fRootNodes != null) {
+			if (fSelectedMember != null && fMemberSignatureToSelect != null) {
+				// the implementors are marked again when all members have been loaded
+				checkMembersLoaded(fGraph.getNodes());
+			}
 			for (THNode node : fRootNodes) {
 				updateImplementors(node);
 			}
@@ -220,6 +220,10 @@ public class THInformationControl extends AbstractInformationControl implements
 					fHierarchyTreeViewer.expandToLevel(selection, 2);
 				}
 				break;
+			case THHierarchyModel.END_OF_MEMBER_COMPUTATION:
+				// the implementors are marked
+				fHierarchyTreeViewer.refresh();
+				break;
 			}		
 		}
 	}
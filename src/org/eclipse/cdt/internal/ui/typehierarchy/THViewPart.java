@@ -1118,6 +1118,9 @@ public class THViewPart extends ViewPart implements ITHModelPresenter {
 		case THHierarchyModel.END_OF_COMPUTATION:
 			updateView();
 			break;
+		case THHierarchyModel.END_OF_MEMBER_COMPUTATION:
+			updateViewers();
+			break;
 		}		
 	}
 
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.util;
+
+/**
+ * Matches names against camel case patterns. Every upper case character of the pattern
+ * starts a new part, that has to be a prefix of a part of the name starting with an upper
+ * case character, e.g. "NPE" and "NuPoEx" match "NullPointerException". The first part
+ * of the pattern is a prefix of the name, ignoring the case of its first character.
+ */
+public class CamelCaseMatcher {
+	private final String fPattern;
+
+	/**
+	 * Returns whether the given pattern is a camel case pattern, that is whether it has
+	 * an upper case character after its first character and no wildcards.
+	 */
+	public static boolean isCamelCasePattern(String pattern) {
+		boolean hasUpperCase= false;
+		for (int i= 0; i < pattern.length(); i++) {
+			final char c= pattern.charAt(i);
+			if (c == '*' || c == '?')
+				return false;
+			if (i > 0 && Character.isUpperCase(c))
+				hasUpperCase= true;
+		}
+		return hasUpperCase;
+	}
+
+	public CamelCaseMatcher(String pattern) {
+		fPattern= pattern;
+	}
+
+	public boolean match(String name) {
+		final int plen= fPattern.length();
+		final int nlen= name.length();
+		if (plen == 0)
+			return true;
+		if (nlen == 0 || Character.toLowerCase(fPattern.charAt(0)) != Character.toLowerCase(name.charAt(0)))
+			return false;
+
+		int p= 1;
+		int n= 1;
+		while (p < plen) {
+			final char pc= fPattern.charAt(p);
+			if (n < nlen && name.charAt(n) == pc) {
+				p++;
+				n++;
+			} else if (Character.isUpperCase(pc)) {
+				// continue with the next part of the name
+				n++;
+				while (n < nlen && !Character.isUpperCase(name.charAt(n))) {
+					n++;
+				}
+				if (n >= nlen)
+					return false;
+			} else {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -22,10 +22,13 @@ import org.eclipse.core.runtime.Assert;
 
 /**
  * A registry that maps <code>ImageDescriptors</code> to <code>Image</code>.
+ * <p>
+ * The registry may be accessed from any thread, images are always created in the
+ * thread of the display of the registry.
  */
 public class ImageDescriptorRegistry {
 
-	private HashMap<ImageDescriptor, Image> fRegistry= new HashMap<ImageDescriptor, Image>(10);
+	private final HashMap<ImageDescriptor, Image> fRegistry= new HashMap<ImageDescriptor, Image>(10);
 	private Display fDisplay;
 	
 	/**
@@ -59,14 +62,58 @@ public class ImageDescriptorRegistry {
 		if (descriptor == null)
 			descriptor= ImageDescriptor.getMissingImageDescriptor();
 			
-		Image result= fRegistry.get(descriptor);
-		if (result != null)
-			return result;
+		synchronized (fRegistry) {
+			Image result= fRegistry.get(descriptor);
+			if (result != null)
+				return result;
+		}
 	
 		Assert.isTrue(fDisplay == SWTUtil.getStandardDisplay(), "Allocating image for wrong display."); //$NON-NLS-1$
-		result= descriptor.createImage();
-		if (result != null)
-			fRegistry.put(descriptor, result);
+		if (Display.getCurrent() == fDisplay)
+			return create(descriptor);
+
+		// images are allocated in the display thread only
+		final ImageDescriptor desc= descriptor;
+		final Image[] result= new Image[1];
+		if (!fDisplay.isDisposed()) {
+			fDisplay.syncExec(new Runnable() {
+				public void run() {
+					result[0]= create(desc);
+				}
+			});
+		}
+		return result[0];
+	}
+
+	/**
+	 * Returns the image associated with the given image descriptor if it has been created
+	 * already. Other than {@link #get(ImageDescriptor)} this never waits for the display
+	 * thread.
+	 * 
+	 * @param descriptor the image descriptor for which the registry manages an image
+	 * @return the image associated with the image descriptor or <code>null</code>
+	 *  if the image has not been created yet.
+	 */
+	public Image lookup(ImageDescriptor descriptor) {
+		if (descriptor == null)
+			descriptor= ImageDescriptor.getMissingImageDescriptor();
+		synchronized (fRegistry) {
+			return fRegistry.get(descriptor);
+		}
+	}
+
+	private Image create(ImageDescriptor descriptor) {
+		synchronized (fRegistry) {
+			Image result= fRegistry.get(descriptor);
+			if (result != null)
+				return result;
+		}
+		Image result= descriptor.createImage();
+		if (result != null) {
+			synchronized (fRegistry) {
+				fRegistry.put(descriptor, result);
+			}
+		}
 		return result;
 	}
 
@@ -74,11 +121,13 @@ public class ImageDescriptorRegistry {
 	 * Disposes all images managed by this registry.
 	 */	
 	public void dispose() {
-		for (Iterator<Image> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
-			Image image= iter.next();
-			image.dispose();
+		synchronized (fRegistry) {
+			for (Iterator<Image> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
+				Image image= iter.next();
+				image.dispose();
+			}
+			fRegistry.clear();
 		}
-		fRegistry.clear();
 	}
 	
 	private void hookDisplay() {
@@ -46,6 +46,9 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	private static class ProjectErrorVisitor implements IResourceDeltaVisitor {
 
 		private HashSet<IResource> fChangedElements;
+		/** Files with any change of their problem markers, including moved markers */
+		private HashSet<IResource> fChangedMarkerFiles = new HashSet<IResource>();
+		private boolean fOpenStateChanged;
 
 		public ProjectErrorVisitor(HashSet<IResource> changedElements) {
 			fChangedElements = changedElements;
@@ -55,6 +58,9 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 			IResource res = delta.getResource();
 			if (res instanceof IProject && delta.getKind() == IResourceDelta.CHANGED) {
 				IProject project = (IProject)res;
+				if ((delta.getFlags() & IResourceDelta.OPEN) != 0) {
+					fOpenStateChanged = true;
+				}
 				if (!project.isAccessible()) {
 					// only track open C projects
 					return false;
@@ -66,6 +72,9 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 
 		private void checkInvalidate(IResourceDelta delta, IResource resource) {
 			int kind = delta.getKind();
+			if (kind == IResourceDelta.CHANGED && hasProblemMarkerDelta(delta)) {
+				fChangedMarkerFiles.add(resource);
+			}
 			if (kind == IResourceDelta.REMOVED || kind == IResourceDelta.ADDED
 					|| (kind == IResourceDelta.CHANGED && isErrorDelta(delta))) {
 				// invalidate the path and all parent paths
@@ -75,6 +84,16 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 			}
 		}
 
+		private boolean hasProblemMarkerDelta(IResourceDelta delta) {
+			if ((delta.getFlags() & IResourceDelta.MARKERS) != 0) {
+				for (IMarkerDelta markerDelta : delta.getMarkerDeltas()) {
+					if (markerDelta.isSubtypeOf(IMarker.PROBLEM))
+						return true;
+				}
+			}
+			return false;
+		}
+
 		private boolean isErrorDelta(IResourceDelta delta) {
 			if ( (delta.getFlags() & IResourceDelta.MARKERS) != 0) {
 				IMarkerDelta[] markerDeltas = delta.getMarkerDeltas();
@@ -95,6 +114,8 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	}
 
 	ListenerList fListeners;
+	private final ProblemSeverities fSeverities = new ProblemSeverities();
+	private volatile boolean fIsListening;
 
 	public ProblemMarkerManager() {
 		fListeners = new ListenerList();
@@ -105,15 +126,25 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	 */
 	public void resourceChanged(IResourceChangeEvent event) {
 		HashSet<IResource> changedElements = new HashSet<IResource>();
+		ProjectErrorVisitor visitor = new ProjectErrorVisitor(changedElements);
 
 		try {
 			IResourceDelta delta = event.getDelta();
 			if (delta != null)
-				delta.accept(new ProjectErrorVisitor(changedElements));
+				delta.accept(visitor);
 		} catch (CoreException e) {
 			CUIPlugin.log(e.getStatus());
 		}
 
+		if (visitor.fOpenStateChanged) {
+			fSeverities.clear();
+		} else {
+			if (!changedElements.isEmpty())
+				fSeverities.invalidate(changedElements);
+			// the positions of the markers are cached as well
+			if (!visitor.fChangedMarkerFiles.isEmpty())
+				fSeverities.invalidate(visitor.fChangedMarkerFiles);
+		}
 		if (!changedElements.isEmpty()) {
 			IResource[] changes = changedElements.toArray(new IResource[changedElements.size()]);
 			fireChanges(changes, true);
@@ -149,6 +180,14 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		}
 	}
 
+	/**
+	 * Returns the severities of the problem markers, or <code>null</code> if there are no
+	 * listeners, such that the severities cannot be kept up to date.
+	 */
+	public ProblemSeverities getSeverities() {
+		return fIsListening ? fSeverities : null;
+	}
+
 	/**
 	 * Adds a listener for problem marker changes.
 	 */
@@ -156,6 +195,8 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		if (fListeners.isEmpty()) {
 			CUIPlugin.getWorkspace().addResourceChangeListener(this);
 			CUIPlugin.getDefault().getDocumentProvider().addGlobalAnnotationModelListener(this);
+			fSeverities.clear();
+			fIsListening = true;
 		}
 		fListeners.add(listener);
 	}
@@ -166,8 +207,10 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	public void removeListener(IProblemChangedListener listener) {
 		fListeners.remove(listener);
 		if (fListeners.isEmpty()) {
+			fIsListening = false;
 			CUIPlugin.getWorkspace().removeResourceChangeListener(this);
 			CUIPlugin.getDefault().getDocumentProvider().removeGlobalAnnotationModelListener(this);
+			fSeverities.clear();
 		}
 	}
 
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.ui.texteditor.MarkerUtilities;
+
+import org.eclipse.cdt.core.model.ISourceRange;
+
+/**
+ * Highest severities of the problem markers of resources, maintained by the
+ * {@link ProblemMarkerManager} while it listens to resource changes. The severity of a
+ * container is aggregated from its members, the markers of a file are kept sorted by
+ * position such that the severity of a source range is found by binary search.
+ */
+public class ProblemSeverities {
+	public static final int NONE= 0;
+	public static final int WARNING= 1;
+	public static final int ERROR= 2;
+
+	/**
+	 * Positions of problem markers with the next warning and error for each position.
+	 */
+	private static final class PositionTable {
+		private static final PositionTable EMPTY= new PositionTable(new long[0], 0);
+
+		private final int[] fPositions;
+		/** Index of the first error at or after each index */
+		private final int[] fNextError;
+		/** Index of the first warning at or after each index */
+		private final int[] fNextWarning;
+
+		/**
+		 * @param entries position shifted left by two bits combined with the severity.
+		 */
+		PositionTable(long[] entries, int count) {
+			Arrays.sort(entries, 0, count);
+			fPositions= new int[count];
+			fNextError= new int[count + 1];
+			fNextWarning= new int[count + 1];
+			fNextError[count]= count;
+			fNextWarning[count]= count;
+			for (int i= count - 1; i >= 0; i--) {
+				final int severity= (int) (entries[i] & 3);
+				fPositions[i]= (int) (entries[i] >> 2);
+				fNextError[i]= severity == ERROR ? i : fNextError[i + 1];
+				fNextWarning[i]= severity == WARNING ? i : fNextWarning[i + 1];
+			}
+		}
+
+		/**
+		 * Returns the highest severity of the markers with a position in
+		 * <code>[start, end)</code>.
+		 */
+		int getSeverity(int start, int end) {
+			final int lo= lowerBound(start);
+			final int hi= lowerBound(end);
+			if (fNextError[lo] < hi)
+				return ERROR;
+			if (fNextWarning[lo] < hi)
+				return WARNING;
+			return NONE;
+		}
+
+		private int lowerBound(int position) {
+			int low= 0;
+			int high= fPositions.length;
+			while (low < high) {
+				int mid= (low + high) >>> 1;
+				if (fPositions[mid] < position) {
+					low= mid + 1;
+				} else {
+					high= mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * The problem markers of a single file.
+	 */
+	private static final class FileProblems {
+		static final FileProblems NO_PROBLEMS= new FileProblems(NONE, PositionTable.EMPTY, PositionTable.EMPTY);
+
+		final int fSeverity;
+		final PositionTable fOffsets;
+		final PositionTable fLines;
+
+		FileProblems(int severity, PositionTable offsets, PositionTable lines) {
+			fSeverity= severity;
+			fOffsets= offsets;
+			fLines= lines;
+		}
+	}
+
+	private final Map<IResource, FileProblems> fFiles= new HashMap<IResource, FileProblems>();
+	private final Map<IResource, Integer> fContainers= new HashMap<IResource, Integer>();
+	/** Incremented on every change, results computed meanwhile are not stored */
+	private int fGeneration;
+
+	/**
+	 * Returns the highest severity of the problem markers on the resource and its members,
+	 * one of {@link #NONE}, {@link #WARNING} or {@link #ERROR}.
+	 */
+	public int getSeverity(IResource res) throws CoreException {
+		if (res.getType() == IResource.FILE)
+			return getFileProblems(res).fSeverity;
+
+		final int generation;
+		synchronized (this) {
+			Integer severity= fContainers.get(res);
+			if (severity != null)
+				return severity.intValue();
+			generation= fGeneration;
+		}
+		int severity= getSeverity(res.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+		if (severity != ERROR && res instanceof IContainer) {
+			for (IResource member : ((IContainer) res).members()) {
+				severity= Math.max(severity, getSeverity(member));
+				if (severity == ERROR)
+					break;
+			}
+		}
+		synchronized (this) {
+			if (generation == fGeneration)
+				fContainers.put(res, severity);
+		}
+		return severity;
+	}
+
+	/**
+	 * Returns the highest severity of the problem markers of the file that are positioned
+	 * inside the given source range.
+	 */
+	public int getSeverity(IResource file, ISourceRange range) throws CoreException {
+		if (range == null)
+			return NONE;
+		FileProblems problems= getFileProblems(file);
+		if (problems.fSeverity == NONE)
+			return NONE;
+		int start= range.getStartPos();
+		return Math.max(problems.fOffsets.getSeverity(start, start + range.getLength()),
+				problems.fLines.getSeverity(range.getStartLine(), range.getEndLine() + 1));
+	}
+
+	/**
+	 * Drops the severities of the given resources.
+	 */
+	synchronized void invalidate(Collection<IResource> resources) {
+		fGeneration++;
+		for (IResource res : resources) {
+			fFiles.remove(res);
+			fContainers.remove(res);
+		}
+	}
+
+	/**
+	 * Drops all severities.
+	 */
+	synchronized void clear() {
+		fGeneration++;
+		fFiles.clear();
+		fContainers.clear();
+	}
+
+	private FileProblems getFileProblems(IResource file) throws CoreException {
+		final int generation;
+		synchronized (this) {
+			FileProblems problems= fFiles.get(file);
+			if (problems != null)
+				return problems;
+			generation= fGeneration;
+		}
+		FileProblems problems= computeFileProblems(file);
+		synchronized (this) {
+			if (generation == fGeneration)
+				fFiles.put(file, problems);
+		}
+		return problems;
+	}
+
+	private static FileProblems computeFileProblems(IResource file) throws CoreException {
+		IMarker[] markers= file.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		if (markers == null || markers.length == 0)
+			return FileProblems.NO_PROBLEMS;
+
+		int severity= NONE;
+		long[] offsets= new long[markers.length];
+		long[] lines= new long[markers.length];
+		int offsetCount= 0;
+		int lineCount= 0;
+		for (IMarker marker : markers) {
+			final int markerSeverity= getSeverity(marker);
+			if (markerSeverity == NONE)
+				continue;
+			severity= Math.max(severity, markerSeverity);
+			if (marker.isSubtypeOf(IMarker.TEXT)) {
+				int pos= marker.getAttribute(IMarker.CHAR_START, -1);
+				if (pos != -1) {
+					offsets[offsetCount++]= ((long) pos << 2) | markerSeverity;
+				} else {
+					int line= MarkerUtilities.getLineNumber(marker);
+					if (line >= 0)
+						lines[lineCount++]= ((long) line << 2) | markerSeverity;
+				}
+			}
+		}
+		if (severity == NONE)
+			return FileProblems.NO_PROBLEMS;
+		return new FileProblems(severity, new PositionTable(offsets, offsetCount), new PositionTable(lines, lineCount));
+	}
+
+	private static int getSeverity(IMarker[] markers) {
+		int severity= NONE;
+		if (markers != null) {
+			for (int i= 0; i < markers.length && severity != ERROR; i++) {
+				severity= Math.max(severity, getSeverity(markers[i]));
+			}
+		}
+		return severity;
+	}
+
+	private static int getSeverity(IMarker marker) {
+		switch (marker.getAttribute(IMarker.SEVERITY, -1)) {
+		case IMarker.SEVERITY_ERROR:
+			return ERROR;
+		case IMarker.SEVERITY_WARNING:
+			return WARNING;
+		default:
+			return NONE;
+		}
+	}
+}
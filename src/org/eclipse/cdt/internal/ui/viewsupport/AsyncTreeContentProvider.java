@@ -15,6 +15,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -36,19 +38,34 @@ import org.eclipse.cdt.internal.ui.CUIMessages;
  * While a computation for children is in progress an object of type {@link AsyncTreeWorkInProgressNode}
  * is returned as a child. On completion of the computation the viewer will be refreshed with the actual
  * children.
+ * <p>
+ * Children may be computed by more than one worker and the children of nodes shown in the viewer 
+ * may be computed in advance, such that expanding a node does not need to wait for the computation.
+ * Both are requested by derived classes via {@link #AsyncTreeContentProvider(Display, int, boolean)}.
  */
 public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
     private static final int PRIORITY_LOW = 0;
     private static final int PRIORITY_HIGH = 10;
+    /** Maximum number of children kept for nodes that have not been requested by the viewer */
+    private static final int PREFETCH_BUDGET = 10000;
     protected static final Object[] NO_CHILDREN = new Object[0];
+    /** A reasonable number of workers for content providers that support concurrent computations */
+    protected static final int PARALLEL_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
     
     private Object fInput;
     private HashMap<Object, Object[]> fChildNodes= new HashMap<Object, Object[]>();
     private HashSet<Object> fHighPriorityTasks= new HashSet<Object>();
     private HashSet<Object> fLowPriorityTasks= new HashSet<Object>();
+    private HashSet<Object> fPrefetchTasks= new HashSet<Object>();
+    private HashSet<Object> fRunningTasks= new HashSet<Object>();
+    private LinkedHashMap<Object, Object[]> fPrefetched= new LinkedHashMap<Object, Object[]>(16, 0.75f, true);
+    private int fPrefetchedSize;
+    /** Incremented when the caches are cleared, to drop the results of outdated computations */
+    private int fGeneration;
     private HashMap<Object, Object[]> fViewUpdates= new HashMap<Object, Object[]>();
     private int fViewUpdateDelta;
-    private Job fJob;
+    private final Job[] fJobs;
+    private final boolean fPrefetch;
     private Display fDisplay;
     private TreeViewer fTreeViewer= null;
     private Runnable fScheduledViewupdate= null;
@@ -56,14 +73,29 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
     private Object fAutoSelect;
 
     public AsyncTreeContentProvider(Display disp) {
+        this(disp, 1, false);
+    }
+
+    /**
+     * Creates a content provider computing children with the given number of workers.
+     * 
+     * @param disp the display of the viewer
+     * @param workers the maximum number of concurrent calls to {@link #asyncronouslyComputeChildren(Object, IProgressMonitor)}
+     * @param prefetch whether to compute the children of nodes shown in the viewer in advance
+     */
+    protected AsyncTreeContentProvider(Display disp, int workers, boolean prefetch) {
         fDisplay= disp;
-        fJob= new Job(CUIMessages.AsyncTreeContentProvider_JobName) { 
-            @Override
-			protected IStatus run(final IProgressMonitor monitor) {
-                return runJob(monitor);
-            }
-        };
-        fJob.setSystem(true);
+        fPrefetch= prefetch;
+        fJobs= new Job[Math.max(1, workers)];
+        for (int i = 0; i < fJobs.length; i++) {
+            fJobs[i]= new Job(CUIMessages.AsyncTreeContentProvider_JobName) { 
+                @Override
+                protected IStatus run(final IProgressMonitor monitor) {
+                    return runJob(monitor);
+                }
+            };
+            fJobs[i].setSystem(true);
+        }
     }
     /**
      * {@inheritDoc}
@@ -99,7 +131,8 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
      * Returns the child elements of the given parent element.
      * <p>
      * The method is called outside the UI-thread. There is no need to report progress, the monitor
-     * is supplied such that implementations can check for cancel requests. 
+     * is supplied such that implementations can check for cancel requests. When the content provider
+     * was created with more than one worker, the method is called concurrently for different parents.
      * </p>
      * The result is neither modified by the content provider nor the viewer.
      *
@@ -123,7 +156,12 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
             fScheduledViewupdate= null;
             fHighPriorityTasks.clear();
             fLowPriorityTasks.clear();
+            fPrefetchTasks.clear();
+            fRunningTasks.clear();
+            fPrefetched.clear();
+            fPrefetchedSize= 0;
             fViewUpdates.clear();   
+            fGeneration++;
         }
     }
     
@@ -211,23 +249,69 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
                     fLowPriorityTasks.add(element);
                 }
             }
-            fJob.schedule();
+            fPrefetchTasks.remove(element);
+            scheduleJobs();
+        }
+    }
+
+    /**
+     * Schedules the computation of the children of the given nodes which have not been 
+     * requested by the viewer, yet. Must be called in the UI-thread.
+     */
+    private void prefetch(Object[] elements) {
+        for (Object element : elements) {
+            if (element instanceof AsyncTreeWorkInProgressNode || fChildNodes.containsKey(element)) {
+                continue;
+            }
+            Object[] children= syncronouslyComputeChildren(element);
+            if (children != null) {
+                fChildNodes.put(element, children);
+                continue;
+            }
+            synchronized(fHighPriorityTasks) {
+                if (!fHighPriorityTasks.contains(element) && !fLowPriorityTasks.contains(element)
+                        && !fPrefetched.containsKey(element)) {
+                    fPrefetchTasks.add(element);
+                }
+            }
+        }
+        synchronized(fHighPriorityTasks) {
+            scheduleJobs();
+        }
+    }
+
+    private void scheduleJobs() {
+        int tasks= fHighPriorityTasks.size() + fLowPriorityTasks.size() + fPrefetchTasks.size() - fRunningTasks.size();
+        for (int i = 0; i < fJobs.length && i < tasks; i++) {
+            fJobs[i].schedule();
         }
     }
     
     private IStatus runJob(final IProgressMonitor monitor) {
         monitor.beginTask(CUIMessages.AsyncTreeContentProvider_TaskName, IProgressMonitor.UNKNOWN); 
         try {
-            Object parent= getParentForNextTask();
+            int generation;
+            Object parent;
+            synchronized (fHighPriorityTasks) {
+                generation= fGeneration;
+                parent= getParentForNextTask();
+            }
             while (parent != null) {
                 Object[] children= asyncronouslyComputeChildren(parent, monitor);
                 synchronized (fHighPriorityTasks) {
-                    if (fHighPriorityTasks.remove(parent) || fLowPriorityTasks.remove(parent)) {
-                        fViewUpdates.put(parent, children);
-                        scheduleViewerUpdate();
+                    if (generation == fGeneration) {
+                        fRunningTasks.remove(parent);
+                        if (fHighPriorityTasks.remove(parent) | fLowPriorityTasks.remove(parent)) {
+                            fViewUpdates.put(parent, children);
+                            scheduleViewerUpdate();
+                        }
+                        else if (fPrefetchTasks.remove(parent)) {
+                            addPrefetched(parent, children);
+                        }
                     }
+                    generation= fGeneration;
+                    parent= getParentForNextTask();
                 }
-                parent= getParentForNextTask();
             }
             return Status.OK_STATUS;
         }
@@ -235,6 +319,26 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
             monitor.done();
         }
     }
+
+    /**
+     * Stores the children computed in advance, dropping the least recently used ones
+     * when exceeding the budget.
+     */
+    private void addPrefetched(Object parent, Object[] children) {
+        Object[] old= fPrefetched.put(parent, children);
+        if (old != null) {
+            fPrefetchedSize-= old.length;
+        }
+        fPrefetchedSize+= children.length;
+        for (Iterator<Map.Entry<Object, Object[]>> iter = fPrefetched.entrySet().iterator(); 
+                fPrefetchedSize > PREFETCH_BUDGET && iter.hasNext();) {
+            Map.Entry<Object, Object[]> eldest= iter.next();
+            if (eldest.getKey() != parent) {
+                fPrefetchedSize-= eldest.getValue().length;
+                iter.remove();
+            }
+        }
+    }
     
     private void scheduleViewerUpdate() {
         Runnable runme= null;
@@ -257,6 +361,11 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
                         fViewUpdates= new HashMap<Object, Object[]>();
                     }
                     fChildNodes.putAll(updates);
+                    if (fPrefetch) {
+                        for (Object[] children : updates.values()) {
+                            prefetch(children);
+                        }
+                    }
                     if (fTreeViewer instanceof ExtendedTreeViewer) {
                         ((ExtendedTreeViewer) fTreeViewer).refresh(updates.keySet().toArray());
                     }
@@ -316,17 +425,31 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
         }
     }
 
+    /**
+     * Returns the next parent to compute the children for and marks it as running. 
+     * Must be called while holding the lock on the tasks.
+     */
     private final Object getParentForNextTask() {
-        synchronized(fHighPriorityTasks) {
-            Object parent= null;
-            if (!fHighPriorityTasks.isEmpty()) {
-                parent= fHighPriorityTasks.iterator().next();
+        Object parent= getNotRunning(fHighPriorityTasks);
+        if (parent == null) {
+            parent= getNotRunning(fLowPriorityTasks);
+            if (parent == null) {
+                parent= getNotRunning(fPrefetchTasks);
             }
-            else if (!fLowPriorityTasks.isEmpty()) {
-                parent= fLowPriorityTasks.iterator().next();
+        }
+        if (parent != null) {
+            fRunningTasks.add(parent);
+        }
+        return parent;
+    }
+
+    private Object getNotRunning(HashSet<Object> tasks) {
+        for (Object task : tasks) {
+            if (!fRunningTasks.contains(task)) {
+                return task;
             }
-            return parent;
         }
+        return null;
     }
 
 
@@ -337,6 +460,19 @@ public abstract class AsyncTreeContentProvider implements ITreeContentProvider {
             return NO_CHILDREN;
         }
         Object[] children= fChildNodes.get(parentElement);
+        if (children == null && fPrefetch) {
+            synchronized(fHighPriorityTasks) {
+                children= fPrefetched.remove(parentElement);
+                if (children != null) {
+                    fPrefetchedSize-= children.length;
+                }
+            }
+            if (children != null) {
+                fChildNodes.put(parentElement, children);
+                prefetch(children);
+                return children;
+            }
+        }
         if (children == null) {
             children= syncronouslyComputeChildren(parentElement);
             if (children != null) {
@@ -10,10 +10,8 @@
  *******************************************************************************/ 
 package org.eclipse.cdt.internal.ui.viewsupport;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
@@ -58,7 +56,9 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 		return INSTANCE;
 	}
 
-	private final HashMap<String, Set<Integer>> fIndexedFiles= new HashMap<String, Set<Integer>>();
+	private final HashMap<String, IntHashSet> fIndexedFiles= new HashMap<String, IntHashSet>();
+	/** Names of the projects waiting for a job to read their indexed files */
+	private final HashSet<String> fPendingProjects= new HashSet<String>();
 	private boolean fIsDirty= false;
 	private boolean fActive= false;
 
@@ -92,9 +92,16 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 	}
 
 	private void scheduleInitialize(final ICProject project) {
+		if (!fPendingProjects.add(project.getElementName())) {
+			// a job that has not started, yet, will read the files
+			return;
+		}
 		Job j= new Job(Messages.IndexedFilesCache_jobName) {
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
+				synchronized (fIndexedFiles) {
+					fPendingProjects.remove(project.getElementName());
+				}
 				try {
 					initialize(project);
 				} catch (CoreException e) {
@@ -118,34 +125,21 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 
 	final protected void initialize(ICProject prj) throws CoreException, InterruptedException {
 		IIndex index= CCorePlugin.getIndexManager().getIndex(prj, 0);
-		List<IIndexFileLocation> list= new ArrayList<IIndexFileLocation>();
 		index.acquireReadLock();
 		try {
 			IIndexFile[] files= index.getAllFiles();
+			IntHashSet indexed= new IntHashSet(files.length);
 			for (IIndexFile ifile : files) {
 				if (ifile.getTimestamp() >= 0) {
-					list.add(ifile.getLocation());
+					indexed.add(computeHash(ifile.getLocation()));
 				}
 			}
-			if (!list.isEmpty()) {
-				final String prjName= prj.getElementName();
+			if (!indexed.isEmpty()) {
+				// the decorations need to be updated only if the set of files has changed
 				synchronized(fIndexedFiles) {
-					Set<Integer> cache= fIndexedFiles.get(prjName);
-					if (cache == null) {
-						cache= new HashSet<Integer>();
-						fIndexedFiles.put(prjName, cache);
-					}
-					else {
-						if (!cache.isEmpty()) {
-							cache.clear();
-							fIsDirty= true;
-						}
-					}
-					for (IIndexFileLocation ifl: list) { 
-						final int h= computeHash(ifl);
-						if (cache.add(h)) {
-							fIsDirty= true;
-						}
+					IntHashSet old= fIndexedFiles.put(prj.getElementName(), indexed);
+					if (!indexed.equals(old)) {
+						fIsDirty= true;
 					}
 				}
 			}
@@ -178,9 +172,9 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 				final Set<IIndexFileLocation> filesCleared = e.getFilesCleared();
 				final Set<IIndexFileLocation> filesWritten = e.getFilesWritten();
 				if (!(filesCleared.isEmpty() && filesWritten.isEmpty())) {
-					Set<Integer> cache= fIndexedFiles.get(prjName);
+					IntHashSet cache= fIndexedFiles.get(prjName);
 					if (cache == null) {
-						cache= new HashSet<Integer>();
+						cache= new IntHashSet();
 						fIndexedFiles.put(prjName, cache);
 					}
 					for (IIndexFileLocation ifl: filesCleared) { 
@@ -221,6 +215,7 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 		synchronized (fIndexedFiles) {
 			fActive= false;
 			fIndexedFiles.clear();
+			fPendingProjects.clear();
 			final IIndexManager indexManager = CCorePlugin.getIndexManager();
 			indexManager.removeIndexChangeListener(IndexedFilesCache.this);
 			indexManager.removeIndexerStateListener(IndexedFilesCache.this);
@@ -253,7 +248,7 @@ class IndexedFilesCache implements IIndexChangeListener, IIndexerStateListener,
 			if (!fActive) {
 				activate();
 			}
-			Set<Integer> cache= fIndexedFiles.get(project.getName());
+			IntHashSet cache= fIndexedFiles.get(project.getName());
 			return cache != null && cache.contains(computeHash(ifl));
 		}
 	}
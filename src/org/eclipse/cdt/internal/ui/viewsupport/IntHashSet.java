@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2010 QNX Software Systems and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * QNX Software Systems - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.cdt.internal.ui.viewsupport;
+
+/**
+ * A set of int values stored in an open addressing hash table with linear probing,
+ * avoiding an object per element.
+ */
+final class IntHashSet {
+	/** Marks empty slots, the value itself is tracked by {@link #fHasFree} */
+	private static final int FREE = 0;
+
+	private int[] fTable;
+	private int fSize;
+	private boolean fHasFree;
+
+	IntHashSet() {
+		this(16);
+	}
+
+	IntHashSet(int expectedSize) {
+		int capacity= 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		fTable= new int[capacity];
+	}
+
+	int size() {
+		return fHasFree ? fSize + 1 : fSize;
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	boolean contains(int value) {
+		if (value == FREE) {
+			return fHasFree;
+		}
+		final int mask= fTable.length - 1;
+		for (int i= mix(value) & mask; ; i= (i + 1) & mask) {
+			final int v= fTable[i];
+			if (v == value) {
+				return true;
+			}
+			if (v == FREE) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Adds the value, returns whether the set has changed.
+	 */
+	boolean add(int value) {
+		if (value == FREE) {
+			if (fHasFree) {
+				return false;
+			}
+			fHasFree= true;
+			return true;
+		}
+		final int mask= fTable.length - 1;
+		int i= mix(value) & mask;
+		for (; fTable[i] != FREE; i= (i + 1) & mask) {
+			if (fTable[i] == value) {
+				return false;
+			}
+		}
+		fTable[i]= value;
+		if (++fSize * 2 > fTable.length) {
+			rehash(fTable.length * 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the value, returns whether the set has changed.
+	 */
+	boolean remove(int value) {
+		if (value == FREE) {
+			if (!fHasFree) {
+				return false;
+			}
+			fHasFree= false;
+			return true;
+		}
+		final int mask= fTable.length - 1;
+		int i= mix(value) & mask;
+		for (; fTable[i] != value; i= (i + 1) & mask) {
+			if (fTable[i] == FREE) {
+				return false;
+			}
+		}
+		// move back entries of the probe sequence, such that no free slot interrupts it
+		for (int j= (i + 1) & mask; fTable[j] != FREE; j= (j + 1) & mask) {
+			int home= mix(fTable[j]) & mask;
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				fTable[i]= fTable[j];
+				i= j;
+			}
+		}
+		fTable[i]= FREE;
+		fSize--;
+		return true;
+	}
+
+	private void rehash(int capacity) {
+		int[] old= fTable;
+		fTable= new int[capacity];
+		final int mask= capacity - 1;
+		for (int v : old) {
+			if (v != FREE) {
+				int i= mix(v) & mask;
+				while (fTable[i] != FREE) {
+					i= (i + 1) & mask;
+				}
+				fTable[i]= v;
+			}
+		}
+	}
+
+	private static int mix(int value) {
+		int h= value * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	@Override
+	public int hashCode() {
+		int h= 0;
+		for (int v : fTable) {
+			h+= v;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof IntHashSet)) {
+			return false;
+		}
+		IntHashSet other= (IntHashSet) obj;
+		if (other.size() != size() || other.fHasFree != fHasFree) {
+			return false;
+		}
+		for (int v : fTable) {
+			if (v != FREE && !other.contains(v)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -44,6 +44,7 @@ import org.eclipse.cdt.ui.CUIPlugin;
 import org.eclipse.cdt.internal.ui.CPluginImages;
 import org.eclipse.cdt.internal.ui.util.IProblemChangedListener;
 import org.eclipse.cdt.internal.ui.util.ImageDescriptorRegistry;
+import org.eclipse.cdt.internal.ui.util.ProblemSeverities;
 
 /**
  * LabelDecorator that decorates an element's image with error and warning overlays that 
@@ -198,6 +199,20 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		if (res == null || !res.isAccessible()) {
 			return 0;
 		}
+		ProblemSeverities severities= CUIPlugin.getDefault().getProblemMarkerManager().getSeverities();
+		if (severities != null) {
+			// kept up to date by the problem marker manager while we are listening
+			int severity= sourceElement == null ? severities.getSeverity(res)
+					: severities.getSeverity(res, sourceElement.getSourceRange());
+			switch (severity) {
+			case ProblemSeverities.ERROR:
+				return ERRORTICK_ERROR;
+			case ProblemSeverities.WARNING:
+				return ERRORTICK_WARNING;
+			default:
+				return 0;
+			}
+		}
 		int info= 0;
 		
 		IMarker[] markers= res.findMarkers(IMarker.PROBLEM, true, depth);
@@ -95,9 +95,11 @@ import org.eclipse.cdt.internal.ui.editor.CDocumentProvider;
 import org.eclipse.cdt.internal.ui.editor.WorkingCopyManager;
 import org.eclipse.cdt.internal.ui.preferences.BuildConsolePreferencePage;
 import org.eclipse.cdt.internal.ui.refactoring.CTextFileChangeFactory;
+import org.eclipse.cdt.internal.ui.refactoring.rename.IdentifierIndex;
 import org.eclipse.cdt.internal.ui.text.CTextTools;
 import org.eclipse.cdt.internal.ui.text.c.hover.CEditorTextHoverDescriptor;
 import org.eclipse.cdt.internal.ui.text.contentassist.ContentAssistPreference;
+import org.eclipse.cdt.internal.ui.text.contentassist.IncludeDirectoryCache;
 import org.eclipse.cdt.internal.ui.text.doctools.DocCommentOwnerManager;
 import org.eclipse.cdt.internal.ui.text.doctools.EditorReopener;
 import org.eclipse.cdt.internal.ui.text.folding.CFoldingStructureProviderRegistry;
@@ -560,6 +562,7 @@ public class CUIPlugin extends AbstractUIPlugin {
 		BuildConsolePreferencePage.initDefaults(getPreferenceStore());
 		//initialize ContentAssistMatcherPreference
 		ContentAssistPreference.getInstance();
+		IncludeDirectoryCache.startup();
 
 		// start make-ui plugin, such that it can check for project conversions.
 		Job job= new Job(Messages.CUIPlugin_jobStartMakeUI) {
@@ -628,6 +631,8 @@ public class CUIPlugin extends AbstractUIPlugin {
 		}
 		
 		ContentAssistPreference.shutdown();
+		IncludeDirectoryCache.shutdown();
+		IdentifierIndex.shutdown();
 
 		// Do this last.
 		super.stop(context);
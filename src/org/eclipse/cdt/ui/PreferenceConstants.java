@@ -845,6 +845,18 @@ public class PreferenceConstants {
 	 */
 	public static final String CODEASSIST_CATEGORY_ORDER= "content_assist_category_order"; //$NON-NLS-1$
 
+	/**
+	 * A named preference that controls how long content assist waits for the proposal
+	 * categories that are computed in the background. Proposals that are not available
+	 * in time are not shown.
+	 * <p>
+	 * Value is of type <code>Integer</code>, a time in milliseconds.
+	 * </p>
+	 *
+	 * @since 5.3
+	 */
+	public static final String CODEASSIST_PROPOSALS_TIMEOUT= "content_assist_proposals_timeout"; //$NON-NLS-1$
+
 	/**
 	 * A named preference that controls whether folding is enabled in the C editor.
 	 * <p>
@@ -1959,6 +1971,7 @@ public class PreferenceConstants {
 		// Content assist
 		store.setDefault(PreferenceConstants.CODEASSIST_EXCLUDED_CATEGORIES, "org.eclipse.cdt.ui.textProposalCategory\0"); //$NON-NLS-1$
 		store.setDefault(PreferenceConstants.CODEASSIST_CATEGORY_ORDER, "org.eclipse.cdt.ui.parserProposalCategory:65539\0org.eclipse.cdt.ui.textProposalCategory:65541\0org.eclipse.cdt.ui.templateProposalCategory:2\0org.eclipse.cdt.ui.helpProposalCategory:5\0"); //$NON-NLS-1$
+		store.setDefault(PreferenceConstants.CODEASSIST_PROPOSALS_TIMEOUT, 2000);
 
 		setDefaultAndFireEvent(
 				store,